@@ -0,0 +1,81 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One aggressive order that sweeps every ask level of the book (depth x ORDERS_PER_LEVEL fills).
+ * The book is refilled before each invocation, outside the timing, from the same {@link OrderPool}
+ * the sweep returns its filled orders to, as in the engine; the book itself is kept across invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class BookSweepBenchmark {
+
+    // Ask levels swept per invocation
+    @Param({"10", "100", "1000"})
+    private int depth;
+
+    private OrderBook book;
+    private OrderPool pool;
+    private EngineOrder taker;
+    private long nextId;
+    private long fills;
+
+    // Like the engine's: a maker that filled has left the book, so it goes back to the pool
+    private final OrderBook.FillListener countFills = (maker, taker, price, quantity) -> {
+        fills++;
+        if (maker.getQuantity() == 0) pool.release(maker);
+    };
+
+    @Setup
+    public void setUp() {
+        book = new OrderBook(0, "SYM");
+        pool = new OrderPool(depth * OrderBookBenchmark.ORDERS_PER_LEVEL + 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillBook() {
+        for (int level = 0; level < depth; level++) {
+            for (int i = 0; i < OrderBookBenchmark.ORDERS_PER_LEVEL; i++) {
+                book.add(order(++nextId, Order.Type.SELL, OrderBookBenchmark.MID + level, 10));
+            }
+        }
+        taker = order(++nextId, Order.Type.BUY, OrderBookBenchmark.MID + depth, 10L * depth * OrderBookBenchmark.ORDERS_PER_LEVEL);
+    }
+
+    @Benchmark
+    public long sweep() {
+        book.match(taker, countFills);
+        pool.release(taker);
+        return fills;
+    }
+
+    private EngineOrder order(long id, Order.Type type, long price, long quantity) {
+        EngineOrder o = pool.acquire();
+        o.setId(id);
+        o.setUserId(1);
+        o.setType(type);
+        o.setPrice(price);
+        o.setQuantity(quantity);
+        o.setTimestamp(id);
+        return o;
+    }
+}
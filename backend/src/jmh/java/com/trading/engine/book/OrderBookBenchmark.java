@@ -0,0 +1,156 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-operation costs of the resident book, with the book held at a steady size:
+ *   insertAndCancel   - a passive order joins a random level, the one added RING orders ago leaves
+ *   matchAndReplenish - a one-lot taker fills the best level's head order, which is then re-added
+ *                       at the back of the queue (match + add, the common aggressive path)
+ *   cancelAndReinsert - a random resting order is cancelled and a new one takes its place
+ *
+ * Orders come from an {@link OrderPool} and go back to it as in the engine (a filled maker or taker,
+ * a cancelled order), so -prof gc shows what the book itself allocates per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+
+    static final long MID = 100_000;
+    static final int ORDERS_PER_LEVEL = 4;
+    private static final int RING = 1024;
+    private static final int RANDOMS = 1 << 16;
+
+    // Price levels per side
+    @Param({"10", "100", "1000"})
+    private int depth;
+
+    // Books the operations are spread over (one book per ticker)
+    @Param({"1", "64"})
+    private int tickers;
+
+    private OrderBook[] books;
+    private OrderPool pool;
+    private int[] bookPicks;
+    private long[] levelPicks;
+    private long[][] restingIds;
+    private long[] ring;
+    private int[] ringBooks;
+    private int cursor;
+    private long nextId;
+    private long fills;
+
+    // Like the engine's: a maker that filled has left the book, so it goes back to the pool
+    private final OrderBook.FillListener countFills = (maker, taker, price, quantity) -> {
+        fills += quantity;
+        if (maker.getQuantity() == 0) pool.release(maker);
+    };
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        pool = new OrderPool(tickers * 2 * depth * ORDERS_PER_LEVEL + RING);
+        books = new OrderBook[tickers];
+        restingIds = new long[tickers][];
+        for (int b = 0; b < tickers; b++) {
+            books[b] = new OrderBook(b, "SYM" + b);
+            restingIds[b] = new long[2 * depth * ORDERS_PER_LEVEL];
+            int n = 0;
+            for (int level = 0; level < depth; level++) {
+                for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                    restingIds[b][n++] = addOrder(books[b], Order.Type.BUY, MID - 1 - level, 1);
+                    restingIds[b][n++] = addOrder(books[b], Order.Type.SELL, MID + level, 1);
+                }
+            }
+        }
+
+        bookPicks = new int[RANDOMS];
+        levelPicks = new long[RANDOMS];
+        for (int i = 0; i < RANDOMS; i++) {
+            bookPicks[i] = random.nextInt(tickers);
+            levelPicks[i] = random.nextInt(depth);
+        }
+        ring = new long[RING];
+        ringBooks = new int[RING];
+    }
+
+    @Benchmark
+    public long insertAndCancel() {
+        int i = cursor++ & (RANDOMS - 1);
+        int b = bookPicks[i];
+        boolean buy = (i & 1) == 0;
+        long price = buy ? MID - 1 - levelPicks[i] : MID + levelPicks[i];
+        long id = addOrder(books[b], buy ? Order.Type.BUY : Order.Type.SELL, price, 1);
+
+        int slot = i & (RING - 1);
+        if (ring[slot] != 0) {
+            EngineOrder cancelled = books[ringBooks[slot]].cancel(ring[slot]);
+            if (cancelled != null) pool.release(cancelled);
+        }
+        ring[slot] = id;
+        ringBooks[slot] = b;
+        return id;
+    }
+
+    @Benchmark
+    public long matchAndReplenish() {
+        int i = cursor++ & (RANDOMS - 1);
+        OrderBook book = books[bookPicks[i]];
+        boolean buy = (i & 1) == 0;
+        long price = buy ? book.getBestAsk().getPrice() : book.getBestBid().getPrice();
+
+        EngineOrder taker = order(buy ? Order.Type.BUY : Order.Type.SELL, price, 1);
+        book.match(taker, countFills);
+        if (taker.getQuantity() == 0 || !book.add(taker)) pool.release(taker);
+        addOrder(book, buy ? Order.Type.SELL : Order.Type.BUY, price, 1);
+        return fills;
+    }
+
+    @Benchmark
+    public long cancelAndReinsert() {
+        int i = cursor++ & (RANDOMS - 1);
+        int b = bookPicks[i];
+        long[] ids = restingIds[b];
+        int slot = (int) ((levelPicks[i] * ORDERS_PER_LEVEL * 2 + (i & 7)) % ids.length);
+
+        EngineOrder removed = books[b].cancel(ids[slot]);
+        ids[slot] = addOrder(books[b], removed.getType(), removed.getPrice(), removed.getQuantity());
+        pool.release(removed);
+        return ids[slot];
+    }
+
+    private long addOrder(OrderBook book, Order.Type type, long price, long quantity) {
+        EngineOrder o = order(type, price, quantity);
+        book.add(o);
+        return o.getId();
+    }
+
+    private EngineOrder order(Order.Type type, long price, long quantity) {
+        EngineOrder o = pool.acquire();
+        o.setId(++nextId);
+        o.setUserId(1);
+        o.setType(type);
+        o.setPrice(price);
+        o.setQuantity(quantity);
+        o.setTimestamp(nextId);
+        return o;
+    }
+}
@@ -0,0 +1,153 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A realistic stream of inserts, cancels and aggressive orders spread over many books.
+ *
+ * The mix is "insert:cancel:match" in percent. Inserts rest at a random level near the touch,
+ * cancels hit the oldest order the stream added to that book, matches are one-lot takers at the
+ * opposite best price. Each book keeps at most 2 x depth x ORDERS_PER_LEVEL stream orders, so its
+ * size stays bounded however long the run. Orders are pooled and recycled as in the engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class OrderFlowBenchmark {
+
+    private static final int INSERT = 0, CANCEL = 1, MATCH = 2;
+    private static final int RANDOMS = 1 << 16;
+
+    @Param({"80:15:5", "60:30:10", "50:25:25"})
+    private String mix;
+
+    // Price levels per side at the start
+    @Param({"10", "100"})
+    private int depth;
+
+    @Param({"1", "16", "256"})
+    private int tickers;
+
+    private OrderBook[] books;
+    private OrderPool pool;
+    private long[][] live;
+    private int[] liveHead;
+    private int[] liveCount;
+
+    private byte[] ops;
+    private int[] bookPicks;
+    private long[] levelPicks;
+    private int cursor;
+    private long nextId;
+    private long fills;
+
+    // Like the engine's: a maker that filled has left the book, so it goes back to the pool
+    private final OrderBook.FillListener countFills = (maker, taker, price, quantity) -> {
+        fills += quantity;
+        if (maker.getQuantity() == 0) pool.release(maker);
+    };
+
+    @Setup
+    public void setUp() {
+        String[] parts = mix.split(":");
+        int inserts = Integer.parseInt(parts[0]);
+        int cancels = Integer.parseInt(parts[1]);
+
+        Random random = new Random(42);
+        ops = new byte[RANDOMS];
+        bookPicks = new int[RANDOMS];
+        levelPicks = new long[RANDOMS];
+        for (int i = 0; i < RANDOMS; i++) {
+            int roll = random.nextInt(100);
+            ops[i] = (byte) (roll < inserts ? INSERT : roll < inserts + cancels ? CANCEL : MATCH);
+            bookPicks[i] = random.nextInt(tickers);
+            levelPicks[i] = random.nextInt(depth);
+        }
+
+        pool = new OrderPool(tickers * 2 * depth * OrderBookBenchmark.ORDERS_PER_LEVEL + 1);
+        books = new OrderBook[tickers];
+        live = new long[tickers][2 * depth * OrderBookBenchmark.ORDERS_PER_LEVEL];
+        liveHead = new int[tickers];
+        liveCount = new int[tickers];
+        for (int b = 0; b < tickers; b++) {
+            books[b] = new OrderBook(b, "SYM" + b);
+            for (int level = 0; level < depth; level++) {
+                for (int i = 0; i < OrderBookBenchmark.ORDERS_PER_LEVEL; i++) {
+                    insert(b, true, level);
+                    insert(b, false, level);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long flow() {
+        int i = cursor++ & (RANDOMS - 1);
+        int b = bookPicks[i];
+        boolean buy = (i & 1) == 0;
+
+        switch (ops[i]) {
+            case INSERT -> insert(b, buy, levelPicks[i]);
+            case CANCEL -> cancelOldest(b);
+            default -> {
+                OrderBook book = books[b];
+                PriceLevel best = buy ? book.getBestAsk() : book.getBestBid();
+                if (best != null) {
+                    // A one-lot taker never rests here
+                    EngineOrder taker = order(buy ? Order.Type.BUY : Order.Type.SELL, best.getPrice());
+                    book.match(taker, countFills);
+                    pool.release(taker);
+                }
+            }
+        }
+        return fills;
+    }
+
+    private void insert(int b, boolean buy, long level) {
+        if (liveCount[b] == live[b].length) cancelOldest(b);
+
+        long price = buy ? OrderBookBenchmark.MID - 1 - level : OrderBookBenchmark.MID + level;
+        EngineOrder o = order(buy ? Order.Type.BUY : Order.Type.SELL, price);
+        books[b].add(o);
+
+        live[b][(liveHead[b] + liveCount[b]) % live[b].length] = o.getId();
+        liveCount[b]++;
+    }
+
+    // The order may already have been filled, in which case the cancel is a miss (as in production)
+    private void cancelOldest(int b) {
+        if (liveCount[b] == 0) return;
+        EngineOrder cancelled = books[b].cancel(live[b][liveHead[b]]);
+        if (cancelled != null) pool.release(cancelled);
+        liveHead[b] = (liveHead[b] + 1) % live[b].length;
+        liveCount[b]--;
+    }
+
+    private EngineOrder order(Order.Type type, long price) {
+        EngineOrder o = pool.acquire();
+        o.setId(++nextId);
+        o.setUserId(1);
+        o.setType(type);
+        o.setPrice(price);
+        o.setQuantity(1);
+        o.setTimestamp(nextId);
+        return o;
+    }
+}
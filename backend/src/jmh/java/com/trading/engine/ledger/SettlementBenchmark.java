@@ -0,0 +1,94 @@
+package com.trading.engine.ledger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ledger work behind one fill, as {@link AccountLedger} does it: both orders' reservations,
+ * then the buyer's and seller's legs under their account locks. The seller's leg carries the
+ * cost-basis update that holding average prices are derived from.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SettlementBenchmark {
+
+    private static final int RANDOMS = 1 << 16;
+    private static final long START_SHARES = 1_000_000_000L;
+
+    @Param({"2", "1000"})
+    private int accounts;
+
+    @Param({"1", "64"})
+    private int tickers;
+
+    private Account[] ledger;
+    private int[] buyers;
+    private int[] sellers;
+    private int[] tickerPicks;
+    private long[] prices;
+    private long[] quantities;
+    private int cursor;
+    private long nextHoldingId;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ledger = new Account[accounts];
+        for (int a = 0; a < accounts; a++) {
+            ledger[a] = new Account(a, Long.MAX_VALUE / 4);
+            for (int t = 0; t < tickers; t++) {
+                ledger[a].putPosition(t, ++nextHoldingId, START_SHARES, START_SHARES * 10_000);
+            }
+        }
+
+        buyers = new int[RANDOMS];
+        sellers = new int[RANDOMS];
+        tickerPicks = new int[RANDOMS];
+        prices = new long[RANDOMS];
+        quantities = new long[RANDOMS];
+        for (int i = 0; i < RANDOMS; i++) {
+            buyers[i] = random.nextInt(accounts);
+            sellers[i] = (buyers[i] + 1 + random.nextInt(accounts - 1)) % accounts;
+            tickerPicks[i] = random.nextInt(tickers);
+            prices[i] = 9_000 + random.nextInt(2_000);
+            quantities[i] = 1 + random.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public void settle(Blackhole bh) {
+        int i = cursor++ & (RANDOMS - 1);
+        Account buyer = ledger[buyers[i]];
+        Account seller = ledger[sellers[i]];
+        int symbolId = tickerPicks[i];
+        long quantity = quantities[i];
+        long notional = prices[i] * quantity;
+
+        bh.consume(buyer.reserveCash(notional));
+        bh.consume(seller.reserveShares(symbolId, quantity));
+
+        synchronized (buyer) {
+            bh.consume(buyer.buy(symbolId, quantity, notional, notional, ++nextHoldingId));
+        }
+        synchronized (seller) {
+            bh.consume(seller.sell(symbolId, quantity, notional, ++nextHoldingId));
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.trading.engine.load;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.engine.EngineApplication;
+import com.trading.engine.controller.TradeController;
+import com.trading.engine.model.Order;
+import com.trading.engine.service.IdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end load test: the whole engine (TradeController -> Kafka -> OrderConsumer ->
+ * OrderMatchingService -> acks, persistence, market data) in one JVM, against embedded Postgres,
+ * Kafka and Redis. No external services.
+ *
+ * The order tape is generated from a seed ({@link OrderFlowGenerator}) or replayed from a file
+ * ({@link OrderTape}), then sent through the controller at a fixed rate (open loop). The first
+ * warmup requests are sent and fully acked before measuring starts. See src/loadtest/README.md.
+ */
+public final class LoadHarness {
+
+    private static final long FIRST_USER_ID = 100_000;
+    private static final BigDecimal TICK_SIZE = new BigDecimal("0.01");
+    private static final BigDecimal START_PRICE = new BigDecimal("100.00");
+    private static final long DRAIN_TIMEOUT_MS = 120_000;
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        Map<String, String> options = parse(args);
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int orders = Integer.parseInt(options.getOrDefault("orders", "200000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "20000"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "20000"));
+        int partitions = Integer.parseInt(options.getOrDefault("partitions", "8"));
+        int shards = Integer.parseInt(options.getOrDefault("shards", "4"));
+        int loops = Integer.parseInt(options.getOrDefault("loops", "4"));
+
+        // 1. The tape: generated from the seed, or replayed as recorded
+        List<OrderTape.Entry> tape;
+        if (options.containsKey("replay")) {
+            tape = OrderTape.read(Path.of(options.get("replay")));
+        } else {
+            int tickers = Integer.parseInt(options.getOrDefault("tickers", "50"));
+            tape = new OrderFlowGenerator(seed,
+                    Integer.parseInt(options.getOrDefault("users", "1000")), FIRST_USER_ID,
+                    IntStream.range(0, tickers).mapToObj(i -> String.format("S%03d", i)).toList(),
+                    Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+                    options.getOrDefault("mix", "70:20:10"),
+                    START_PRICE, TICK_SIZE, 10, 100, 1.0).generate(orders);
+        }
+        if (options.containsKey("record")) {
+            OrderTape.write(Path.of(options.get("record")), tape);
+        }
+        warmup = Math.min(warmup, tape.size());
+
+        Map<String, Object> settings = new LinkedHashMap<>(options);
+        settings.putIfAbsent("rate", rate);
+        settings.put("requests", tape.size());
+        settings.put("warmup", warmup);
+
+        // 2. Infrastructure, all in this JVM
+        Path journal = Files.createTempDirectory("loadtest-journal");
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        EmbeddedKafkaBroker kafka = new EmbeddedKafkaKraftBroker(1, partitions);
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            redis.start();
+            kafka.afterPropertiesSet();
+
+            // Command-line arguments outrank application.properties
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(EngineApplication.class).run(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                    "--spring.data.redis.host=localhost",
+                    "--spring.data.redis.port=" + redisPort,
+                    "--server.port=0",
+                    "--engine.journal.dir=" + journal,
+                    // Only configured symbols are traded
+                    "--engine.symbols=" + String.join(",", tickers(tape).stream().map(t -> t + ":" + TICK_SIZE + ":1").toList()),
+                    "--engine.orders.partitions=" + partitions,
+                    "--engine.matching.shards=" + shards,
+                    "--engine.matching.loops=" + loops,
+                    // The harness measures the engine, not the ingress throttles
+                    "--engine.throttle.user.rate=0",
+                    "--engine.throttle.ticker.rate=0",
+                    // Every ack is needed to learn engine order ids, so none may be dropped
+                    "--engine.acks.queue-capacity=" + (tape.size() + 1000),
+                    "--logging.level.com.trading.engine=WARN");
+            try {
+                run(context, tape, warmup, rate, settings, options.getOrDefault("report", "target/loadtest-report.json"));
+            } finally {
+                context.close();
+            }
+        } finally {
+            kafka.destroy();
+            redis.stop();
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, List<OrderTape.Entry> tape, int warmup, int rate,
+                            Map<String, Object> settings, String reportPath) {
+        seedAccounts(context.getBean(JdbcTemplate.class), context.getBean(IdGenerator.class), tape);
+
+        TradeController gateway = context.getBean(TradeController.class);
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        AckTracker acks = new AckTracker(tape.size());
+        context.getBean("brokerChannel", SubscribableChannel.class).subscribe(acks::onMessage);
+
+        // 3. Warm-up (also covers Kafka partition assignment), fully drained before measuring
+        acks.report = new LoadReport();
+        send(gateway, acks, tape, 0, warmup, rate);
+        acks.drain();
+
+        LoadReport report = new LoadReport();
+        acks.report = report;
+        report.started(System.nanoTime(), trades(registry));
+        send(gateway, acks, tape, warmup, tape.size(), rate);
+        acks.drain();
+        report.finished(System.nanoTime(), trades(registry));
+
+        Map<String, Object> result = report.toMap(settings);
+        report.print(result);
+        report.write(Path.of(reportPath), result);
+    }
+
+    // Open loop: request i is due at start + i / rate, whether or not earlier ones have been answered
+    private static void send(TradeController gateway, AckTracker acks, List<OrderTape.Entry> tape, int from, int to, int rate) {
+        long start = System.nanoTime();
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+
+        for (int i = from; i < to; i++) {
+            OrderTape.Entry e = tape.get(i);
+            long due = start + (i - from) * intervalNanos;
+            while (System.nanoTime() < due) Thread.onSpinWait();
+            if (rate == 0) due = System.nanoTime();
+
+            if (e.kind() == OrderTape.Kind.NEW) {
+                Order order = new Order();
+                order.setUserId(e.userId());
+                order.setTicker(e.ticker());
+                order.setType(e.side());
+                order.setPrice(e.price());
+                order.setQuantity(e.quantity());
+                acks.expectOrder(e, due);
+                try {
+                    gateway.placeOrder(order);
+                } catch (RuntimeException ex) {
+                    acks.gatewayRejected(e);
+                }
+            } else {
+                long orderId = acks.orderIds.get(e.target());
+                if (orderId == 0) {
+                    acks.report.cancelsSkipped.incrementAndGet();
+                    continue;
+                }
+                acks.expectCancel();
+                gateway.cancelOrder(orderId, e.ticker(), e.userId());
+            }
+        }
+    }
+
+    // Every user on the tape gets ample cash and a large position in every ticker on it
+    private static void seedAccounts(JdbcTemplate jdbc, IdGenerator ids, List<OrderTape.Entry> tape) {
+        TreeSet<Long> users = new TreeSet<>();
+        for (OrderTape.Entry e : tape) users.add(e.userId());
+        TreeSet<String> tickers = tickers(tape);
+
+        jdbc.batchUpdate("INSERT INTO users (id, username, balance) VALUES (?, ?, ?) ON CONFLICT (id) DO NOTHING",
+                users, 1000, (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, "load_" + id);
+                    ps.setBigDecimal(3, new BigDecimal("1000000000.00"));
+                });
+
+        List<Object[]> holdings = new ArrayList<>();
+        for (Long user : users) {
+            for (String ticker : tickers) holdings.add(new Object[]{ids.nextId(), user, ticker, 1_000_000, START_PRICE});
+        }
+        jdbc.batchUpdate("INSERT INTO holdings (id, user_id, ticker, quantity, average_price) VALUES (?, ?, ?, ?, ?) " +
+                "ON CONFLICT (user_id, ticker) DO NOTHING", holdings);
+    }
+
+    private static TreeSet<String> tickers(List<OrderTape.Entry> tape) {
+        TreeSet<String> tickers = new TreeSet<>();
+        for (OrderTape.Entry e : tape) tickers.add(e.ticker());
+        return tickers;
+    }
+
+    private static double trades(MeterRegistry registry) {
+        return registry.find("engine.trades").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String a = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = a.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            options.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Follows the engine's acks on /topic/orders/{userId}.
+     *
+     * A new order's ack doesn't say which request it answers (the engine assigns the id), but orders
+     * for one user and ticker share a partition and are acked in the order they were sent, so the
+     * ack is matched to the oldest unanswered request for that user and ticker.
+     */
+    private static final class AckTracker {
+
+        @JsonIgnoreProperties(ignoreUnknown = true)
+        record Ack(long orderId, long userId, String ticker, String status) {
+        }
+
+        private final ObjectMapper json = new ObjectMapper();
+        private final Map<String, Queue<Integer>> awaiting = new ConcurrentHashMap<>();
+        private final long[] due;
+        final AtomicLongArray orderIds;
+        private final AtomicLong outstanding = new AtomicLong();
+        volatile LoadReport report;
+
+        AckTracker(int size) {
+            due = new long[size];
+            orderIds = new AtomicLongArray(size);
+        }
+
+        void expectOrder(OrderTape.Entry e, long dueNanos) {
+            due[e.ref()] = dueNanos; // published to the ack thread by the queue below
+            outstanding.incrementAndGet();
+            report.ordersSent.incrementAndGet();
+            awaiting.computeIfAbsent(e.userId() + ":" + e.ticker(), k -> new ConcurrentLinkedQueue<>()).add(e.ref());
+        }
+
+        // Refused by the controller's own validation: never reaches the engine, so no ack will come
+        void gatewayRejected(OrderTape.Entry e) {
+            awaiting.get(e.userId() + ":" + e.ticker()).remove(e.ref());
+            outstanding.decrementAndGet();
+            report.rejected.incrementAndGet();
+        }
+
+        void expectCancel() {
+            outstanding.incrementAndGet();
+            report.cancelsSent.incrementAndGet();
+        }
+
+        void onMessage(org.springframework.messaging.Message<?> message) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination == null || !destination.startsWith("/topic/orders/")) return;
+
+            long now = System.nanoTime();
+            Ack ack;
+            try {
+                ack = json.readValue((byte[]) message.getPayload(), Ack.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unreadable ack on " + destination, e);
+            }
+
+            LoadReport r = report;
+            switch (ack.status()) {
+                case "ACCEPTED" -> {
+                    int ref = answered(ack);
+                    orderIds.set(ref, ack.orderId());
+                    r.accepted.incrementAndGet();
+                    r.recordLatency(now - due[ref]);
+                }
+                case "REJECTED" -> {
+                    if (ack.orderId() == 0) {
+                        r.recordLatency(now - due[answered(ack)]);
+                        r.rejected.incrementAndGet();
+                    } else {
+                        r.cancelsRejected.incrementAndGet();
+                    }
+                }
+                case "CANCELLED" -> r.cancelled.incrementAndGet();
+                default -> {
+                    return;
+                }
+            }
+            outstanding.decrementAndGet();
+        }
+
+        private int answered(Ack ack) {
+            return awaiting.get(ack.userId() + ":" + ack.ticker()).remove();
+        }
+
+        void drain() {
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+            while (outstanding.get() > 0 && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (outstanding.get() > 0) {
+                System.err.println("❌ Load test: " + outstanding.get() + " requests still unanswered after "
+                        + DRAIN_TIMEOUT_MS / 1000 + "s");
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.trading.engine.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What a load run measured, after warm-up.
+ *
+ * Latency is order-to-ack: from the moment the order was due to be sent (not when it actually
+ * went out) until the engine's ACCEPTED or REJECTED ack for it. Measuring from the schedule means
+ * a stall that delays later sends shows up in their latency instead of being hidden.
+ */
+final class LoadReport {
+
+    private final Histogram latency = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+
+    final AtomicLong ordersSent = new AtomicLong();
+    final AtomicLong accepted = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+    final AtomicLong cancelsSent = new AtomicLong();
+    final AtomicLong cancelled = new AtomicLong();
+    final AtomicLong cancelsRejected = new AtomicLong(); // mostly: the order had already filled
+    final AtomicLong cancelsSkipped = new AtomicLong();  // the target's ack (its engine id) hadn't arrived yet
+
+    private long startNanos;
+    private long endNanos;
+    private double trades;
+
+    // Ack thread only
+    void recordLatency(long nanos) {
+        latency.recordValue(Math.min(nanos, latency.getHighestTrackableValue()));
+    }
+
+    void started(long nanos, double tradesSoFar) {
+        startNanos = nanos;
+        trades = -tradesSoFar;
+    }
+
+    void finished(long nanos, double tradesSoFar) {
+        endNanos = nanos;
+        trades += tradesSoFar;
+    }
+
+    Map<String, Object> toMap(Map<String, Object> settings) {
+        double seconds = (endNanos - startNanos) / 1e9;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("settings", settings);
+        m.put("seconds", round(seconds));
+        m.put("ordersSent", ordersSent.get());
+        m.put("accepted", accepted.get());
+        m.put("rejected", rejected.get());
+        m.put("cancelsSent", cancelsSent.get());
+        m.put("cancelled", cancelled.get());
+        m.put("cancelsRejected", cancelsRejected.get());
+        m.put("cancelsSkipped", cancelsSkipped.get());
+        m.put("ordersPerSecond", round((accepted.get() + rejected.get()) / seconds));
+        m.put("trades", (long) trades);
+        m.put("tradesPerSecond", round(trades / seconds));
+
+        Map<String, Object> micros = new LinkedHashMap<>();
+        for (double p : new double[]{50, 90, 99, 99.9, 99.99}) {
+            micros.put("p" + (p == (long) p ? String.valueOf((long) p) : String.valueOf(p)),
+                    round(latency.getValueAtPercentile(p) / 1e3));
+        }
+        micros.put("max", round(latency.getMaxValue() / 1e3));
+        micros.put("mean", round(latency.getMean() / 1e3));
+        m.put("orderToAckMicros", micros);
+        return m;
+    }
+
+    void print(Map<String, Object> report) {
+        System.out.println();
+        System.out.println("=== Load test ===");
+        report.forEach((k, v) -> System.out.println(String.format("%-18s %s", k, v)));
+    }
+
+    void write(Path path, Map<String, Object> report) {
+        try {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write report " + path, e);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
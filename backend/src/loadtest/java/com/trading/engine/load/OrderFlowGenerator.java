@@ -0,0 +1,104 @@
+package com.trading.engine.load;
+
+import com.trading.engine.model.Order;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic order flow, fully determined by its seed.
+ *
+ * - Tickers are picked with Zipf popularity: the k-th ticker gets weight 1 / k^s, so a few
+ *   names carry most of the flow, as on a real exchange.
+ * - Each ticker's mid price is a random walk (a Gaussian step of up to a few ticks per order in it).
+ * - The mix is "limit:marketable:cancel" in percent. Limit orders rest 1..depth ticks away from
+ *   the mid; marketable orders are priced 1..depth ticks through it, so they cross resting orders
+ *   on the other side; cancels pick a random limit order the stream placed earlier.
+ * - Users are drawn uniformly from [firstUserId, firstUserId + users).
+ */
+public final class OrderFlowGenerator {
+
+    private final SplittableRandom random;
+    private final int users;
+    private final long firstUserId;
+    private final List<String> tickers;
+    private final double[] cumulative; // Zipf CDF over tickers
+    private final int limitPercent;
+    private final int marketablePercent;
+    private final BigDecimal tickSize;
+    private final long[] mid;          // ticks, per ticker
+    private final int depth;
+    private final int maxQuantity;
+    private final double volatility;   // standard deviation of a mid step, in ticks
+
+    public OrderFlowGenerator(long seed, int users, long firstUserId, List<String> tickers, double zipfExponent,
+                              String mix, BigDecimal startPrice, BigDecimal tickSize, int depth, int maxQuantity,
+                              double volatility) {
+        this.random = new SplittableRandom(seed);
+        this.users = users;
+        this.firstUserId = firstUserId;
+        this.tickers = tickers;
+        this.tickSize = tickSize;
+        this.depth = depth;
+        this.maxQuantity = maxQuantity;
+        this.volatility = volatility;
+
+        String[] parts = mix.split(":");
+        this.limitPercent = Integer.parseInt(parts[0]);
+        this.marketablePercent = Integer.parseInt(parts[1]);
+
+        this.cumulative = new double[tickers.size()];
+        double sum = 0;
+        for (int k = 0; k < cumulative.length; k++) {
+            sum += 1.0 / Math.pow(k + 1, zipfExponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < cumulative.length; k++) cumulative[k] /= sum;
+
+        this.mid = new long[tickers.size()];
+        Arrays.fill(mid, startPrice.divide(tickSize).longValueExact());
+    }
+
+    public List<OrderTape.Entry> generate(int count) {
+        List<OrderTape.Entry> tape = new ArrayList<>(count);
+        List<OrderTape.Entry> resting = new ArrayList<>(); // limit orders a cancel may target
+
+        for (int ref = 0; ref < count; ref++) {
+            int t = pickTicker();
+            // Never walk below 2 x depth ticks, so every price the stream makes stays positive
+            mid[t] = Math.max(2L * depth, mid[t] + Math.round(random.nextGaussian() * volatility));
+
+            int roll = random.nextInt(100);
+            if (roll >= limitPercent + marketablePercent && !resting.isEmpty()) {
+                // Cancel: swap-remove a random earlier limit order
+                int i = random.nextInt(resting.size());
+                OrderTape.Entry target = resting.get(i);
+                resting.set(i, resting.get(resting.size() - 1));
+                resting.remove(resting.size() - 1);
+                tape.add(OrderTape.Entry.cancel(ref, target.userId(), target.ticker(), target.ref()));
+                continue;
+            }
+
+            boolean buy = random.nextBoolean();
+            boolean marketable = roll >= limitPercent;
+            long offset = 1 + random.nextInt(depth);
+            // Passive buys sit below the mid and sells above it; marketable ones are priced through it
+            long ticks = buy == marketable ? mid[t] + offset : mid[t] - offset;
+
+            OrderTape.Entry order = OrderTape.Entry.order(ref, firstUserId + random.nextInt(users), tickers.get(t),
+                    buy ? Order.Type.BUY : Order.Type.SELL, tickSize.multiply(BigDecimal.valueOf(ticks)),
+                    1 + random.nextInt(maxQuantity));
+            tape.add(order);
+            if (!marketable) resting.add(order);
+        }
+        return tape;
+    }
+
+    private int pickTicker() {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.trading.engine.load;
+
+import com.trading.engine.model.Order;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An order stream as a text file, one request per line, so a run can be replayed exactly
+ * (same requests in the same order) against another build or configuration:
+ *
+ *   N,ref,userId,ticker,BUY|SELL,price,quantity   new order
+ *   C,ref,userId,ticker,targetRef                 cancel of the new order with ref targetRef
+ *
+ * Refs are the line numbers, starting at 0. Engine order ids are not on the tape: they are
+ * assigned by the engine and differ between runs, so a cancel names the order by its ref.
+ */
+public final class OrderTape {
+
+    public enum Kind {
+        NEW, CANCEL
+    }
+
+    public record Entry(Kind kind, int ref, long userId, String ticker, Order.Type side, BigDecimal price,
+                        int quantity, int target) {
+
+        public static Entry order(int ref, long userId, String ticker, Order.Type side, BigDecimal price, int quantity) {
+            return new Entry(Kind.NEW, ref, userId, ticker, side, price, quantity, -1);
+        }
+
+        public static Entry cancel(int ref, long userId, String ticker, int target) {
+            return new Entry(Kind.CANCEL, ref, userId, ticker, null, null, 0, target);
+        }
+    }
+
+    private OrderTape() {
+    }
+
+    public static void write(Path path, List<Entry> entries) {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            for (Entry e : entries) {
+                if (e.kind() == Kind.NEW) {
+                    out.write("N," + e.ref() + "," + e.userId() + "," + e.ticker() + "," + e.side() + ","
+                            + e.price().toPlainString() + "," + e.quantity());
+                } else {
+                    out.write("C," + e.ref() + "," + e.userId() + "," + e.ticker() + "," + e.target());
+                }
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write tape " + path, e);
+        }
+    }
+
+    public static List<Entry> read(Path path) {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.isBlank()) continue;
+                String[] f = line.split(",");
+                int ref = Integer.parseInt(f[1]);
+                if (ref != entries.size()) {
+                    throw new IllegalStateException("Tape " + path + " is out of order at ref " + ref);
+                }
+                entries.add(f[0].equals("N")
+                        ? Entry.order(ref, Long.parseLong(f[2]), f[3], Order.Type.valueOf(f[4]), new BigDecimal(f[5]), Integer.parseInt(f[6]))
+                        : Entry.cancel(ref, Long.parseLong(f[2]), f[3], Integer.parseInt(f[4])));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read tape " + path, e);
+        }
+        return entries;
+    }
+}
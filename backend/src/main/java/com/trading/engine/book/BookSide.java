@@ -0,0 +1,74 @@
+package com.trading.engine.book;
+
+/**
+ * The price levels of one side of a book, sorted in an array from the worst price to the best.
+ *
+ * Keeping the best level at the end makes it O(1) to read and to remove, and a level appearing
+ * near the top of the book (where almost all activity is) shifts only the few levels above it.
+ * Prices are primitive longs throughout: no boxing and no tree nodes.
+ */
+final class BookSide {
+
+    private final boolean bids;
+    private PriceLevel[] levels = new PriceLevel[16];
+    private int count;
+
+    BookSide(boolean bids) {
+        this.bids = bids;
+    }
+
+    int size() {
+        return count;
+    }
+
+    PriceLevel best() {
+        return count > 0 ? levels[count - 1] : null;
+    }
+
+    // The i-th best level, 0 being the best
+    PriceLevel level(int i) {
+        return levels[count - 1 - i];
+    }
+
+    PriceLevel find(long price) {
+        int i = search(price);
+        return i >= 0 ? levels[i] : null;
+    }
+
+    void insert(PriceLevel level) {
+        int i = -search(level.getPrice()) - 1;
+        if (count == levels.length) {
+            PriceLevel[] grown = new PriceLevel[count * 2];
+            System.arraycopy(levels, 0, grown, 0, count);
+            levels = grown;
+        }
+        System.arraycopy(levels, i, levels, i + 1, count - i);
+        levels[i] = level;
+        count++;
+    }
+
+    void remove(PriceLevel level) {
+        int i = search(level.getPrice());
+        System.arraycopy(levels, i + 1, levels, i, count - i - 1);
+        levels[--count] = null;
+    }
+
+    // Binary search on rank, which grows towards the best price: bids by price, asks by -price
+    private int search(long price) {
+        long key = rank(price);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long r = rank(levels[mid].getPrice());
+            if (r < key) low = mid + 1;
+            else if (r > key) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private long rank(long price) {
+        return bids ? price : -price;
+    }
+}
@@ -0,0 +1,116 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+
+/**
+ * The matching engine's view of an order: primitive fields only.
+ * The symbol is its id in the {@link com.trading.engine.symbol.SymbolRegistry}, price is in ticks of
+ * its tick size, timestamp in epoch milliseconds.
+ * The JPA {@link Order} entity only exists at the REST and persistence edges.
+ *
+ * Instances are recycled through an {@link OrderPool}, and a resting order is itself the node of
+ * its price level's queue, so matching allocates nothing per order.
+ */
+public class EngineOrder {
+
+    private long id;
+    private long userId;
+    private int symbolId;
+    private Order.Type type;
+    private long price;
+    private long quantity;
+    private long timestamp;
+    private Order.TimeInForce timeInForce = Order.TimeInForce.GTC;
+
+    // Queue links, set while the order rests in a book
+    PriceLevel level;
+    EngineOrder prev;
+    EngineOrder next;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
+    public Order.Type getType() {
+        return type;
+    }
+
+    public void setType(Order.Type type) {
+        this.type = type;
+    }
+
+    public boolean isBuy() {
+        return type == Order.Type.BUY;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public void setPrice(long price) {
+        this.price = price;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Order.TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    public void setTimeInForce(Order.TimeInForce timeInForce) {
+        this.timeInForce = timeInForce;
+    }
+
+    // Only GTC orders rest; whatever an IOC or FOK order (market orders included) doesn't fill is cancelled
+    public boolean canRest() {
+        return timeInForce == Order.TimeInForce.GTC;
+    }
+
+    // Back to a blank order, ready for reuse
+    void clear() {
+        id = 0;
+        userId = 0;
+        symbolId = 0;
+        type = null;
+        price = 0;
+        quantity = 0;
+        timestamp = 0;
+        timeInForce = Order.TimeInForce.GTC;
+        level = null;
+        prev = next = null;
+    }
+}
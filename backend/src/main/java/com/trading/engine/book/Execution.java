@@ -0,0 +1,9 @@
+package com.trading.engine.book;
+
+/**
+ * One fill produced by matching. Price is in ticks, notional in cents, timestamp in epoch milliseconds.
+ * The symbol is its id in the {@link com.trading.engine.symbol.SymbolRegistry}.
+ */
+public record Execution(long tradeId, int symbolId, long price, long quantity, long notional,
+                        long buyerId, long sellerId, long buyerOrderId, long sellerOrderId, long timestamp) {
+}
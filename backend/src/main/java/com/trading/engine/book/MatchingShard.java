@@ -0,0 +1,131 @@
+package com.trading.engine.book;
+
+import com.trading.engine.journal.EventJournal;
+import com.trading.engine.symbol.SymbolSpec;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The order books owned by one Kafka partition of "stock-orders", plus that partition's journal.
+ *
+ * Orders are keyed by ticker, so every ticker lives on exactly one partition and
+ * is only ever matched by the single consumer thread that owns that partition.
+ * Books are indexed by symbol id; everything here runs under the shard's lock.
+ */
+public class MatchingShard {
+
+    // The checksum of a shard whose books are all empty
+    public static final long EMPTY_CHECKSUM = 0xcbf29ce484222325L;
+
+    private final int partition;
+    private final Path dir;
+    private final EventJournal journal;
+    private OrderBook[] booksById = new OrderBook[16];
+    private final List<OrderBook> books = new ArrayList<>();
+    private final OrderPool orders;
+    private OrderBook.FillListener fillListener;
+
+    // Highest Kafka offset already applied; anything at or below it is a redelivery
+    private long lastOffset = -1;
+
+    public MatchingShard(int partition, Path dir, EventJournal journal, OrderPool orders) {
+        this.partition = partition;
+        this.dir = dir;
+        this.journal = journal;
+        this.orders = orders;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    public OrderPool getOrders() {
+        return orders;
+    }
+
+    // Settles this shard's fills; one instance for the shard's lifetime, so matching allocates no listener
+    public OrderBook.FillListener getFillListener() {
+        return fillListener;
+    }
+
+    public void setFillListener(OrderBook.FillListener fillListener) {
+        this.fillListener = fillListener;
+    }
+
+    public long getLastOffset() {
+        return lastOffset;
+    }
+
+    public void setLastOffset(long lastOffset) {
+        this.lastOffset = Math.max(this.lastOffset, lastOffset);
+    }
+
+    // Creates an empty book the first time this shard sees the symbol
+    public OrderBook book(SymbolSpec spec) {
+        OrderBook book = find(spec.id());
+        return book != null ? book : restore(new OrderBook(spec.id(), spec.ticker()));
+    }
+
+    // Returns null if this shard has never seen the symbol
+    public OrderBook find(int symbolId) {
+        return symbolId >= 0 && symbolId < booksById.length ? booksById[symbolId] : null;
+    }
+
+    // Installs a book restored from a snapshot
+    public OrderBook restore(OrderBook book) {
+        int id = book.getSymbolId();
+        if (id >= booksById.length) booksById = Arrays.copyOf(booksById, Math.max(id + 1, booksById.length * 2));
+        if (booksById[id] != null) books.remove(booksById[id]);
+        booksById[id] = book;
+        books.add(book);
+        return book;
+    }
+
+    public Collection<OrderBook> books() {
+        return Collections.unmodifiableList(books);
+    }
+
+    /**
+     * A hash of every resting order (id, user, side, price, quantity, timestamp) in priority order,
+     * books in ticker order. Two shards that applied the same journal records have the same checksum,
+     * whichever instance they live on.
+     */
+    public long checksum() {
+        // Ticker order, not id order: ids are handed out per process
+        List<OrderBook> sorted = new ArrayList<>(books);
+        sorted.sort(Comparator.comparing(OrderBook::getTicker));
+        long[] h = {EMPTY_CHECKSUM};
+        for (OrderBook book : sorted) {
+            if (book.size() == 0) continue; // an empty book is the same as no book
+            h[0] = mix(h[0], book.getTicker().hashCode());
+            book.forEach(o -> {
+                h[0] = mix(h[0], o.getId());
+                h[0] = mix(h[0], o.getUserId());
+                h[0] = mix(h[0], o.isBuy() ? 1 : 2);
+                h[0] = mix(h[0], o.getPrice());
+                h[0] = mix(h[0], o.getQuantity());
+                h[0] = mix(h[0], o.getTimestamp());
+            });
+        }
+        return h[0];
+    }
+
+    // FNV-1a over whole longs
+    private static long mix(long h, long value) {
+        return (h ^ value) * 0x100000001b3L;
+    }
+}
@@ -0,0 +1,284 @@
+package com.trading.engine.book;
+
+import java.util.function.Consumer;
+
+/**
+ * Resident limit order book for a single ticker. Market, IOC and FOK orders match against it but never rest.
+ *
+ * Price levels are sorted (bids high-to-low, asks low-to-high) and each level is a FIFO queue,
+ * giving price-time priority. Each side keeps its best level at the end of a sorted array, so
+ * reading it is O(1), and an order-id index makes cancels O(1). Prices are ticks, so crossing
+ * checks are plain long comparisons.
+ *
+ * Steady-state matching allocates nothing: orders are their own queue nodes, emptied levels are
+ * kept for reuse and the index is keyed by primitive ids. Orders that leave the book (filled or
+ * cancelled) are handed back to the caller, which recycles them through its {@link OrderPool}.
+ *
+ * Not thread-safe: a book must only be touched by the thread that owns its ticker.
+ */
+public class OrderBook {
+
+    /**
+     * Callback for each execution produced while matching an incoming order.
+     * Price is in ticks (the maker's price). A maker whose quantity is now 0 has already left the book.
+     */
+    @FunctionalInterface
+    public interface FillListener {
+        void onFill(EngineOrder maker, EngineOrder taker, long price, long quantity);
+
+        /**
+         * Self-trade prevention took quantity off the maker and/or the taker without a trade.
+         * A maker whose quantity is now 0 has already left the book; a taker at 0 won't rest.
+         */
+        default void onSelfTrade(EngineOrder maker, EngineOrder taker, long makerQuantity, long takerQuantity) {
+        }
+    }
+
+    private final int symbolId;
+    private final String ticker;
+    private final BookSide bids = new BookSide(true);
+    private final BookSide asks = new BookSide(false);
+    private final OrderIndex ordersById = new OrderIndex(1024);
+
+    private PriceLevel[] spareLevels = new PriceLevel[16];
+    private int spareCount;
+
+    public OrderBook(int symbolId, String ticker) {
+        this.symbolId = symbolId;
+        this.ticker = ticker;
+    }
+
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public PriceLevel getBestBid() {
+        return bids.best();
+    }
+
+    public PriceLevel getBestAsk() {
+        return asks.best();
+    }
+
+    public int size() {
+        return ordersById.size();
+    }
+
+    public boolean contains(long orderId) {
+        return ordersById.get(orderId) != null;
+    }
+
+    public EngineOrder get(long orderId) {
+        return ordersById.get(orderId);
+    }
+
+    /**
+     * Visits every resting order in priority order: bids best-first, then asks best-first,
+     * oldest first within a level. Re-adding them in this order rebuilds an identical book.
+     */
+    public void forEach(Consumer<EngineOrder> action) {
+        for (int i = 0; i < bids.size(); i++) bids.level(i).forEach(action);
+        for (int i = 0; i < asks.size(); i++) asks.level(i).forEach(action);
+    }
+
+    /**
+     * Copies up to {@code maxLevels} aggregated levels of one side, best first, into the arrays.
+     * Returns how many levels were written.
+     */
+    public int depth(boolean buySide, int maxLevels, long[] prices, long[] quantities) {
+        BookSide side = buySide ? bids : asks;
+        int n = Math.min(maxLevels, side.size());
+        for (int i = 0; i < n; i++) {
+            PriceLevel level = side.level(i);
+            prices[i] = level.getPrice();
+            quantities[i] = level.getTotalQuantity();
+        }
+        return n;
+    }
+
+    /**
+     * The limit a market order for {@code quantity} needs to sweep the opposite side as it stands:
+     * the price of the level where the cumulative quantity reaches it, or the last level if the side
+     * holds less. Returns 0 if the opposite side is empty.
+     */
+    public long sweepPrice(boolean buy, long quantity) {
+        BookSide opposite = buy ? asks : bids;
+        long price = 0;
+        for (int i = 0; i < opposite.size() && quantity > 0; i++) {
+            PriceLevel level = opposite.level(i);
+            price = level.getPrice();
+            quantity -= level.getTotalQuantity();
+        }
+        return price;
+    }
+
+    /**
+     * Fill-or-kill pre-check: whether matching the order now would fill all of it. Sums the cumulative
+     * quantity of the crossing levels; only with self-trade prevention on does it walk their orders,
+     * since the taker's own orders don't fill it (and stop it, unless the resting one is cancelled).
+     */
+    public boolean canFill(EngineOrder taker, SelfTradePrevention selfTrade) {
+        boolean isBuy = taker.isBuy();
+        BookSide opposite = isBuy ? asks : bids;
+        long needed = taker.getQuantity();
+
+        for (int i = 0; i < opposite.size() && needed > 0; i++) {
+            PriceLevel level = opposite.level(i);
+            long price = level.getPrice();
+            if (isBuy ? price > taker.getPrice() : price < taker.getPrice()) break;
+
+            if (selfTrade == SelfTradePrevention.NONE) {
+                needed -= level.getTotalQuantity();
+                continue;
+            }
+            for (EngineOrder maker = level.head(); maker != null && needed > 0; maker = maker.next) {
+                if (maker.getUserId() != taker.getUserId()) needed -= maker.getQuantity();
+                else if (selfTrade != SelfTradePrevention.CANCEL_OLDEST) return false;
+            }
+        }
+        return needed <= 0;
+    }
+
+    /**
+     * Matches the incoming order against the opposite side, best price first and oldest first
+     * within a price. The taker's quantity is reduced in place; the maker's price is the trade price.
+     */
+    public void match(EngineOrder taker, FillListener listener) {
+        match(taker, SelfTradePrevention.NONE, listener);
+    }
+
+    /**
+     * Matches as above, applying {@code selfTrade} to resting orders of the taker's own user.
+     * Replaying the same orders with the same mode gives the same book.
+     */
+    public void match(EngineOrder taker, SelfTradePrevention selfTrade, FillListener listener) {
+        boolean isBuy = taker.isBuy();
+        BookSide opposite = isBuy ? asks : bids;
+
+        while (taker.getQuantity() > 0) {
+            PriceLevel level = opposite.best();
+            if (level == null) break;
+
+            // Stop once the best opposite price no longer crosses the limit
+            long price = level.getPrice();
+            if (isBuy ? price > taker.getPrice() : price < taker.getPrice()) break;
+
+            EngineOrder maker = level.head();
+            long quantity = Math.min(taker.getQuantity(), maker.getQuantity());
+
+            if (maker.getUserId() == taker.getUserId() && selfTrade != SelfTradePrevention.NONE) {
+                preventSelfTrade(maker, taker, quantity, selfTrade, listener);
+                continue;
+            }
+
+            taker.setQuantity(taker.getQuantity() - quantity);
+            maker.setQuantity(maker.getQuantity() - quantity);
+            level.reduce(quantity);
+
+            if (maker.getQuantity() == 0) {
+                remove(maker);
+            }
+
+            listener.onFill(maker, taker, price, quantity);
+        }
+    }
+
+    private void preventSelfTrade(EngineOrder maker, EngineOrder taker, long quantity, SelfTradePrevention selfTrade,
+                                  FillListener listener) {
+        long makerQuantity = switch (selfTrade) {
+            case CANCEL_OLDEST -> maker.getQuantity();
+            case DECREMENT -> quantity;
+            default -> 0;
+        };
+        long takerQuantity = switch (selfTrade) {
+            case CANCEL_NEWEST -> taker.getQuantity();
+            case DECREMENT -> quantity;
+            default -> 0;
+        };
+
+        taker.setQuantity(taker.getQuantity() - takerQuantity);
+        if (makerQuantity == maker.getQuantity()) {
+            remove(maker);
+            maker.setQuantity(0);
+        } else {
+            maker.level.reduce(makerQuantity);
+            maker.setQuantity(maker.getQuantity() - makerQuantity);
+        }
+        listener.onSelfTrade(maker, taker, makerQuantity, takerQuantity);
+    }
+
+    /**
+     * Rests the order at the back of its price level's queue. Returns false (and leaves the book
+     * alone) if it has nothing left to rest or an order with its id is already resting.
+     */
+    public boolean add(EngineOrder order) {
+        if (order.getQuantity() <= 0 || ordersById.get(order.getId()) != null) {
+            return false;
+        }
+
+        BookSide side = sideOf(order);
+        PriceLevel level = side.find(order.getPrice());
+        if (level == null) {
+            level = newLevel(order.getPrice());
+            side.insert(level);
+        }
+        level.append(order);
+        ordersById.put(order);
+        return true;
+    }
+
+    /**
+     * Removes a resting order. Returns the removed order, or null if it was not in the book.
+     */
+    public EngineOrder cancel(long orderId) {
+        EngineOrder order = ordersById.get(orderId);
+        if (order == null) return null;
+        remove(order);
+        return order;
+    }
+
+    /**
+     * Lowers a resting order's quantity in place, keeping its place in the queue.
+     * Returns the order, or null if it is not in the book or the quantity is not in (0, current].
+     */
+    public EngineOrder reduce(long orderId, long newQuantity) {
+        EngineOrder order = ordersById.get(orderId);
+        if (order == null || newQuantity <= 0 || newQuantity > order.getQuantity()) return null;
+
+        order.level.reduce(order.getQuantity() - newQuantity);
+        order.setQuantity(newQuantity);
+        return order;
+    }
+
+    private void remove(EngineOrder order) {
+        ordersById.remove(order.getId());
+        PriceLevel level = order.level;
+        level.unlink(order);
+
+        if (level.isEmpty()) {
+            sideOf(order).remove(level);
+            if (spareCount == spareLevels.length) {
+                PriceLevel[] grown = new PriceLevel[spareCount * 2];
+                System.arraycopy(spareLevels, 0, grown, 0, spareCount);
+                spareLevels = grown;
+            }
+            spareLevels[spareCount++] = level;
+        }
+    }
+
+    private PriceLevel newLevel(long price) {
+        if (spareCount == 0) return new PriceLevel(price);
+        PriceLevel level = spareLevels[--spareCount];
+        spareLevels[spareCount] = null;
+        level.reset(price);
+        return level;
+    }
+
+    private BookSide sideOf(EngineOrder order) {
+        return order.isBuy() ? bids : asks;
+    }
+}
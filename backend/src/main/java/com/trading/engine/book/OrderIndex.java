@@ -0,0 +1,81 @@
+package com.trading.engine.book;
+
+/**
+ * Resting orders by id: an open-addressing hash table on primitive long keys (linear probing,
+ * backward-shift deletion), so lookups, inserts and removals box nothing and allocate nothing.
+ * The table only grows, doubling when half full.
+ */
+final class OrderIndex {
+
+    private long[] keys;
+    private EngineOrder[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    OrderIndex(int expected) {
+        allocate(Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    EngineOrder get(long id) {
+        for (int i = slot(id); ; i = (i + 1) & mask) {
+            EngineOrder v = values[i];
+            if (v == null || keys[i] == id) return v;
+        }
+    }
+
+    // The caller has checked the id is not present
+    void put(EngineOrder order) {
+        if (size * 2 >= values.length) grow();
+        int i = slot(order.getId());
+        while (values[i] != null) i = (i + 1) & mask;
+        keys[i] = order.getId();
+        values[i] = order;
+        size++;
+    }
+
+    void remove(long id) {
+        int i = slot(id);
+        while (values[i] != null && keys[i] != id) i = (i + 1) & mask;
+        if (values[i] == null) return;
+        values[i] = null;
+        size--;
+
+        // Pull later entries of the probe run back into the gap, so lookups never stop short
+        int gap = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                values[j] = null;
+                gap = j;
+            }
+        }
+    }
+
+    // Fibonacci hashing: order ids are sequential-ish, the multiply spreads them over the table
+    private int slot(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void grow() {
+        EngineOrder[] oldValues = values;
+        allocate(values.length * 2);
+        size = 0;
+        for (EngineOrder order : oldValues) {
+            if (order != null) put(order);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new EngineOrder[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+}
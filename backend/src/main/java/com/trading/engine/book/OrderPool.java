@@ -0,0 +1,50 @@
+package com.trading.engine.book;
+
+/**
+ * Recycles {@link EngineOrder}s for one matching shard, so accepting an order takes a spare
+ * instance instead of allocating one.
+ *
+ * An order goes back once nothing refers to it any more: it was filled (as maker or taker),
+ * cancelled, replaced by a re-entered copy, or rejected before reaching the book. Everything the
+ * engine hands to other threads (acks, persistence rows, journal records) is copied out of the
+ * order first, so a recycled order is never read elsewhere.
+ *
+ * Not thread-safe: only the shard's owning thread may use it.
+ */
+public class OrderPool {
+
+    private EngineOrder[] spare;
+    private int count;
+
+    public OrderPool(int preallocate) {
+        spare = new EngineOrder[Math.max(16, preallocate)];
+        for (int i = 0; i < preallocate; i++) spare[count++] = new EngineOrder();
+    }
+
+    /**
+     * A blank order. Only allocates when every pooled order is in use.
+     */
+    public EngineOrder acquire() {
+        if (count == 0) return new EngineOrder();
+        EngineOrder order = spare[--count];
+        spare[count] = null;
+        return order;
+    }
+
+    public void release(EngineOrder order) {
+        if (order.level != null) {
+            throw new IllegalStateException("Order " + order.getId() + " is still resting in a book");
+        }
+        order.clear();
+        if (count == spare.length) {
+            EngineOrder[] grown = new EngineOrder[count * 2];
+            System.arraycopy(spare, 0, grown, 0, count);
+            spare = grown;
+        }
+        spare[count++] = order;
+    }
+
+    public int available() {
+        return count;
+    }
+}
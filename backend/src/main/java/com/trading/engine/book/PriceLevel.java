@@ -0,0 +1,82 @@
+package com.trading.engine.book;
+
+import java.util.function.Consumer;
+
+/**
+ * All resting orders at one price, kept in arrival order (FIFO).
+ * The orders themselves form an intrusive doubly linked list, so any order can be unlinked in O(1)
+ * and queueing one allocates nothing. Emptied levels are reused by their book for new prices.
+ */
+public class PriceLevel {
+
+    private long price;
+    private EngineOrder head;
+    private EngineOrder tail;
+    private long totalQuantity;
+    private int orderCount;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    // In ticks
+    public long getPrice() {
+        return price;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    public void forEach(Consumer<EngineOrder> action) {
+        for (EngineOrder o = head; o != null; o = o.next) {
+            action.accept(o);
+        }
+    }
+
+    // Reuse for another price; only called on an empty level
+    void reset(long price) {
+        this.price = price;
+        this.totalQuantity = 0;
+        this.orderCount = 0;
+    }
+
+    EngineOrder head() {
+        return head;
+    }
+
+    void append(EngineOrder order) {
+        order.level = this;
+        if (tail == null) {
+            head = tail = order;
+        } else {
+            tail.next = order;
+            order.prev = tail;
+            tail = order;
+        }
+        totalQuantity += order.getQuantity();
+        orderCount++;
+    }
+
+    void unlink(EngineOrder o) {
+        if (o.prev != null) o.prev.next = o.next; else head = o.next;
+        if (o.next != null) o.next.prev = o.prev; else tail = o.prev;
+        o.prev = o.next = null;
+        o.level = null;
+        totalQuantity -= o.getQuantity();
+        orderCount--;
+    }
+
+    // Called after a partial fill (or an amend) reduced an order's quantity by 'quantity'
+    void reduce(long quantity) {
+        totalQuantity -= quantity;
+    }
+}
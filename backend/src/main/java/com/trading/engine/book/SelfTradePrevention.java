@@ -0,0 +1,17 @@
+package com.trading.engine.book;
+
+/**
+ * What matching does when an incoming order would trade against a resting order of the same user.
+ * Whatever is taken off either order this way leaves without a trade, and the engine releases its
+ * reservation.
+ */
+public enum SelfTradePrevention {
+    // Trade as usual
+    NONE,
+    // The incoming order's remaining quantity is cancelled; the resting order stays
+    CANCEL_NEWEST,
+    // The resting order is cancelled and matching continues with the next one
+    CANCEL_OLDEST,
+    // Both lose the smaller of the two quantities; whichever reaches zero is cancelled
+    DECREMENT
+}
@@ -0,0 +1,56 @@
+package com.trading.engine.codec;
+
+/**
+ * A request to cancel a resting order (template 2). 34 bytes on the wire.
+ */
+public final class CancelMessage extends EngineMessage {
+
+    public static final byte TEMPLATE_ID = 2;
+
+    private static final int ORDER_ID = 0;
+    private static final int USER_ID = 8;
+    private static final int INGRESS_NANOS = 16;
+    private static final int TICKER = 24;
+    private static final int BODY_LENGTH = 32;
+
+    @Override
+    public byte templateId() {
+        return TEMPLATE_ID;
+    }
+
+    @Override
+    public int bodyLength() {
+        return BODY_LENGTH;
+    }
+
+    public static CancelMessage encode(long orderId, long userId, String ticker, long ingressNanos) {
+        CancelMessage m = new CancelMessage();
+        m.allocate();
+        m.putLong(ORDER_ID, orderId);
+        m.putLong(USER_ID, userId);
+        m.putLong(INGRESS_NANOS, ingressNanos);
+        m.putTicker(TICKER, ticker);
+        return m;
+    }
+
+    public long getOrderId() {
+        return getLong(ORDER_ID);
+    }
+
+    public long getUserId() {
+        return getLong(USER_ID);
+    }
+
+    public long getIngressNanos() {
+        return getLong(INGRESS_NANOS);
+    }
+
+    public long getTickerCode() {
+        return getTickerCode(TICKER);
+    }
+
+    // For logs and rejections only (allocates)
+    public String getTicker() {
+        return getTicker(TICKER);
+    }
+}
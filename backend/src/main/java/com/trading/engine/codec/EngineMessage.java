@@ -0,0 +1,131 @@
+package com.trading.engine.codec;
+
+import com.trading.engine.symbol.TickerCode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base of the fixed-layout binary messages on the engine's Kafka topics (SBE-style flyweights).
+ *
+ * A message is a 2-byte header followed by a fixed-length body:
+ *
+ *   [byte schemaVersion][byte templateId][body...]
+ *
+ * A flyweight owns no data: it reads and writes its fields in place in the wrapped buffer
+ * (little-endian, at fixed offsets), so decoding costs no copies and no garbage beyond the
+ * flyweight itself. Tickers are fixed 8-byte ASCII fields, zero-padded, so a ticker field read as
+ * one long is its {@link TickerCode}: the engine interns it to a symbol id without building a String.
+ *
+ * Adding fields means a new schema version; adding messages means a new template id.
+ */
+public abstract class EngineMessage {
+
+    public static final byte SCHEMA_VERSION = 1;
+    public static final int HEADER_LENGTH = 2;
+    public static final int TICKER_LENGTH = TickerCode.MAX_LENGTH;
+
+    private static final int VERSION_OFFSET = 0;
+    private static final int TEMPLATE_OFFSET = 1;
+
+    protected ByteBuffer buffer;
+    protected int offset;
+    private String ticker; // decoded lazily, once
+
+    /**
+     * Points this flyweight at a message that starts at {@code offset}.
+     */
+    public EngineMessage wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.offset = offset;
+        this.ticker = null;
+        return this;
+    }
+
+    /**
+     * Writes the header into a fresh buffer big enough for this message and wraps it.
+     */
+    EngineMessage allocate() {
+        wrap(ByteBuffer.allocate(length()), 0);
+        buffer.put(offset + VERSION_OFFSET, SCHEMA_VERSION);
+        buffer.put(offset + TEMPLATE_OFFSET, templateId());
+        return this;
+    }
+
+    public abstract byte templateId();
+
+    public abstract int bodyLength();
+
+    public int length() {
+        return HEADER_LENGTH + bodyLength();
+    }
+
+    /**
+     * The encoded message. Shares the backing array when the flyweight covers all of it.
+     */
+    public byte[] toBytes() {
+        byte[] array = buffer.array();
+        if (offset == 0 && array.length == length()) return array;
+
+        byte[] copy = new byte[length()];
+        System.arraycopy(array, buffer.arrayOffset() + offset, copy, 0, length());
+        return copy;
+    }
+
+    // --- Field access for subclasses (body offsets) ---
+
+    protected long getLong(int field) {
+        return buffer.getLong(offset + HEADER_LENGTH + field);
+    }
+
+    protected void putLong(int field, long value) {
+        buffer.putLong(offset + HEADER_LENGTH + field, value);
+    }
+
+    protected int getInt(int field) {
+        return buffer.getInt(offset + HEADER_LENGTH + field);
+    }
+
+    protected void putInt(int field, int value) {
+        buffer.putInt(offset + HEADER_LENGTH + field, value);
+    }
+
+    protected byte getByte(int field) {
+        return buffer.get(offset + HEADER_LENGTH + field);
+    }
+
+    protected void putByte(int field, byte value) {
+        buffer.put(offset + HEADER_LENGTH + field, value);
+    }
+
+    // An enum field: the constant with the byte's ordinal, or null for one a corrupt or newer sender wrote
+    protected <E extends Enum<E>> E getEnum(int field, E[] values) {
+        byte ordinal = getByte(field);
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    protected long getTickerCode(int field) {
+        return getLong(field);
+    }
+
+    // For logs and rejections only (allocates)
+    protected String getTicker(int field) {
+        if (ticker == null) ticker = TickerCode.toString(getTickerCode(field));
+        return ticker;
+    }
+
+    protected void putTicker(int field, String value) {
+        putLong(field, TickerCode.of(value));
+        ticker = value;
+    }
+
+    // --- Header access (any message) ---
+
+    static byte schemaVersion(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + VERSION_OFFSET);
+    }
+
+    static byte templateId(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + TEMPLATE_OFFSET);
+    }
+}
@@ -0,0 +1,42 @@
+package com.trading.engine.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kafka value deserializer for the engine topics. Returns a flyweight over the record's bytes:
+ * an {@link OrderMessage}, {@link CancelMessage}, {@link TradeMessage}, {@link ReplaceMessage} or {@link ReportMessage},
+ * chosen by template id.
+ * Records written with another schema version are rejected.
+ */
+public class EngineMessageDeserializer implements Deserializer<EngineMessage> {
+
+    @Override
+    public EngineMessage deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+        if (data.length < EngineMessage.HEADER_LENGTH) {
+            throw new SerializationException("Truncated message on " + topic + " (" + data.length + " bytes)");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = EngineMessage.schemaVersion(buffer, 0);
+        if (version != EngineMessage.SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported schema version " + version + " on " + topic);
+        }
+
+        EngineMessage message = switch (EngineMessage.templateId(buffer, 0)) {
+            case OrderMessage.TEMPLATE_ID -> new OrderMessage();
+            case CancelMessage.TEMPLATE_ID -> new CancelMessage();
+            case TradeMessage.TEMPLATE_ID -> new TradeMessage();
+            case ReplaceMessage.TEMPLATE_ID -> new ReplaceMessage();
+            case ReportMessage.TEMPLATE_ID -> new ReportMessage();
+            default -> throw new SerializationException("Unknown template id " + EngineMessage.templateId(buffer, 0) + " on " + topic);
+        };
+        if (data.length < message.length()) {
+            throw new SerializationException("Truncated message on " + topic + " (" + data.length + " bytes)");
+        }
+        return message.wrap(buffer, 0);
+    }
+}
@@ -0,0 +1,26 @@
+package com.trading.engine.codec;
+
+import com.trading.engine.model.Order;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer for the engine topics. Accepts an {@link Order} (encoded as an
+ * {@link OrderMessage}) or an already encoded message (e.g. a {@link TradeMessage}, which needs the
+ * symbol's reference data to encode).
+ */
+public class EngineMessageSerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) return null;
+
+        try {
+            if (data instanceof EngineMessage message) return message.toBytes();
+            if (data instanceof Order order) return OrderMessage.encode(order, System.currentTimeMillis()).toBytes();
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot encode " + data.getClass().getSimpleName() + " for " + topic, e);
+        }
+        throw new SerializationException("No binary encoding for " + data.getClass().getName());
+    }
+}
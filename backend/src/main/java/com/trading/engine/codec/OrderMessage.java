@@ -0,0 +1,121 @@
+package com.trading.engine.codec;
+
+import com.trading.engine.model.Order;
+
+import java.math.BigDecimal;
+
+/**
+ * A new order (template 1). 50 bytes on the wire.
+ *
+ * The price is a decimal: mantissa x 10^-exponent (exactly BigDecimal's unscaled value and scale),
+ * so the producer needs no symbol reference data and the engine converts straight to ticks.
+ * A market order has no price and is sent with a mantissa of 0.
+ */
+public final class OrderMessage extends EngineMessage {
+
+    public static final byte TEMPLATE_ID = 1;
+
+    // values() clones its array on every call
+    private static final Order.Type[] TYPES = Order.Type.values();
+    private static final Order.TimeInForce[] TIMES_IN_FORCE = Order.TimeInForce.values();
+
+    private static final int USER_ID = 0;
+    private static final int PRICE_MANTISSA = 8;
+    private static final int QUANTITY = 16;
+    private static final int PRICE_EXPONENT = 20;
+    private static final int SIDE = 21;
+    private static final int TIME_IN_FORCE = 22;
+    // 23: padding
+    private static final int TIMESTAMP = 24;
+    private static final int INGRESS_NANOS = 32;
+    private static final int TICKER = 40;
+    private static final int BODY_LENGTH = 48;
+
+    @Override
+    public byte templateId() {
+        return TEMPLATE_ID;
+    }
+
+    @Override
+    public int bodyLength() {
+        return BODY_LENGTH;
+    }
+
+    /**
+     * Encodes a REST/JPA order into a new message.
+     */
+    public static OrderMessage encode(Order order, long timestampMillis) {
+        // Negative scales (e.g. 1E+2) are normalised so the exponent is never negative
+        BigDecimal price = order.getPrice() == null ? BigDecimal.ZERO
+                : order.getPrice().scale() < 0 ? order.getPrice().setScale(0) : order.getPrice();
+        if (price.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Price has too many decimal places: " + price);
+        }
+
+        OrderMessage m = new OrderMessage();
+        m.allocate();
+        m.putLong(USER_ID, order.getUserId());
+        m.putLong(PRICE_MANTISSA, price.unscaledValue().longValueExact());
+        m.putByte(PRICE_EXPONENT, (byte) price.scale());
+        m.putInt(QUANTITY, order.getQuantity());
+        m.putByte(SIDE, (byte) order.getType().ordinal());
+        m.putByte(TIME_IN_FORCE, (byte) order.getTimeInForce().ordinal());
+        m.putLong(TIMESTAMP, timestampMillis);
+        m.putLong(INGRESS_NANOS, order.getIngressNanos());
+        m.putTicker(TICKER, order.getTicker());
+        return m;
+    }
+
+    public long getUserId() {
+        return getLong(USER_ID);
+    }
+
+    public long getPriceMantissa() {
+        return getLong(PRICE_MANTISSA);
+    }
+
+    public int getPriceExponent() {
+        return getByte(PRICE_EXPONENT);
+    }
+
+    public int getQuantity() {
+        return getInt(QUANTITY);
+    }
+
+    // Null if the byte names no side: the engine rejects such an order as malformed
+    public Order.Type getType() {
+        return getEnum(SIDE, TYPES);
+    }
+
+    public boolean isMarket() {
+        return getPriceMantissa() == 0;
+    }
+
+    // A market order never rests, so GTC reads as IOC. Null if the byte names no time in force
+    public Order.TimeInForce getTimeInForce() {
+        Order.TimeInForce timeInForce = getEnum(TIME_IN_FORCE, TIMES_IN_FORCE);
+        return timeInForce == Order.TimeInForce.GTC && isMarket() ? Order.TimeInForce.IOC : timeInForce;
+    }
+
+    public long getTimestamp() {
+        return getLong(TIMESTAMP);
+    }
+
+    public long getIngressNanos() {
+        return getLong(INGRESS_NANOS);
+    }
+
+    public long getTickerCode() {
+        return getTickerCode(TICKER);
+    }
+
+    // For logs and rejections only (allocates)
+    public String getTicker() {
+        return getTicker(TICKER);
+    }
+
+    // For logs and rejections only (allocates)
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(getPriceMantissa(), getPriceExponent());
+    }
+}
@@ -0,0 +1,85 @@
+package com.trading.engine.codec;
+
+import java.math.BigDecimal;
+
+/**
+ * Cancel-replace of a resting order (template 4): new limit price and new open quantity. 50 bytes on the wire.
+ *
+ * The engine amends in place (keeping time priority) when the price is unchanged and the quantity
+ * does not grow; otherwise the order loses its place and is re-entered under the same id.
+ */
+public final class ReplaceMessage extends EngineMessage {
+
+    public static final byte TEMPLATE_ID = 4;
+
+    private static final int ORDER_ID = 0;
+    private static final int USER_ID = 8;
+    private static final int PRICE_MANTISSA = 16;
+    private static final int QUANTITY = 24;
+    private static final int PRICE_EXPONENT = 28;
+    // 29-31: padding
+    private static final int INGRESS_NANOS = 32;
+    private static final int TICKER = 40;
+    private static final int BODY_LENGTH = 48;
+
+    @Override
+    public byte templateId() {
+        return TEMPLATE_ID;
+    }
+
+    @Override
+    public int bodyLength() {
+        return BODY_LENGTH;
+    }
+
+    public static ReplaceMessage encode(long orderId, long userId, String ticker, BigDecimal price, int quantity, long ingressNanos) {
+        BigDecimal p = price.scale() < 0 ? price.setScale(0) : price;
+        if (p.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Price has too many decimal places: " + price);
+        }
+
+        ReplaceMessage m = new ReplaceMessage();
+        m.allocate();
+        m.putLong(ORDER_ID, orderId);
+        m.putLong(USER_ID, userId);
+        m.putLong(PRICE_MANTISSA, p.unscaledValue().longValueExact());
+        m.putByte(PRICE_EXPONENT, (byte) p.scale());
+        m.putInt(QUANTITY, quantity);
+        m.putLong(INGRESS_NANOS, ingressNanos);
+        m.putTicker(TICKER, ticker);
+        return m;
+    }
+
+    public long getOrderId() {
+        return getLong(ORDER_ID);
+    }
+
+    public long getUserId() {
+        return getLong(USER_ID);
+    }
+
+    public long getPriceMantissa() {
+        return getLong(PRICE_MANTISSA);
+    }
+
+    public int getPriceExponent() {
+        return getByte(PRICE_EXPONENT);
+    }
+
+    public int getQuantity() {
+        return getInt(QUANTITY);
+    }
+
+    public long getIngressNanos() {
+        return getLong(INGRESS_NANOS);
+    }
+
+    public long getTickerCode() {
+        return getTickerCode(TICKER);
+    }
+
+    // For logs and rejections only (allocates)
+    public String getTicker() {
+        return getTicker(TICKER);
+    }
+}
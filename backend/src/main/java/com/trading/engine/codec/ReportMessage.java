@@ -0,0 +1,116 @@
+package com.trading.engine.codec;
+
+import com.trading.engine.ledger.RejectReason;
+import com.trading.engine.report.ExecutionReport;
+import com.trading.engine.symbol.TickerCode;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * An execution report for a gateway request (template 5). 74 bytes on the wire.
+ *
+ * Encoded by the engine from primitives it already holds (no String, no BigDecimal) and turned into
+ * an {@link ExecutionReport} by the gateway that sent the request. Notional is in cents.
+ */
+public final class ReportMessage extends EngineMessage {
+
+    public static final byte TEMPLATE_ID = 5;
+
+    private static final byte NO_REASON = -1;
+
+    // values() clones its array on every call
+    private static final ExecutionReport.Status[] STATUSES = ExecutionReport.Status.values();
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private static final int REQUEST_ID = 0;
+    private static final int ORDER_ID = 8;
+    private static final int USER_ID = 16;
+    private static final int FILLED_QUANTITY = 24;
+    private static final int LEAVES_QUANTITY = 32;
+    private static final int FILLED_NOTIONAL = 40;
+    private static final int TIMESTAMP = 48;
+    private static final int TICKER = 56;
+    private static final int STATUS = 64;
+    private static final int REASON = 65;
+    // 66-71: padding
+    private static final int BODY_LENGTH = 72;
+
+    @Override
+    public byte templateId() {
+        return TEMPLATE_ID;
+    }
+
+    @Override
+    public int bodyLength() {
+        return BODY_LENGTH;
+    }
+
+    public static ReportMessage encode(long requestId, long orderId, long userId, long tickerCode,
+                                       ExecutionReport.Status status, RejectReason reason,
+                                       long filledQuantity, long leavesQuantity, long filledNotional, long timestamp) {
+        ReportMessage m = new ReportMessage();
+        m.allocate();
+        m.putLong(REQUEST_ID, requestId);
+        m.putLong(ORDER_ID, orderId);
+        m.putLong(USER_ID, userId);
+        m.putLong(FILLED_QUANTITY, filledQuantity);
+        m.putLong(LEAVES_QUANTITY, leavesQuantity);
+        m.putLong(FILLED_NOTIONAL, filledNotional);
+        m.putLong(TIMESTAMP, timestamp);
+        m.putLong(TICKER, tickerCode);
+        m.putByte(STATUS, (byte) status.ordinal());
+        m.putByte(REASON, reason == null ? NO_REASON : (byte) reason.ordinal());
+        return m;
+    }
+
+    public ExecutionReport toReport(String clientOrderId) {
+        long filled = getFilledQuantity();
+        BigDecimal averagePrice = filled == 0 ? null
+                : BigDecimal.valueOf(getFilledNotional(), 2).divide(BigDecimal.valueOf(filled), MathContext.DECIMAL64);
+        return new ExecutionReport(clientOrderId, getOrderId(), getUserId(), getTicker(), getStatus(), getReason(),
+                filled, getLeavesQuantity(), averagePrice, getTimestamp());
+    }
+
+    public long getRequestId() {
+        return getLong(REQUEST_ID);
+    }
+
+    public long getOrderId() {
+        return getLong(ORDER_ID);
+    }
+
+    public long getUserId() {
+        return getLong(USER_ID);
+    }
+
+    public long getFilledQuantity() {
+        return getLong(FILLED_QUANTITY);
+    }
+
+    public long getLeavesQuantity() {
+        return getLong(LEAVES_QUANTITY);
+    }
+
+    public long getFilledNotional() {
+        return getLong(FILLED_NOTIONAL);
+    }
+
+    public long getTimestamp() {
+        return getLong(TIMESTAMP);
+    }
+
+    // Null if the byte names no status: the gateway fails the request instead of answering it
+    public ExecutionReport.Status getStatus() {
+        return getEnum(STATUS, STATUSES);
+    }
+
+    // Null for no reason, and for one this version doesn't know
+    public RejectReason getReason() {
+        return getEnum(REASON, REASONS);
+    }
+
+    public String getTicker() {
+        return getTicker(TICKER);
+    }
+}
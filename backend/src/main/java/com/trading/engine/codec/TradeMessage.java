@@ -0,0 +1,106 @@
+package com.trading.engine.codec;
+
+import com.trading.engine.book.Execution;
+import com.trading.engine.symbol.SymbolSpec;
+
+/**
+ * An execution (template 3). 82 bytes on the wire.
+ *
+ * Price is in ticks, as the engine holds it; ticks x tickSize (from the symbol's reference data)
+ * gives the price. Notional is in cents. The ticker travels as text: symbol ids are local to each process.
+ */
+public final class TradeMessage extends EngineMessage {
+
+    public static final byte TEMPLATE_ID = 3;
+
+    private static final int TRADE_ID = 0;
+    private static final int PRICE_TICKS = 8;
+    private static final int QUANTITY = 16;
+    private static final int NOTIONAL = 24;
+    private static final int BUYER_ID = 32;
+    private static final int SELLER_ID = 40;
+    private static final int BUYER_ORDER_ID = 48;
+    private static final int SELLER_ORDER_ID = 56;
+    private static final int TIMESTAMP = 64;
+    private static final int TICKER = 72;
+    private static final int BODY_LENGTH = 80;
+
+    @Override
+    public byte templateId() {
+        return TEMPLATE_ID;
+    }
+
+    @Override
+    public int bodyLength() {
+        return BODY_LENGTH;
+    }
+
+    public static TradeMessage encode(Execution e, SymbolSpec spec) {
+        TradeMessage m = new TradeMessage();
+        m.allocate();
+        m.putLong(TRADE_ID, e.tradeId());
+        m.putLong(PRICE_TICKS, e.price());
+        m.putLong(QUANTITY, e.quantity());
+        m.putLong(NOTIONAL, e.notional());
+        m.putLong(BUYER_ID, e.buyerId());
+        m.putLong(SELLER_ID, e.sellerId());
+        m.putLong(BUYER_ORDER_ID, e.buyerOrderId());
+        m.putLong(SELLER_ORDER_ID, e.sellerOrderId());
+        m.putLong(TIMESTAMP, e.timestamp());
+        m.putLong(TICKER, spec.code());
+        return m;
+    }
+
+    /**
+     * @param symbolId the receiving process's id for {@link #getTickerCode()}
+     */
+    public Execution toExecution(int symbolId) {
+        return new Execution(getTradeId(), symbolId, getPriceTicks(), getQuantity(), getNotional(),
+                getBuyerId(), getSellerId(), getBuyerOrderId(), getSellerOrderId(), getTimestamp());
+    }
+
+    public long getTradeId() {
+        return getLong(TRADE_ID);
+    }
+
+    public long getPriceTicks() {
+        return getLong(PRICE_TICKS);
+    }
+
+    public long getQuantity() {
+        return getLong(QUANTITY);
+    }
+
+    public long getNotional() {
+        return getLong(NOTIONAL);
+    }
+
+    public long getBuyerId() {
+        return getLong(BUYER_ID);
+    }
+
+    public long getSellerId() {
+        return getLong(SELLER_ID);
+    }
+
+    public long getBuyerOrderId() {
+        return getLong(BUYER_ORDER_ID);
+    }
+
+    public long getSellerOrderId() {
+        return getLong(SELLER_ORDER_ID);
+    }
+
+    public long getTimestamp() {
+        return getLong(TIMESTAMP);
+    }
+
+    public long getTickerCode() {
+        return getTickerCode(TICKER);
+    }
+
+    // For logs and rejections only (allocates)
+    public String getTicker() {
+        return getTicker(TICKER);
+    }
+}
@@ -1,11 +1,15 @@
 package com.trading.engine.config;
 
+import com.trading.engine.kafka.OrderProducer;
+import com.trading.engine.ledger.AccountLedger;
 import com.trading.engine.model.Holding;
 import com.trading.engine.model.Order;
 import com.trading.engine.model.User;
 import com.trading.engine.repository.HoldingRepository;
-import com.trading.engine.repository.OrderRepository;
 import com.trading.engine.repository.UserRepository;
+import com.trading.engine.service.IdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,10 +19,14 @@ import java.math.BigDecimal;
 @Configuration
 public class DataLoader {
 
+    private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
     @Bean
     CommandLineRunner initDatabase(UserRepository userRepository, 
-                                   OrderRepository orderRepository,
-                                   HoldingRepository holdingRepository) {
+                                   OrderProducer orderProducer,
+                                   HoldingRepository holdingRepository,
+                                   IdGenerator idGenerator,
+                                   AccountLedger ledger) {
         return args -> {
             // 1. Create User 1 (YOU)
             if (!userRepository.existsById(1L)) {
@@ -37,14 +45,19 @@ public class DataLoader {
                 
                 // Give the Market Maker some AAPL shares to sell
                 Holding mmHolding = new Holding();
+                mmHolding.setId(idGenerator.nextId());
                 mmHolding.setUserId(2L);
                 mmHolding.setTicker("AAPL");
                 mmHolding.setQuantity(1000); // They own 1000 shares
                 mmHolding.setAveragePrice(new BigDecimal("100.00"));
                 holdingRepository.save(mmHolding);
 
+                // The ledger preloaded accounts before this user existed
+                ledger.warm(2L);
+
                 // 3. Place a SELL Order for User 2
-                // Sell 100 shares of AAPL at $150
+                // Sell 100 shares of AAPL at $150. It goes through the engine like any other order,
+                // so it is journaled and survives restarts (the engine never reads the orders table).
                 Order sellOrder = new Order();
                 sellOrder.setUserId(2L);
                 sellOrder.setTicker("AAPL");
@@ -52,9 +65,9 @@ public class DataLoader {
                 sellOrder.setQuantity(100);
                 sellOrder.setType(Order.Type.SELL);
                 sellOrder.setStatus(Order.OrderStatus.PENDING);
-                orderRepository.save(sellOrder);
+                orderProducer.sendMessage(sellOrder);
 
-                System.out.println("✅ Market Maker created with 1000 AAPL shares and an active SELL order.");
+                log.info("✅ Market Maker created with 1000 AAPL shares and an active SELL order.");
             }
         };
     }
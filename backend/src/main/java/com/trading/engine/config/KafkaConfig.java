@@ -1,19 +1,96 @@
 package com.trading.engine.config;
 
+import com.trading.engine.codec.OrderMessage;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.kafka.autoconfigure.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Properties;
 
 @Configuration
 public class KafkaConfig {
 
+    public static final String ORDER_TOPIC = "stock-orders";
+
+    // The primary's journal records, for hot standbys; partition N carries the journal of stock-orders partition N
+    public static final String JOURNAL_TOPIC = "engine-journal";
+
+    // Execution reports for orders placed through a gateway; each gateway node reads partition node-id % partitions
+    public static final String REPORT_TOPIC = "engine-reports";
+
+    // Orders are keyed by ticker, so this is also the upper bound on parallel matching
+    @Value("${engine.orders.partitions:8}")
+    private int partitions;
+
+    // Consumer threads per instance; each polls the partitions it owns and hands them to the matching loops
+    @Value("${engine.matching.shards:4}")
+    private int shards;
+
+    // Partitions of the execution report topic; a gateway node reads only its own
+    @Value("${engine.reports.partitions:8}")
+    private int reportPartitions;
+
+    // Records matched per poll, and how long the broker may hold a fetch to fill a batch
+    @Value("${engine.orders.batch-size:500}")
+    private int batchSize;
+
+    @Value("${engine.orders.batch-max-wait-ms:5}")
+    private int batchMaxWaitMs;
+
     @Bean
     public NewTopic orderTopic() {
-        // Creates a topic named "stock-orders" with 1 partition
-        return TopicBuilder.name("stock-orders")
-                .partitions(1)
+        return TopicBuilder.name(ORDER_TOPIC)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public NewTopic journalTopic() {
+        return TopicBuilder.name(JOURNAL_TOPIC)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic reportTopic() {
+        return TopicBuilder.name(REPORT_TOPIC)
+                .partitions(reportPartitions)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> orderListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        // One single-threaded consumer per shard; Kafka never splits a partition across consumers
+        factory.setConcurrency(Math.min(shards, partitions));
+
+        // Batch mode: a whole poll is matched in sequence and its offsets are committed once.
+        // The broker answers as soon as a full batch is available, or after the max wait with whatever it has,
+        // so batches grow with load while an idle engine still sees each order within a few ms.
+        factory.setBatchListener(true);
+        ContainerProperties container = factory.getContainerProperties();
+        container.setAckMode(ContainerProperties.AckMode.BATCH);
+        // Platform threads, whatever spring.threads.virtual.enabled says: a consumer hands its batch to the
+        // matching loops and waits for them, and must never queue for a carrier behind request handling
+        container.setListenerTaskExecutor(null);
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchSize));
+        overrides.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(batchSize * new OrderMessage().length()));
+        overrides.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(batchMaxWaitMs));
+        container.setKafkaConsumerProperties(overrides);
+        return factory;
+    }
+}
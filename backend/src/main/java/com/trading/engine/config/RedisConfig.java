@@ -0,0 +1,26 @@
+package com.trading.engine.config;
+
+import com.trading.engine.service.RedisService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class RedisConfig {
+
+    // Keeps every node's last-price near-cache in step with prices written by other nodes
+    @Bean
+    public RedisMessageListenerContainer priceUpdateListener(RedisConnectionFactory connectionFactory,
+                                                             RedisService redisService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> redisService.onRemoteUpdate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RedisService.PRICE_CHANNEL));
+        return container;
+    }
+}
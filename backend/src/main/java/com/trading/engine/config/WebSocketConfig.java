@@ -1,27 +1,59 @@
 package com.trading.engine.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Threads that write frames to client sessions (the simple broker fans out on these)
+    @Value("${engine.websocket.outbound-threads:8}")
+    private int outboundThreads;
+
+    @Value("${engine.websocket.outbound-queue:10000}")
+    private int outboundQueue;
+
+    // A slow client gets this long / this much buffered data before its session is closed
+    @Value("${engine.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${engine.websocket.send-buffer-kb:512}")
+    private int sendBufferKb;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Topic prefix: The frontend will subscribe to "/topic/trades"
+        // Topic prefix: /topic/trades, /topic/trades/{ticker}, /topic/book/{ticker}, /topic/quote/{ticker},
+        // and per user /topic/orders/{userId}, /topic/portfolio/{userId}
         config.enableSimpleBroker("/topic");
         // Application prefix: Messages sent from client with "/app" go to controllers
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundThreads)
+                .maxPoolSize(outboundThreads)
+                .queueCapacity(outboundQueue);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferKb * 1024);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // The endpoint the frontend connects to.
         // setAllowedOriginPatterns("*") fixes CORS issues for local development
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.trading.engine.controller;
+
+import com.trading.engine.marketdata.CandleAggregator;
+import com.trading.engine.marketdata.CandleInterval;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/candles")
+@CrossOrigin(origins = "*")
+public class CandleController {
+
+    @Autowired
+    private CandleAggregator candleAggregator;
+
+    // Chart history from the in-memory bars (never scans trades).
+    // Live updates for the forming bar arrive on /topic/candles/{ticker}/{interval}.
+    @GetMapping("/{ticker}")
+    public List<CandleAggregator.Bar> getCandles(@PathVariable String ticker,
+                                                 @RequestParam(defaultValue = "1m") String interval,
+                                                 @RequestParam(defaultValue = "200") int limit) {
+        return candleAggregator.history(ticker, CandleInterval.fromLabel(interval), Math.max(1, Math.min(limit, 5000)));
+    }
+}
@@ -34,20 +34,19 @@ public class PortfolioController {
 
         List<Holding> dbHoldings = holdingRepository.findByUserId(userId);
 
+        // 1. Real-time prices for every holding at once (near-cache, then one Redis MGET for misses)
+        Map<String, BigDecimal> prices = redisService.getPrices(
+                dbHoldings.stream().map(Holding::getTicker).toList());
+
         List<Map<String, Object>> formattedHoldings = dbHoldings.stream().map(h -> {
-            // 1. Try to get real-time price from Redis
-            BigDecimal currentPrice = redisService.getPrice(h.getTicker());
-            
-            // 2. If Redis is empty (no trades yet), fallback to avg price
-            if (currentPrice == null) {
-                currentPrice = h.getAveragePrice();
-            }
+            // 2. If there's no price yet (no trades), fallback to avg price
+            BigDecimal currentPrice = prices.getOrDefault(h.getTicker(), h.getAveragePrice());
 
             return Map.<String, Object>of(
                 "ticker", h.getTicker(),
                 "quantity", h.getQuantity(),
                 "avgPrice", h.getAveragePrice(),
-                "currentPrice", currentPrice // <--- Now using REAL Redis data!
+                "currentPrice", currentPrice
             );
         }).collect(Collectors.toList());
 
@@ -0,0 +1,40 @@
+package com.trading.engine.controller;
+
+import com.trading.engine.replica.EngineRole;
+import com.trading.engine.replica.StandbyReplica;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/replica")
+@CrossOrigin(origins = "*")
+public class ReplicaController {
+
+    @Autowired
+    private EngineRole role;
+
+    @Autowired
+    private StandbyReplica replica;
+
+    @GetMapping
+    public Map<String, Object> getStatus() {
+        return Map.of(
+            "role", role.isPrimary() ? "primary" : "standby",
+            "following", replica.isFollowing(),
+            "divergedPartitions", replica.getDiverged(),
+            "checksumsVerified", replica.getChecksumsVerified()
+        );
+    }
+
+    // Failover: the standby takes over from a primary that is gone (make sure it is)
+    @PostMapping("/promote")
+    public Map<Integer, Long> promote() {
+        try {
+            return replica.promote();
+        } catch (IllegalStateException e) {
+            throw new RuntimeException("Cannot promote: " + e.getMessage());
+        }
+    }
+}
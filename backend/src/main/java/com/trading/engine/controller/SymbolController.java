@@ -0,0 +1,48 @@
+package com.trading.engine.controller;
+
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import com.trading.engine.symbol.SymbolStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/symbols")
+@CrossOrigin(origins = "*")
+public class SymbolController {
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    // Reference data of every symbol this node knows
+    @GetMapping
+    public List<Map<String, Object>> getSymbols() {
+        return symbolRegistry.specs().stream().map(this::toView).toList();
+    }
+
+    // Add a symbol on this node, with the default tick and lot size. Orders in it are only accepted once every
+    // node has it. Not persisted: list it in engine.symbols for that
+    @PostMapping("/{ticker}")
+    public Map<String, Object> register(@PathVariable String ticker) {
+        return toView(symbolRegistry.spec(symbolRegistry.register(ticker)));
+    }
+
+    // Halt or resume a symbol on this node. Not persisted: use the status field of engine.symbols for that
+    @PutMapping("/{ticker}/status")
+    public Map<String, Object> setStatus(@PathVariable String ticker, @RequestParam SymbolStatus status) {
+        symbolRegistry.setStatus(ticker, status);
+        return toView(symbolRegistry.spec(ticker));
+    }
+
+    private Map<String, Object> toView(SymbolSpec spec) {
+        return Map.of(
+            "ticker", spec.ticker(),
+            "tickSize", spec.tickSize(),
+            "lotSize", spec.lotSize(),
+            "status", symbolRegistry.status(spec.id())
+        );
+    }
+}
@@ -1,64 +1,216 @@
 package com.trading.engine.controller;
 
+import com.trading.engine.gateway.OrderGateway;
+import com.trading.engine.history.HistoryPage;
+import com.trading.engine.history.HistoryService;
+import com.trading.engine.history.OrderView;
+import com.trading.engine.history.TradeView;
 import com.trading.engine.model.Order;
-import com.trading.engine.model.Trade;
 import com.trading.engine.repository.OrderRepository;
-import com.trading.engine.repository.TradeRepository;
 import com.trading.engine.kafka.OrderProducer;
+import com.trading.engine.ledger.AccountLedger;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.metrics.LatencyClock;
+import com.trading.engine.metrics.Stage;
+import com.trading.engine.persistence.WriteBehindPersister;
+import com.trading.engine.report.ExecutionReport;
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import com.trading.engine.symbol.SymbolStatus;
+import com.trading.engine.throttle.IngressThrottle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @CrossOrigin(origins = "*") 
 public class TradeController {
 
+    private static final Logger log = LoggerFactory.getLogger(TradeController.class);
+
+    private static final int MAX_CLIENT_ORDER_ID_LENGTH = 64;
+
     @Autowired
     private OrderProducer orderProducer;
 
+    @Autowired
+    private OrderGateway gateway;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private TradeRepository tradeRepository;
+    private HistoryService historyService;
 
+    @Autowired
+    private IngressThrottle throttle;
+
+    @Autowired
+    private EngineMetrics metrics;
+
+    @Autowired
+    private WriteBehindPersister persister;
+
+    @Autowired
+    private AccountLedger ledger;
+
+    @Value("${engine.gateway.report-timeout-ms:5000}")
+    private long reportTimeoutMs;
+
+    /**
+     * Answers with the engine's execution report (accepted and resting, filled, cancelled or rejected).
+     * Served on a virtual thread that is released while the order is in flight; the response is written
+     * when the report arrives. Send a clientOrderId to make retries safe.
+     */
     @PostMapping("/trade")
-    public String placeOrder(@RequestBody Order order) {
-        if (order.getUserId() == null) {
-            order.setUserId(1L); // Default to User 1
+    public CompletableFuture<ExecutionReport> placeOrder(@RequestBody Order order) {
+        order.setIngressNanos(LatencyClock.now());
+        // No price makes it a market order; no time in force makes it GTC (IOC for a market order)
+        if (order.getUserId() == null || order.getTicker() == null || order.getType() == null
+                || order.getQuantity() == null) {
+            throw new RuntimeException("userId, ticker, type and quantity are required");
+        }
+        if (order.getTimeInForce() == null) order.setTimeInForce(Order.TimeInForce.GTC);
+        if (order.getClientOrderId() != null && order.getClientOrderId().length() > MAX_CLIENT_ORDER_ID_LENGTH) {
+            throw new RuntimeException("clientOrderId must be at most " + MAX_CLIENT_ORDER_ID_LENGTH + " characters");
         }
-        System.out.println("✅ Received Order: " + order.getType() + " " + order.getTicker());
-        orderProducer.sendMessage(order);
-        return "Order sent to engine!";
+
+        validate(order.getTicker(), order.getPrice(), order.getQuantity());
+        throttle(order.getUserId(), order.getTicker());
+        // New orders wait while the database writes are far behind; cancels and replaces still go through
+        if (persister.isBacklogged()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Engine is catching up on persistence, retry shortly");
+        }
+        // The account is loaded here, off the matching thread, which only ever looks it up
+        if (ledger.warm(order.getUserId()) == null) {
+            throw new RuntimeException("Unknown user " + order.getUserId());
+        }
+
+        log.debug("✅ Received Order: {} {}", order.getType(), order.getTicker());
+        CompletableFuture<ExecutionReport> report = gateway.submit(order);
+        metrics.record(Stage.GATEWAY, order.getIngressNanos());
+        return report.orTimeout(reportTimeoutMs, TimeUnit.MILLISECONDS).exceptionally(this::noReport);
+    }
+
+    // The engine may still act on an order that timed out: retrying with its clientOrderId returns the report
+    private ExecutionReport noReport(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "No execution report within " + reportTimeoutMs + " ms");
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Order could not be sent to the engine: " + cause.getMessage());
     }
 
     // --- NEW ENDPOINTS ---
 
-    // 1. Get Pending Orders (Active in Order Book)
+    // 1. Get Pending Orders (Active in Order Book), newest first; pass nextCursor back for the next page
     @GetMapping("/api/orders/pending/{userId}")
-    public List<Order> getPendingOrders(@PathVariable Long userId) {
-        // In a real app, you might filter by status. 
-        // Here, any order in the 'orders' table is technically pending/partially filled.
-       return orderRepository.findByUserIdAndQuantityGreaterThan(userId, 0);
+    public HistoryPage<OrderView> getPendingOrders(@PathVariable Long userId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int limit) {
+        return historyService.openOrders(userId, cursor, limit);
     }
 
-    // 2. Get Order History (Executed Trades)
+    // 2. Get Order History (Executed Trades where user was Buyer OR Seller), newest first
     @GetMapping("/api/orders/history/{userId}")
-    public List<Trade> getTradeHistory(@PathVariable Long userId) {
-        // Find trades where user was Buyer OR Seller
-        return tradeRepository.findByBuyerIdOrSellerId(userId, userId);
+    public HistoryPage<TradeView> getTradeHistory(@PathVariable Long userId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int limit) {
+        return historyService.trades(userId, cursor, limit);
     }
 
-    // 3. Cancel Order
+    // 3. Get Closed Orders (Filled or Cancelled, including archived ones), newest first
+    @GetMapping("/api/orders/closed/{userId}")
+    public HistoryPage<OrderView> getClosedOrders(@PathVariable Long userId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int limit) {
+        return historyService.closedOrders(userId, cursor, limit);
+    }
+
+    // 4. Cancel Order (the engine acks or rejects it on /topic/orders/{userId})
     @DeleteMapping("/api/orders/{orderId}")
-    @Transactional
-    public String cancelOrder(@PathVariable Long orderId) {
-        if (orderRepository.existsById(orderId)) {
-            orderRepository.deleteById(orderId);
-            return "Order Cancelled";
+    public String cancelOrder(@PathVariable Long orderId,
+                              @RequestParam(required = false) String ticker,
+                              @RequestParam(required = false) Long userId) {
+        long ingress = LatencyClock.now();
+        Order target = resolve(orderId, ticker, userId);
+        throttle(target.getUserId(), target.getTicker());
+
+        // Sequenced with the orders for the same ticker, so it can't race a match
+        orderProducer.sendCancel(orderId, target.getUserId(), target.getTicker(), ingress);
+        return "Cancel sent to engine!";
+    }
+
+    // 5. Cancel-Replace: new price and/or open quantity for a resting order
+    @PutMapping("/api/orders/{orderId}")
+    public String replaceOrder(@PathVariable Long orderId, @RequestBody Order changes) {
+        long ingress = LatencyClock.now();
+        if (changes.getPrice() == null || changes.getQuantity() == null) {
+            throw new RuntimeException("price and quantity are required");
+        }
+        Order target = resolve(orderId, changes.getTicker(), changes.getUserId());
+        validate(target.getTicker(), changes.getPrice(), changes.getQuantity());
+        throttle(target.getUserId(), target.getTicker());
+
+        orderProducer.sendReplace(orderId, target.getUserId(), target.getTicker(), changes.getPrice(), changes.getQuantity(), ingress);
+        return "Replace sent to engine!";
+    }
+
+    // Ticker and owner of an order: from the caller if given, otherwise from the orders table
+    private Order resolve(Long orderId, String ticker, Long userId) {
+        if (ticker != null && userId != null) {
+            Order order = new Order();
+            order.setTicker(ticker);
+            order.setUserId(userId);
+            return order;
+        }
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
+    // Over its user's or ticker's rate: refused with 429 before it costs a Kafka send. A ticker this node
+    // doesn't know is refused too (a cancel names its ticker unchecked)
+    private void throttle(long userId, String ticker) {
+        if (!throttle.allowUser(userId)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests from user " + userId);
+        }
+        int symbolId = symbolRegistry.find(ticker);
+        if (symbolId < 0) throw new RuntimeException("Unknown symbol " + ticker);
+        if (!throttle.allowSymbol(symbolId)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests for " + ticker);
+        }
+    }
+
+    // Reject unknown tickers, halted symbols, off-grid prices and odd lots here, before they cost a Kafka round
+    // trip. Only looks the ticker up: a symbol is added by configuration or an admin, never by an order.
+    // A null price (market order) has nothing to check
+    private void validate(String ticker, BigDecimal price, Integer quantity) {
+        int symbolId = symbolRegistry.find(ticker);
+        if (symbolId < 0) throw new RuntimeException("Unknown symbol " + ticker);
+        SymbolSpec spec = symbolRegistry.spec(symbolId);
+        if (symbolRegistry.status(spec.id()) != SymbolStatus.TRADING) {
+            throw new RuntimeException(ticker + " is not trading");
+        }
+        try {
+            if (price != null && spec.toTicks(price) <= 0) throw new ArithmeticException();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Price must be a positive multiple of " + spec.tickSize());
+        }
+        if (!spec.isValidQuantity(quantity)) {
+            throw new RuntimeException("Quantity must be a positive multiple of " + spec.lotSize());
         }
-        throw new RuntimeException("Order not found");
     }
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.trading.engine.gateway;
+
+import com.trading.engine.codec.ReportMessage;
+import com.trading.engine.config.KafkaConfig;
+import com.trading.engine.kafka.OrderProducer;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.metrics.Stage;
+import com.trading.engine.model.Order;
+import com.trading.engine.report.ExecutionReport;
+import com.trading.engine.service.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places orders on behalf of REST clients and completes each with the engine's execution report.
+ *
+ * Every order gets a request id (an {@link IdGenerator} id, so it names this node) carried to the engine
+ * in a record header. The engine sends its report to "engine-reports", on partition node-id % partitions;
+ * a single thread here reads that partition and completes the waiting future from the correlation map.
+ * Nothing blocks while the order is in flight, so a caller only holds a (virtual) thread for as long as
+ * it chooses to wait.
+ *
+ * A client order id makes a retry idempotent: the same user and client order id within the dedup window
+ * is answered from the first request (in flight or done) instead of being sent again. Dedup is per
+ * gateway node.
+ */
+@Service
+public class OrderGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderGateway.class);
+
+    private static final long SWEEP_INTERVAL_SECONDS = 10;
+    private static final long RECONNECT_BACKOFF_MS = 1_000;
+
+    @Autowired
+    private OrderProducer orderProducer;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private EngineMetrics metrics;
+
+    @Autowired
+    private ConsumerFactory<Object, Object> consumerFactory;
+
+    @Value("${engine.node-id:0}")
+    private int nodeId;
+
+    @Value("${engine.reports.partitions:8}")
+    private int reportPartitions;
+
+    @Value("${engine.gateway.dedup-window-ms:60000}")
+    private long dedupWindowMs;
+
+    // Requests waiting for their report, by request id
+    private final Map<Long, Request> inFlight = new ConcurrentHashMap<>();
+    // Recent requests that carried a client order id, by "userId:clientOrderId"
+    private final Map<String, Request> byClientOrderId = new ConcurrentHashMap<>();
+
+    private Thread listener;
+    private volatile Consumer<Object, Object> consumer;
+    private volatile boolean running;
+    private ScheduledExecutorService sweeper;
+
+    private static final class Request {
+        final long id;
+        final String clientOrderId;
+        final long ingressNanos;
+        final long createdMillis = System.currentTimeMillis();
+        final CompletableFuture<ExecutionReport> report = new CompletableFuture<>();
+
+        Request(long id, String clientOrderId, long ingressNanos) {
+            this.id = id;
+            this.clientOrderId = clientOrderId;
+            this.ingressNanos = ingressNanos;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "execution-reports");
+        listener.setDaemon(true);
+        listener.start();
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gateway-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        sweeper.shutdownNow();
+        running = false;
+        Consumer<Object, Object> c = consumer;
+        if (c != null) c.wakeup();
+        listener.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Sends a validated order to the engine. The future (the caller's own copy, so timing it out affects no
+     * one else) completes with its execution report; nothing here times it out, the caller decides how long to wait.
+     */
+    public CompletableFuture<ExecutionReport> submit(Order order) {
+        String key = order.getClientOrderId() == null ? null : order.getUserId() + ":" + order.getClientOrderId();
+        if (key != null) {
+            Request earlier = byClientOrderId.get(key);
+            if (earlier != null) return earlier.report.copy();
+        }
+
+        Request request = new Request(idGenerator.nextId(), order.getClientOrderId(), order.getIngressNanos());
+        if (key != null) {
+            Request earlier = byClientOrderId.putIfAbsent(key, request);
+            if (earlier != null) return earlier.report.copy();
+        }
+        inFlight.put(request.id, request);
+
+        // A send that never reached the broker may be retried with the same client order id
+        orderProducer.sendMessage(order, request.id).whenComplete((result, e) -> {
+            if (e == null) return;
+            inFlight.remove(request.id);
+            if (key != null) byClientOrderId.remove(key, request);
+            request.report.completeExceptionally(e);
+        });
+        return request.report.copy();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    // --- Report listener ---
+
+    // Reports are handled one by one, so a bad one costs only its own request. A consumer whose poll fails is
+    // closed and a new one picks up at the next report, after a pause so a broker outage doesn't spin
+    private void listen() {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        TopicPartition partition = new TopicPartition(KafkaConfig.REPORT_TOPIC, nodeId % reportPartitions);
+        long next = -1;
+
+        while (running) {
+            try (Consumer<Object, Object> c = consumerFactory.createConsumer("gateway-" + nodeId, null, null, overrides)) {
+                consumer = c;
+                // At first only reports for requests sent from now on matter. The seek is resolved by the first
+                // poll, which also waits out the topic not existing yet
+                c.assign(List.of(partition));
+                if (next < 0) c.seekToEnd(List.of(partition)); else c.seek(partition, next);
+                while (running) {
+                    for (ConsumerRecord<Object, Object> record : c.poll(Duration.ofMillis(100))) {
+                        next = record.offset() + 1;
+                        try {
+                            if (record.value() instanceof ReportMessage report) complete(report);
+                        } catch (RuntimeException e) {
+                            log.error("❌ Gateway: could not apply the execution report at offset {}", record.offset(), e);
+                        }
+                    }
+                }
+            } catch (WakeupException e) {
+                // stop()
+            } catch (RuntimeException e) {
+                log.error("❌ Gateway: execution report consumer failed, reopening it", e);
+                if (!pause()) return;
+            } finally {
+                consumer = null;
+            }
+        }
+    }
+
+    // False if interrupted (stopping)
+    private boolean pause() {
+        try {
+            Thread.sleep(RECONNECT_BACKOFF_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Another node's request (sharing the partition) or one already swept is not in the map
+    private void complete(ReportMessage message) {
+        Request request = inFlight.remove(message.getRequestId());
+        if (request == null) return;
+        if (message.getStatus() == null) {
+            log.warn("⚠️ Gateway: unreadable execution report for request {}", request.id);
+            request.report.completeExceptionally(new IllegalStateException("Unreadable execution report"));
+            return;
+        }
+        request.report.complete(message.toReport(request.clientOrderId));
+        if (request.ingressNanos > 0) metrics.record(Stage.ROUND_TRIP, request.ingressNanos);
+    }
+
+    // Forgets client order ids past the dedup window, and requests whose report never came (dropped or lost)
+    private void sweep() {
+        long cutoff = System.currentTimeMillis() - dedupWindowMs;
+        byClientOrderId.values().removeIf(r -> r.createdMillis < cutoff);
+        inFlight.values().removeIf(r -> r.createdMillis < cutoff);
+    }
+}
@@ -0,0 +1,43 @@
+package com.trading.engine.history;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of a history, newest first. nextCursor is set whenever the page is full;
+ * passing it back returns the rows strictly older than the last one on this page.
+ */
+public record HistoryPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Keyset position (timestamp, id). Rows are ordered by both, so ties on timestamp
+     * are broken by id and no row is skipped or repeated between pages.
+     */
+    public record Cursor(LocalDateTime timestamp, long id) {
+
+        // Sorts after every real row, so the first page needs no separate query
+        public static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+        private static final char SEPARATOR = '~';
+
+        public static Cursor parse(String token) {
+            if (token == null || token.isEmpty()) return START;
+            int split = token.lastIndexOf(SEPARATOR);
+            try {
+                return new Cursor(LocalDateTime.parse(token.substring(0, split)), Long.parseLong(token.substring(split + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor: " + token);
+            }
+        }
+
+        public boolean isAfter(LocalDateTime otherTimestamp, long otherId) {
+            int c = timestamp.compareTo(otherTimestamp);
+            return c > 0 || (c == 0 && id > otherId);
+        }
+
+        @Override
+        public String toString() {
+            return timestamp.toString() + SEPARATOR + id;
+        }
+    }
+}
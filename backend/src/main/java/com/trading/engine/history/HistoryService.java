@@ -0,0 +1,110 @@
+package com.trading.engine.history;
+
+import com.trading.engine.model.Order;
+import com.trading.engine.repository.OrderRepository;
+import com.trading.engine.repository.TradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keyset-paginated trade and order history.
+ *
+ * Every page is one index range scan of at most limit rows, however long the history is;
+ * OFFSET would scan and discard every earlier row. Trade pages also merge in {@link RecentTrades},
+ * for trades the write-behind stage hasn't flushed yet.
+ */
+@Service
+public class HistoryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Each branch is a range scan of its own (user_id, timestamp, id) index; the archive is only
+    // scanned in the partitions the cursor can still reach. A row is in exactly one of the two tables.
+    private static final String CLOSED_ORDERS =
+            "(SELECT id, ticker, type, price, quantity, status, timestamp FROM orders " +
+            "WHERE user_id = ? AND status IN ('FILLED', 'CANCELLED') AND (timestamp < ? OR (timestamp = ? AND id < ?)) " +
+            "ORDER BY timestamp DESC, id DESC LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT id, ticker, type, price, quantity, status, timestamp FROM orders_archive " +
+            "WHERE user_id = ? AND (timestamp < ? OR (timestamp = ? AND id < ?)) " +
+            "ORDER BY timestamp DESC, id DESC LIMIT ?) " +
+            "ORDER BY timestamp DESC, id DESC LIMIT ?";
+
+    private static final RowMapper<OrderView> ORDER_VIEW = (rs, n) -> new OrderView(
+            rs.getLong("id"), rs.getString("ticker"), Order.Type.valueOf(rs.getString("type")),
+            rs.getBigDecimal("price"), rs.getInt("quantity"), Order.OrderStatus.valueOf(rs.getString("status")),
+            rs.getObject("timestamp", LocalDateTime.class));
+
+    private static final Function<TradeView, HistoryPage.Cursor> TRADE_CURSOR = t -> new HistoryPage.Cursor(t.timestamp(), t.id());
+    private static final Function<OrderView, HistoryPage.Cursor> ORDER_CURSOR = o -> new HistoryPage.Cursor(o.timestamp(), o.id());
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private RecentTrades recentTrades;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public HistoryPage<TradeView> trades(long userId, String cursorToken, int limit) {
+        int size = pageSize(limit);
+        HistoryPage.Cursor cursor = HistoryPage.Cursor.parse(cursorToken);
+
+        // 1. The next page of each side, each from its own index. Always queried: the cache only holds
+        // this instance's trades, so a page served from it alone could skip newer trades matched elsewhere
+        PageRequest first = PageRequest.of(0, size);
+        Map<Long, TradeView> merged = new LinkedHashMap<>();
+        for (TradeView t : tradeRepository.findBuysBefore(userId, cursor.timestamp(), cursor.id(), first)) merged.put(t.id(), t);
+        for (TradeView t : tradeRepository.findSellsBefore(userId, cursor.timestamp(), cursor.id(), first)) merged.put(t.id(), t);
+
+        // 2. Plus trades still waiting for the write-behind flush (a self-trade is on both sides: one row)
+        for (TradeView t : recentTrades.before(userId, cursor)) merged.putIfAbsent(t.id(), t);
+
+        List<TradeView> items = new ArrayList<>(merged.values());
+        items.sort(RecentTrades.NEWEST_FIRST);
+        return page(items.subList(0, Math.min(size, items.size())), size, TRADE_CURSOR);
+    }
+
+    public HistoryPage<OrderView> openOrders(long userId, String cursorToken, int limit) {
+        int size = pageSize(limit);
+        HistoryPage.Cursor cursor = HistoryPage.Cursor.parse(cursorToken);
+        return page(orderRepository.findByStatusBefore(userId, Order.OrderStatus.PENDING, cursor.timestamp(), cursor.id(),
+                PageRequest.of(0, size)), size, ORDER_CURSOR);
+    }
+
+    /**
+     * Filled and cancelled orders, whether still in the live table or already archived.
+     */
+    public HistoryPage<OrderView> closedOrders(long userId, String cursorToken, int limit) {
+        int size = pageSize(limit);
+        HistoryPage.Cursor cursor = HistoryPage.Cursor.parse(cursorToken);
+        return page(jdbcTemplate.query(CLOSED_ORDERS, ORDER_VIEW,
+                userId, cursor.timestamp(), cursor.timestamp(), cursor.id(), size,
+                userId, cursor.timestamp(), cursor.timestamp(), cursor.id(), size,
+                size), size, ORDER_CURSOR);
+    }
+
+    private static int pageSize(int limit) {
+        if (limit <= 0) throw new RuntimeException("limit must be positive");
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static <T> HistoryPage<T> page(List<T> items, int size, Function<T, HistoryPage.Cursor> cursorOf) {
+        if (items.size() < size) return new HistoryPage<>(List.copyOf(items), null);
+        return new HistoryPage<>(List.copyOf(items), cursorOf.apply(items.get(items.size() - 1)).toString());
+    }
+}
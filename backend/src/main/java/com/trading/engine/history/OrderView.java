@@ -0,0 +1,13 @@
+package com.trading.engine.history;
+
+import com.trading.engine.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a user's open orders, read without loading Order entities.
+ */
+public record OrderView(Long id, String ticker, Order.Type type, BigDecimal price, Integer quantity,
+                        Order.OrderStatus status, LocalDateTime timestamp) {
+}
@@ -0,0 +1,69 @@
+package com.trading.engine.history;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last few trades per user, filled from the engine's trade stream (MarketDataPublisher)
+ * rather than from the database.
+ *
+ * It covers trades the write-behind stage hasn't flushed yet. It only sees trades matched by this
+ * instance, and instances share the order partitions, so it is never a complete history on its own:
+ * history pages always come from the database with these merged in.
+ */
+@Service
+public class RecentTrades {
+
+    static final Comparator<TradeView> NEWEST_FIRST =
+            Comparator.comparing(TradeView::timestamp).thenComparing(TradeView::id).reversed();
+
+    @Value("${engine.history.recent-trades:50}")
+    private int capacity;
+
+    private final Map<Long, Deque<TradeView>> byUser = new ConcurrentHashMap<>();
+
+    // Called from the market-data thread
+    public void onTrade(TradeView trade) {
+        if (capacity <= 0) return;
+        append(trade.buyerId(), trade);
+        if (!trade.sellerId().equals(trade.buyerId())) {
+            append(trade.sellerId(), trade);
+        }
+    }
+
+    private void append(Long userId, TradeView trade) {
+        Deque<TradeView> trades = byUser.computeIfAbsent(userId, id -> new ArrayDeque<>(capacity));
+        synchronized (trades) {
+            if (trades.size() == capacity) trades.removeFirst();
+            trades.addLast(trade);
+        }
+    }
+
+    /**
+     * The user's cached trades strictly older than the cursor, newest first. Only the ones this instance
+     * matched: a user's trades on other instances' partitions are missing, even between cached ones.
+     */
+    public List<TradeView> before(long userId, HistoryPage.Cursor cursor) {
+        Deque<TradeView> trades = byUser.get(userId);
+        if (trades == null) return List.of();
+
+        List<TradeView> result;
+        synchronized (trades) {
+            result = new ArrayList<>(trades.size());
+            for (TradeView t : trades) {
+                if (cursor.isAfter(t.timestamp(), t.id())) result.add(t);
+            }
+        }
+        // Shards hand over their prints independently, so arrival order is only roughly time order
+        result.sort(NEWEST_FIRST);
+        return result;
+    }
+}
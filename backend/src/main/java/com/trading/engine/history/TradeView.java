@@ -0,0 +1,12 @@
+package com.trading.engine.history;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a user's trade history. Read straight into this shape (JPQL constructor
+ * expression), so history pages never load or dirty-check Trade entities.
+ */
+public record TradeView(Long id, String ticker, BigDecimal price, Integer quantity,
+                        Long buyerId, Long sellerId, LocalDateTime timestamp) {
+}
@@ -0,0 +1,419 @@
+package com.trading.engine.journal;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.Execution;
+import com.trading.engine.ledger.Settlement;
+import com.trading.engine.model.Order;
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.TickerCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, sequenced journal of one matching shard's input (orders, cancels, amends) and output
+ * (trades, and the account state each settled).
+ *
+ * Records are written straight into memory-mapped segment files named after their first sequence
+ * number, so they survive a process crash as soon as the put returns; segments are forced to disk
+ * when they roll and on close. Layout of a record:
+ *
+ *   [int bodyLength][byte type][long sequence][long sourceOffset][payload...]
+ *
+ * The length is written last, so a torn record reads as length 0 and marks the end of the log.
+ * Prices are stored in ticks and quantities as longs, exactly as the engine holds them; an order's side
+ * byte carries its time in force in the high bits (0, GTC, in journals that predate it). Tickers are
+ * stored as text (a length byte and ASCII), since symbol ids are local to a process; they are written
+ * from and read into {@link TickerCode}s, so neither direction builds a String.
+ *
+ * Single writer: only the thread that owns the shard may append. A standby's journal is written
+ * with {@link #append(ByteBuffer, Handler)}: the primary's records, byte for byte, under the same sequences.
+ */
+public class EventJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+
+    public static final byte ORDER = 1;
+    public static final byte CANCEL = 2;
+    public static final byte TRADE = 3;
+    public static final byte AMEND = 4;
+    public static final byte SETTLEMENT = 5;
+
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER = Byte.BYTES + Long.BYTES + Long.BYTES;
+
+    /**
+     * Receives journal records during replay, in sequence order.
+     */
+    public interface Handler {
+        void onOrder(long sequence, long sourceOffset, EngineOrder order);
+
+        void onCancel(long sequence, long sourceOffset, long orderId, int symbolId);
+
+        // An in-place quantity reduction that kept the order's time priority
+        void onAmend(long sequence, long sourceOffset, long orderId, int symbolId, long quantity);
+
+        // Trades are a by-product of matching, so replaying the inputs reproduces them
+        default void onTrade(long sequence, Execution execution) {
+        }
+
+        // What a trade left in one account (follows its trade). Replaying the inputs moves the same shares,
+        // but cash is shared with other shards, so recovery takes the balance from here
+        default void onSettlement(long sequence, Settlement settlement) {
+        }
+    }
+
+    /**
+     * Sees each record as it is committed, as raw bytes (length prefix included), e.g. to replicate it.
+     * Runs on the owning thread; the bytes are only valid during the call.
+     */
+    public interface Tap {
+        void onRecord(ByteBuffer buffer, int offset, int length);
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private final SymbolRegistry symbols;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextSequence = 1;
+    private long recordsSinceSnapshot;
+    private Tap tap;
+
+    private EventJournal(Path dir, int segmentSize, SymbolRegistry symbols) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Opens the journal in the given directory, positioned after the last complete record.
+     * Tickers are interned into {@code symbols} as records are read.
+     */
+    public static EventJournal open(Path dir, int segmentSize, SymbolRegistry symbols) {
+        EventJournal journal = new EventJournal(dir, segmentSize, symbols);
+        try {
+            Files.createDirectories(dir);
+            List<Path> segments = journal.segments();
+            if (segments.isEmpty()) {
+                journal.roll();
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                journal.map(last);
+                journal.nextSequence = firstSequence(last);
+                // Walk the active segment to find the write position and the next sequence number
+                journal.scan(journal.buffer, Long.MIN_VALUE, null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + dir, e);
+        }
+        return journal;
+    }
+
+    public long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    public long getRecordsSinceSnapshot() {
+        return recordsSinceSnapshot;
+    }
+
+    public void setTap(Tap tap) {
+        this.tap = tap;
+    }
+
+    // --- APPEND (owner thread only) ---
+
+    public long appendOrder(long sourceOffset, EngineOrder order) {
+        long ticker = symbols.spec(order.getSymbolId()).code();
+        int length = HEADER + Long.BYTES * 2 + Byte.BYTES + tickerSize(ticker) + Long.BYTES * 3;
+        ByteBuffer b = begin(length, ORDER, sourceOffset);
+        b.putLong(order.getId());
+        b.putLong(order.getUserId());
+        b.put((byte) (order.getType().ordinal() | order.getTimeInForce().ordinal() << 4));
+        putTicker(b, ticker);
+        b.putLong(order.getPrice());
+        b.putLong(order.getQuantity());
+        b.putLong(order.getTimestamp());
+        return commit(length);
+    }
+
+    public long appendCancel(long sourceOffset, long orderId, int symbolId) {
+        long ticker = symbols.spec(symbolId).code();
+        int length = HEADER + Long.BYTES + tickerSize(ticker);
+        ByteBuffer b = begin(length, CANCEL, sourceOffset);
+        b.putLong(orderId);
+        putTicker(b, ticker);
+        return commit(length);
+    }
+
+    public long appendAmend(long sourceOffset, long orderId, int symbolId, long quantity) {
+        long ticker = symbols.spec(symbolId).code();
+        int length = HEADER + Long.BYTES + tickerSize(ticker) + Long.BYTES;
+        ByteBuffer b = begin(length, AMEND, sourceOffset);
+        b.putLong(orderId);
+        putTicker(b, ticker);
+        b.putLong(quantity);
+        return commit(length);
+    }
+
+    public long appendTrade(Execution e) {
+        long ticker = symbols.spec(e.symbolId()).code();
+        int length = HEADER + tickerSize(ticker) + Long.BYTES * 9;
+        ByteBuffer b = begin(length, TRADE, -1);
+        b.putLong(e.tradeId());
+        putTicker(b, ticker);
+        b.putLong(e.price());
+        b.putLong(e.quantity());
+        b.putLong(e.notional());
+        b.putLong(e.buyerId());
+        b.putLong(e.sellerId());
+        b.putLong(e.buyerOrderId());
+        b.putLong(e.sellerOrderId());
+        b.putLong(e.timestamp());
+        return commit(length);
+    }
+
+    public long appendSettlement(long userId, long cash, long cashVersion, int symbolId, long holdingId, long quantity, long cost) {
+        long ticker = symbols.spec(symbolId).code();
+        int length = HEADER + Long.BYTES * 3 + tickerSize(ticker) + Long.BYTES * 3;
+        ByteBuffer b = begin(length, SETTLEMENT, -1);
+        b.putLong(userId);
+        b.putLong(cash);
+        b.putLong(cashVersion);
+        putTicker(b, ticker);
+        b.putLong(holdingId);
+        b.putLong(quantity);
+        b.putLong(cost);
+        return commit(length);
+    }
+
+    private ByteBuffer begin(int length, byte type, long sourceOffset) {
+        // Keep room for the zero length that terminates the segment
+        if (buffer.remaining() < Integer.BYTES + length + Integer.BYTES) {
+            try {
+                roll();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot roll journal segment in " + dir, e);
+            }
+        }
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.put(type);
+        buffer.putLong(nextSequence);
+        buffer.putLong(sourceOffset);
+        return buffer;
+    }
+
+    private long commit(int length) {
+        int start = buffer.position() - length - Integer.BYTES;
+        buffer.putInt(start, length);
+        recordsSinceSnapshot++;
+        if (tap != null) tap.onRecord(buffer, start, Integer.BYTES + length);
+        return nextSequence++;
+    }
+
+    // --- REPLICATION (standby) ---
+
+    /**
+     * Appends records copied verbatim from another journal and feeds each one to the handler, so both
+     * journals hold the same records under the same sequence numbers. Records at or below the last
+     * sequence are redeliveries and skipped; a missing sequence throws IllegalStateException.
+     */
+    public void append(ByteBuffer records, Handler handler) {
+        ByteBuffer b = records.duplicate();
+        while (b.remaining() >= Integer.BYTES) {
+            int start = b.position();
+            int length = b.getInt();
+            if (length < HEADER || length > b.remaining()) {
+                throw new IllegalArgumentException("Truncated replicated record at byte " + start);
+            }
+            int end = start + Integer.BYTES + length;
+            byte type = b.get();
+            long sequence = b.getLong();
+            long sourceOffset = b.getLong();
+
+            if (sequence < nextSequence) {
+                b.position(end);
+                continue;
+            }
+            if (sequence > nextSequence) {
+                throw new IllegalStateException("Journal gap in " + dir + ": expected sequence " + nextSequence + ", got " + sequence);
+            }
+
+            begin(length, type, sourceOffset).put(b.slice(b.position(), end - b.position()));
+            commit(length);
+            dispatch(b, type, sequence, sourceOffset, handler);
+            b.position(end);
+        }
+    }
+
+    // --- REPLAY ---
+
+    /**
+     * Feeds every record with a sequence greater than {@code afterSequence} to the handler.
+     */
+    public void replay(long afterSequence, Handler handler) {
+        try {
+            for (Path segment : segments()) {
+                try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    scan(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), afterSequence, handler);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay journal in " + dir, e);
+        }
+    }
+
+    // Reads records until the terminating zero length; leaves the buffer positioned there
+    private void scan(ByteBuffer b, long afterSequence, Handler handler) {
+        while (b.remaining() >= Integer.BYTES) {
+            int start = b.position();
+            int length = b.getInt();
+            if (length <= 0 || length > b.remaining()) {
+                b.position(start);
+                return;
+            }
+            byte type = b.get();
+            long sequence = b.getLong();
+            long sourceOffset = b.getLong();
+
+            if (handler != null && sequence > afterSequence) {
+                dispatch(b, type, sequence, sourceOffset, handler);
+            }
+            b.position(start + Integer.BYTES + length);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+        }
+    }
+
+    // Decodes one record's payload (the buffer is positioned just after its header)
+    private void dispatch(ByteBuffer b, byte type, long sequence, long sourceOffset, Handler handler) {
+        if (type == ORDER) {
+            EngineOrder order = new EngineOrder();
+            order.setId(b.getLong());
+            order.setUserId(b.getLong());
+            byte side = b.get();
+            order.setType(Order.Type.values()[side & 0x0F]);
+            order.setTimeInForce(Order.TimeInForce.values()[side >> 4]);
+            order.setSymbolId(getSymbol(b));
+            order.setPrice(b.getLong());
+            order.setQuantity(b.getLong());
+            order.setTimestamp(b.getLong());
+            handler.onOrder(sequence, sourceOffset, order);
+        } else if (type == CANCEL) {
+            long orderId = b.getLong();
+            handler.onCancel(sequence, sourceOffset, orderId, getSymbol(b));
+        } else if (type == AMEND) {
+            long orderId = b.getLong();
+            int symbolId = getSymbol(b);
+            handler.onAmend(sequence, sourceOffset, orderId, symbolId, b.getLong());
+        } else if (type == TRADE) {
+            long tradeId = b.getLong();
+            int symbolId = getSymbol(b);
+            handler.onTrade(sequence, new Execution(tradeId, symbolId, b.getLong(), b.getLong(), b.getLong(),
+                    b.getLong(), b.getLong(), b.getLong(), b.getLong(), b.getLong()));
+        } else if (type == SETTLEMENT) {
+            long userId = b.getLong();
+            long cash = b.getLong();
+            long cashVersion = b.getLong();
+            int symbolId = getSymbol(b);
+            handler.onSettlement(sequence, new Settlement(userId, cash, cashVersion, symbolId, b.getLong(), b.getLong(), b.getLong()));
+        }
+    }
+
+    // --- SEGMENTS ---
+
+    /**
+     * Called after a snapshot: deletes segments that only hold records at or before {@code sequence}, the
+     * snapshot recovery would now start from (which may be an older one than was just taken).
+     */
+    public void snapshotTaken(long sequence) {
+        recordsSinceSnapshot = 0;
+        try {
+            List<Path> segments = segments();
+            // A segment is obsolete if the next one starts at or before the snapshot point
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (firstSequence(segments.get(i + 1)) <= sequence + 1) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+        } catch (IOException e) {
+            // Old segments are only wasted space; the next snapshot will retry
+            log.warn("⚠️ Journal: could not delete old segments in {}", dir, e);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            channel.close();
+        }
+        map(dir.resolve(String.format("%020d%s", nextSequence, SUFFIX)));
+    }
+
+    private void map(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close journal in " + dir, e);
+        }
+    }
+
+    // --- FIELD CODECS ---
+
+    private static int tickerSize(long ticker) {
+        return Byte.BYTES + TickerCode.length(ticker);
+    }
+
+    private static void putTicker(ByteBuffer b, long ticker) {
+        int length = TickerCode.length(ticker);
+        b.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            b.put((byte) (ticker >>> (i * Byte.SIZE)));
+        }
+    }
+
+    private int getSymbol(ByteBuffer b) {
+        int length = b.get();
+        long ticker = 0;
+        for (int i = 0; i < length; i++) {
+            ticker |= (b.get() & 0xFFL) << (i * Byte.SIZE);
+        }
+        int symbolId = symbols.register(ticker);
+        if (symbolId < 0) {
+            throw new IllegalStateException("Journal in " + dir + " refers to " + TickerCode.toString(ticker)
+                    + ", which is not a valid ticker or does not fit in the symbol registry");
+        }
+        return symbolId;
+    }
+}
@@ -0,0 +1,213 @@
+package com.trading.engine.journal;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.OrderBook;
+import com.trading.engine.ledger.Settlement;
+import com.trading.engine.model.Order;
+import com.trading.engine.symbol.SymbolRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Binary point-in-time images of a shard's books and the ledger state they go with, taken at a journal
+ * sequence number. Recovery loads the newest snapshot at or before the persisted sequence (what the
+ * database already holds) and replays the journal records after it, so it can re-emit what the database
+ * lost. Version 2 snapshots (books only) still load, with no accounts.
+ */
+public final class SnapshotStore {
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final byte VERSION = 3;
+    private static final byte OLDEST_VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int KEEP = 2;
+
+    /**
+     * Books and settled account state restored from disk, plus the journal sequence and source offset they include.
+     */
+    public record Snapshot(long sequence, long sourceOffset, List<OrderBook> books, List<Settlement> accounts) {
+    }
+
+    private SnapshotStore() {
+    }
+
+    /**
+     * Writes a snapshot and deletes the ones recovery no longer needs: those older than both the newest
+     * snapshot at or before {@code persistedSequence} and the last KEEP. Returns the sequence of the
+     * snapshot recovery would now start from; the journal must keep every record after it.
+     */
+    public static long write(Path dir, long sequence, long sourceOffset, Collection<OrderBook> books,
+                             Collection<Settlement> accounts, SymbolRegistry symbols, long persistedSequence) {
+        Path target = dir.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(sequence);
+            out.writeLong(sourceOffset);
+
+            out.writeInt(books.size());
+            for (OrderBook book : books) {
+                out.writeUTF(book.getTicker());
+                out.writeInt(book.size());
+                book.forEach(o -> writeOrder(out, o));
+            }
+
+            out.writeInt(accounts.size());
+            for (Settlement a : accounts) {
+                writeAccount(out, a, symbols);
+            }
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + target, e);
+        }
+
+        try {
+            // Readers only ever see complete snapshots
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            List<Path> snapshots = list(dir);
+            int base = base(snapshots, persistedSequence);
+            for (int i = 0; i < Math.min(base, snapshots.size() - KEEP); i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+            return sequenceOf(snapshots.get(base));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish snapshot " + target, e);
+        }
+    }
+
+    /**
+     * Returns the newest snapshot at or before {@code persistedSequence}, or the oldest one if they are all
+     * newer (the records before it can't be re-emitted any more), or null if there is none. Its tickers are
+     * interned into {@code symbols}.
+     */
+    public static Snapshot loadLatest(Path dir, SymbolRegistry symbols, long persistedSequence) {
+        try {
+            if (!Files.isDirectory(dir)) return null;
+            List<Path> snapshots = list(dir);
+            if (snapshots.isEmpty()) return null;
+            return read(snapshots.get(base(snapshots, persistedSequence)), symbols);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read snapshot in " + dir, e);
+        }
+    }
+
+    private static Snapshot read(Path path, SymbolRegistry symbols) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            int magic = in.readInt();
+            byte version = in.readByte();
+            if (magic != MAGIC || version < OLDEST_VERSION || version > VERSION) {
+                throw new IOException("Not a version " + OLDEST_VERSION + "-" + VERSION + " snapshot: " + path);
+            }
+            long sequence = in.readLong();
+            long sourceOffset = in.readLong();
+
+            int bookCount = in.readInt();
+            List<OrderBook> books = new ArrayList<>(bookCount);
+            for (int i = 0; i < bookCount; i++) {
+                String ticker = in.readUTF();
+                OrderBook book = new OrderBook(symbols.register(ticker), ticker);
+                int orderCount = in.readInt();
+                for (int j = 0; j < orderCount; j++) {
+                    EngineOrder order = readOrder(in);
+                    order.setSymbolId(book.getSymbolId());
+                    // Orders were written in priority order, so plain appends rebuild the queues
+                    book.add(order);
+                }
+                books.add(book);
+            }
+
+            int accountCount = version < 3 ? 0 : in.readInt();
+            List<Settlement> accounts = new ArrayList<>(accountCount);
+            for (int i = 0; i < accountCount; i++) {
+                accounts.add(readAccount(in, symbols));
+            }
+            return new Snapshot(sequence, sourceOffset, books, accounts);
+        }
+    }
+
+    private static void writeOrder(DataOutputStream out, EngineOrder o) {
+        try {
+            out.writeLong(o.getId());
+            out.writeLong(o.getUserId());
+            out.writeByte(o.getType().ordinal());
+            out.writeLong(o.getPrice());
+            out.writeLong(o.getQuantity());
+            out.writeLong(o.getTimestamp());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The symbol goes by ticker (ids are per process); an empty one is cash only
+    private static void writeAccount(DataOutputStream out, Settlement a, SymbolRegistry symbols) throws IOException {
+        out.writeLong(a.userId());
+        out.writeLong(a.cash());
+        out.writeLong(a.cashVersion());
+        out.writeUTF(a.symbolId() == Settlement.NO_SYMBOL ? "" : symbols.spec(a.symbolId()).ticker());
+        out.writeLong(a.holdingId());
+        out.writeLong(a.quantity());
+        out.writeLong(a.cost());
+    }
+
+    private static Settlement readAccount(DataInputStream in, SymbolRegistry symbols) throws IOException {
+        long userId = in.readLong();
+        long cash = in.readLong();
+        long cashVersion = in.readLong();
+        String ticker = in.readUTF();
+        int symbolId = ticker.isEmpty() ? Settlement.NO_SYMBOL : symbols.register(ticker);
+        return new Settlement(userId, cash, cashVersion, symbolId, in.readLong(), in.readLong(), in.readLong());
+    }
+
+    private static EngineOrder readOrder(DataInputStream in) throws IOException {
+        EngineOrder o = new EngineOrder();
+        o.setId(in.readLong());
+        o.setUserId(in.readLong());
+        o.setType(Order.Type.values()[in.readByte()]);
+        o.setPrice(in.readLong());
+        o.setQuantity(in.readLong());
+        o.setTimestamp(in.readLong());
+        return o;
+    }
+
+    // Index of the newest snapshot at or before the sequence, or 0 (the oldest) if there is none
+    private static int base(List<Path> snapshots, long persistedSequence) {
+        for (int i = snapshots.size() - 1; i > 0; i--) {
+            if (sequenceOf(snapshots.get(i)) <= persistedSequence) return i;
+        }
+        return 0;
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+}
@@ -1,22 +1,89 @@
 package com.trading.engine.kafka;
 
-import com.trading.engine.model.Order;
+import com.trading.engine.codec.EngineMessage;
+import com.trading.engine.config.KafkaConfig;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.scheduler.SymbolScheduler;
 import com.trading.engine.service.OrderMatchingService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
-public class OrderConsumer {
+public class OrderConsumer implements ConsumerSeekAware {
+
+    public static final String LISTENER_ID = "orders";
+    public static final String GROUP_ID = "trading-group";
+
+    private static final Logger log = LoggerFactory.getLogger(OrderConsumer.class);
 
     @Autowired
     private OrderMatchingService orderMatchingService;
 
-    @KafkaListener(topics = "stock-orders", groupId = "trading-group")
-    public void consume(Order order) {
-        System.out.println(String.format("Consumed order: %s %s @ %s", order.getType(), order.getTicker(), order.getPrice()));
-        
-        // Pass the order directly to the matching engine
-        orderMatchingService.processOrder(order);
+    @Autowired
+    private SymbolScheduler scheduler;
+
+    @Autowired
+    private EngineMetrics metrics;
+
+    private final Map<Integer, TopicPartition> topicPartitions = new ConcurrentHashMap<>();
+
+    /**
+     * Receives one poll's worth of records (batch listener). Offsets are committed once, after the whole batch.
+     * A standby doesn't start this listener until it is promoted.
+     */
+    @KafkaListener(id = LISTENER_ID, topics = KafkaConfig.ORDER_TOPIC, groupId = GROUP_ID, containerFactory = "orderListenerFactory",
+            autoStartup = "#{'${engine.role:primary}' == 'primary'}")
+    public void consume(List<ConsumerRecord<String, EngineMessage>> records, Consumer<?, ?> consumer) {
+        log.debug("Consumed batch of {} records", records.size());
+
+        // A poll returns each partition's records contiguously and in offset order:
+        // hand every run to the shard that owns that partition, in one go, on the loop its symbols run on
+        Map<Integer, Runnable> runs = new LinkedHashMap<>();
+        int start = 0;
+        for (int i = 1; i <= records.size(); i++) {
+            if (i == records.size() || records.get(i).partition() != records.get(start).partition()) {
+                int partition = records.get(start).partition();
+                List<ConsumerRecord<String, EngineMessage>> run = records.subList(start, i);
+                runs.put(partition, () -> orderMatchingService.processBatch(partition, run));
+                start = i;
+            }
+        }
+        // Returns once every run is matched, so the batch's offsets are committed after it
+        scheduler.execute(runs);
+        runs.keySet().forEach(partition -> recordLag(consumer, partition));
+    }
+
+    // Local lag estimate from the last fetch (no broker round trip)
+    private void recordLag(Consumer<?, ?> consumer, int partition) {
+        OptionalLong lag = consumer.currentLag(topicPartitions.computeIfAbsent(partition, p -> new TopicPartition(KafkaConfig.ORDER_TOPIC, p)));
+        if (lag.isPresent()) {
+            metrics.consumerLag(partition, lag.getAsLong());
+        }
+    }
+
+    // --- REBALANCING: book ownership follows partition ownership ---
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.keySet().forEach(tp -> orderMatchingService.assignShard(tp.partition()));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(tp -> orderMatchingService.revokeShard(tp.partition()));
     }
-}
\ No newline at end of file
+}
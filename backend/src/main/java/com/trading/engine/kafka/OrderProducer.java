@@ -1,20 +1,58 @@
 package com.trading.engine.kafka;
 
+import com.trading.engine.codec.CancelMessage;
+import com.trading.engine.codec.ReplaceMessage;
+import com.trading.engine.config.KafkaConfig;
 import com.trading.engine.model.Order;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class OrderProducer {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderProducer.class);
+
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
-    private static final String TOPIC = "stock-orders";
+    // Set on orders whose sender waits for an execution report: the gateway's request id (an IdGenerator id)
+    public static final String REQUEST_ID_HEADER = "request-id";
 
     public void sendMessage(Order order) {
-        System.out.println(String.format("Producing order: %s %s @ %s", order.getType(), order.getTicker(), order.getPrice()));
-        kafkaTemplate.send(TOPIC, order);
+        log.debug("Producing order: {} {} @ {}", order.getType(), order.getTicker(), order.getPrice());
+        // Key by ticker: every order for a symbol lands on the same partition, in order
+        kafkaTemplate.send(KafkaConfig.ORDER_TOPIC, order.getTicker(), order);
+    }
+
+    /**
+     * Sends an order the engine answers with a {@link com.trading.engine.codec.ReportMessage} for {@code requestId}.
+     * The send is batched by the producer; the future completes once the broker has the record.
+     */
+    public CompletableFuture<SendResult<String, Object>> sendMessage(Order order, long requestId) {
+        log.debug("Producing order {}: {} {} @ {}", requestId, order.getType(), order.getTicker(), order.getPrice());
+        ProducerRecord<String, Object> record = new ProducerRecord<>(KafkaConfig.ORDER_TOPIC, order.getTicker(), order);
+        record.headers().add(REQUEST_ID_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(requestId).array());
+        return kafkaTemplate.send(record);
+    }
+
+    // Cancels and replaces take the same path (and partition) as the orders they refer to,
+    // so the engine sees all of a ticker's requests in one sequence
+    public void sendCancel(long orderId, long userId, String ticker, long ingressNanos) {
+        log.debug("Producing cancel: {} {}", orderId, ticker);
+        kafkaTemplate.send(KafkaConfig.ORDER_TOPIC, ticker, CancelMessage.encode(orderId, userId, ticker, ingressNanos));
+    }
+
+    public void sendReplace(long orderId, long userId, String ticker, BigDecimal price, int quantity, long ingressNanos) {
+        log.debug("Producing replace: {} {} -> {} @ {}", orderId, ticker, quantity, price);
+        kafkaTemplate.send(KafkaConfig.ORDER_TOPIC, ticker, ReplaceMessage.encode(orderId, userId, ticker, price, quantity, ingressNanos));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package com.trading.engine.ledger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * One user's cash and positions as the engine sees them. Cash is in cents.
+ *
+ * "Reserved" is what resting orders have already claimed: a BUY reserves its limit price times
+ * its quantity in cash, a SELL reserves its quantity in shares. New orders may only claim
+ * what is still available. All methods lock the account, so shards trading different
+ * tickers for the same user stay consistent. Positions are indexed by symbol id.
+ */
+public class Account {
+
+    /**
+     * A position in one symbol. Cost is the total cost basis in cents, so the average price is cost / quantity.
+     */
+    public static final class Position {
+        long holdingId;
+        long quantity;
+        long reserved;
+        long cost;
+
+        Position(long holdingId) {
+            this.holdingId = holdingId;
+        }
+
+        public long getHoldingId() {
+            return holdingId;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public long getReserved() {
+            return reserved;
+        }
+
+        public long getCost() {
+            return cost;
+        }
+    }
+
+    /**
+     * Receives one position (quantity and cost basis in cents) per call.
+     */
+    public interface PositionVisitor {
+        void visit(int symbolId, long quantity, long cost);
+    }
+
+    private final long userId;
+    private long cash;
+    private long cashVersion; // id of the settlement that produced cash; 0 if loaded from the database
+    private long reservedCash;
+    private Position[] positions = new Position[8];
+
+    public Account(long userId, long cash) {
+        this.userId = userId;
+        this.cash = cash;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public synchronized long getCash() {
+        return cash;
+    }
+
+    public synchronized long getCashVersion() {
+        return cashVersion;
+    }
+
+    public synchronized long getReservedCash() {
+        return reservedCash;
+    }
+
+    public synchronized Position getPosition(int symbolId) {
+        return symbolId < positions.length ? positions[symbolId] : null;
+    }
+
+    /**
+     * Visits every position under the account lock, so readers off the matching threads see
+     * one consistent state. Returns the cash balance of that same state.
+     */
+    public synchronized long visit(PositionVisitor visitor) {
+        for (int symbolId = 0; symbolId < positions.length; symbolId++) {
+            Position p = positions[symbolId];
+            if (p != null) visitor.visit(symbolId, p.quantity, p.cost);
+        }
+        return cash;
+    }
+
+    // --- RESERVATIONS ---
+
+    synchronized boolean reserveCash(long amount) {
+        if (cash - reservedCash < amount) return false;
+        reservedCash += amount;
+        return true;
+    }
+
+    synchronized boolean reserveShares(int symbolId, long quantity) {
+        Position p = getPosition(symbolId);
+        if (p == null || p.quantity - p.reserved < quantity) return false;
+        p.reserved += quantity;
+        return true;
+    }
+
+    // Unconditional: re-applies the claim of an order that was accepted before a restart
+    synchronized void holdCash(long amount) {
+        reservedCash += amount;
+    }
+
+    synchronized void holdShares(int symbolId, long quantity) {
+        Position p = getPosition(symbolId);
+        if (p != null) p.reserved += quantity;
+    }
+
+    synchronized void releaseCash(long amount) {
+        reservedCash -= amount;
+    }
+
+    synchronized void releaseShares(int symbolId, long quantity) {
+        Position p = getPosition(symbolId);
+        if (p != null) p.reserved -= quantity;
+    }
+
+    // --- SETTLEMENT ---
+
+    // Pays for a fill out of the buy order's reservation; any price improvement is released
+    synchronized Position buy(int symbolId, long quantity, long notional, long reservedAmount, long newHoldingId) {
+        cash -= notional;
+        reservedCash -= reservedAmount;
+
+        Position p = position(symbolId, newHoldingId);
+        p.quantity += quantity;
+        p.cost += notional;
+        return p;
+    }
+
+    // Delivers shares out of the sell order's reservation. The average price is unchanged,
+    // so the sold shares take their share of the cost basis with them (floor, no overflow).
+    synchronized Position sell(int symbolId, long quantity, long notional, long newHoldingId) {
+        cash += notional;
+
+        Position p = position(symbolId, newHoldingId);
+        if (quantity >= p.quantity) {
+            p.cost = 0;
+        } else {
+            p.cost -= p.cost / p.quantity * quantity + (p.cost % p.quantity) * quantity / p.quantity;
+        }
+        p.quantity -= quantity;
+        p.reserved -= quantity;
+        return p;
+    }
+
+    // Marks the cash balance as produced by the given settlement
+    synchronized void stamp(long version) {
+        cashVersion = version;
+    }
+
+    // Applies a journaled or snapshotted state: a newer cash balance, and the position as it was
+    synchronized void restore(Settlement s) {
+        if (s.cashVersion() > cashVersion) {
+            cash = s.cash();
+            cashVersion = s.cashVersion();
+        }
+        if (s.symbolId() != Settlement.NO_SYMBOL) {
+            Position p = position(s.symbolId(), s.holdingId());
+            p.holdingId = s.holdingId();
+            p.quantity = s.quantity();
+            p.cost = s.cost();
+        }
+    }
+
+    // The account's state for a snapshot: one entry per position held in a symbol that matches, or cash alone
+    synchronized void collect(IntPredicate symbols, List<Settlement> out) {
+        int size = out.size();
+        for (int symbolId = 0; symbolId < positions.length; symbolId++) {
+            Position p = positions[symbolId];
+            if (p != null && symbols.test(symbolId)) {
+                out.add(new Settlement(userId, cash, cashVersion, symbolId, p.holdingId, p.quantity, p.cost));
+            }
+        }
+        if (out.size() == size && cashVersion != 0) {
+            out.add(new Settlement(userId, cash, cashVersion, Settlement.NO_SYMBOL, 0, 0, 0));
+        }
+    }
+
+    // Used when loading from the database
+    synchronized void putPosition(int symbolId, long holdingId, long quantity, long cost) {
+        Position p = position(symbolId, holdingId);
+        p.quantity = quantity;
+        p.cost = cost;
+    }
+
+    // The position in the symbol, opened under the given holding id if there is none yet
+    private Position position(int symbolId, long newHoldingId) {
+        if (symbolId >= positions.length) positions = Arrays.copyOf(positions, Math.max(symbolId + 1, positions.length * 2));
+        Position p = positions[symbolId];
+        if (p == null) p = positions[symbolId] = new Position(newHoldingId);
+        return p;
+    }
+}
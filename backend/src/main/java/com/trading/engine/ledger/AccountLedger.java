@@ -0,0 +1,323 @@
+package com.trading.engine.ledger;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.Execution;
+import com.trading.engine.model.Holding;
+import com.trading.engine.model.User;
+import com.trading.engine.persistence.WriteBehindPersister;
+import com.trading.engine.repository.HoldingRepository;
+import com.trading.engine.repository.UserRepository;
+import com.trading.engine.service.IdGenerator;
+import com.trading.engine.symbol.SymbolRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntPredicate;
+
+/**
+ * Resident cash and positions for every user the engine has seen, keyed by user id.
+ *
+ * Orders reserve what they could spend when they are accepted (constant time, no DB),
+ * release it when cancelled and settle against it on fill. Settled state is handed to the
+ * write-behind stage as absolute values, so the database is written but never read back.
+ *
+ * An account is loaded from users/holdings once; that is its opening state. Every existing user is loaded
+ * at startup, before matching starts, and the order gateway warms a user it hasn't seen before sending
+ * the order on. The matching path itself never reads the database: an order whose account isn't resident
+ * is rejected with {@link RejectReason#ACCOUNT_NOT_LOADED} and the account is loaded in the background.
+ * What the engine settled after that is journaled and snapshotted with the books as {@link Settlement}s,
+ * and recovery restores it from there, since the database may be behind.
+ */
+@Service
+public class AccountLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountLedger.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private WriteBehindPersister persister;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+    private ExecutorService loader;
+
+    /**
+     * Receives each account's state right after a settlement leg, under its lock.
+     */
+    @FunctionalInterface
+    public interface SettlementListener {
+        void onSettled(Account account, int symbolId, Account.Position position);
+    }
+
+    @PostConstruct
+    public void start() {
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ledger-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        preload();
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    // Two queries for everyone, so the first orders after a restart find their accounts resident
+    private void preload() {
+        try {
+            Map<Long, List<Holding>> holdings = new HashMap<>();
+            for (Holding h : holdingRepository.findAll()) {
+                holdings.computeIfAbsent(h.getUserId(), u -> new ArrayList<>()).add(h);
+            }
+            int loaded = 0;
+            for (User user : userRepository.findAll()) {
+                Account account = open(user, holdings.getOrDefault(user.getId(), List.of()));
+                if (accounts.putIfAbsent(user.getId(), account) == null) loaded++;
+            }
+            log.info("📒 Ledger: {} accounts loaded", loaded);
+        } catch (RuntimeException e) {
+            // Accounts then load one by one, at the gateway or in the background
+            log.error("❌ Ledger: could not preload accounts", e);
+        }
+    }
+
+    /**
+     * Pre-trade risk check. Reserves the order's cash (BUY) or shares (SELL) and returns null,
+     * or returns why the order must be rejected before it reaches the book.
+     */
+    public RejectReason reserve(EngineOrder order, long centsPerTick) {
+        Account account = accounts.get(order.getUserId());
+        if (account == null) {
+            loadLater(order.getUserId());
+            return RejectReason.ACCOUNT_NOT_LOADED;
+        }
+
+        if (order.isBuy()) {
+            long amount = order.getPrice() * centsPerTick * order.getQuantity();
+            return account.reserveCash(amount) ? null : RejectReason.INSUFFICIENT_FUNDS;
+        }
+        return account.reserveShares(order.getSymbolId(), order.getQuantity()) ? null : RejectReason.INSUFFICIENT_POSITION;
+    }
+
+    /**
+     * Gives back what an order's remaining quantity still holds (cancel, or losing ownership of its book).
+     */
+    public void release(EngineOrder order, long centsPerTick) {
+        release(order, order.getQuantity(), centsPerTick);
+    }
+
+    /**
+     * Gives back the claim of {@code quantity} of the order's remaining quantity (an amend down).
+     */
+    public void release(EngineOrder order, long quantity, long centsPerTick) {
+        Account account = accounts.get(order.getUserId());
+        if (account == null) return;
+
+        if (order.isBuy()) {
+            account.releaseCash(order.getPrice() * centsPerTick * quantity);
+        } else {
+            account.releaseShares(order.getSymbolId(), quantity);
+        }
+    }
+
+    /**
+     * Re-applies the reservation of an order that was already accepted (recovery). No checks.
+     */
+    public void restore(EngineOrder order, long centsPerTick) {
+        Account account = warm(order.getUserId());
+        if (account == null) return;
+
+        if (order.isBuy()) {
+            account.holdCash(order.getPrice() * centsPerTick * order.getQuantity());
+        } else {
+            account.holdShares(order.getSymbolId(), order.getQuantity());
+        }
+    }
+
+    /**
+     * Moves cash and stock between buyer and seller. No DB reads: both accounts already hold
+     * the reservations made when their orders were accepted.
+     *
+     * @param buyLimit the buy order's limit price in ticks (what its reservation was sized at)
+     * @param listener sees the buyer's and then the seller's resulting state (to journal it)
+     */
+    public void settle(Execution e, long buyLimit, long centsPerTick, SettlementListener listener) {
+        Account buyer = accounts.get(e.buyerId());
+        Account seller = accounts.get(e.sellerId());
+        if (buyer == null || seller == null) {
+            log.error("❌ Ledger: cannot settle trade {}, unknown user", e.tradeId());
+            return;
+        }
+
+        synchronized (buyer) {
+            long id = idGenerator.nextId();
+            Account.Position p = buyer.buy(e.symbolId(), e.quantity(), e.notional(),
+                    buyLimit * centsPerTick * e.quantity(), id);
+            settled(buyer, e.symbolId(), p, id, listener);
+        }
+
+        synchronized (seller) {
+            long id = idGenerator.nextId();
+            Account.Position p = seller.sell(e.symbolId(), e.quantity(), e.notional(), id);
+            settled(seller, e.symbolId(), p, id, listener);
+        }
+    }
+
+    /**
+     * Takes a fill the primary already settled off both orders' reservations (hot standby following its
+     * journal). Balances and positions are not touched: the primary's settlement records that follow the
+     * trade set them, and a delta here could count a fill twice once another shard's newer balance landed.
+     */
+    public void mirror(Execution e, long buyLimit, long centsPerTick) {
+        Account buyer = accounts.get(e.buyerId());
+        Account seller = accounts.get(e.sellerId());
+        if (buyer != null) buyer.releaseCash(buyLimit * centsPerTick * e.quantity());
+        if (seller != null) seller.releaseShares(e.symbolId(), e.quantity());
+    }
+
+    // Caller holds the account's lock. The settlement's id (generated under the lock, so it only grows
+    // per account) versions the cash balance
+    private void settled(Account account, int symbolId, Account.Position p, long id, SettlementListener listener) {
+        account.stamp(id);
+        listener.onSettled(account, symbolId, p);
+        persister.balanceChanged(account.getUserId(), account.getCash());
+        persister.holdingChanged(account.getUserId(), symbolId, p.getHoldingId(), p.getQuantity(), p.getCost());
+    }
+
+    /**
+     * Applies a journaled or snapshotted settlement (recovery, hot standby). The account is loaded first
+     * if need be, so its other positions keep their opening state.
+     */
+    public void restore(Settlement s) {
+        Account account = warm(s.userId());
+        if (account == null) {
+            log.warn("⚠️ Ledger: skipping settled state of unknown user {}", s.userId());
+            return;
+        }
+        account.restore(s);
+    }
+
+    /**
+     * Hands the write-behind stage the account's balance and its positions in the given symbols again,
+     * as they are now (recovery, when the database may have lost what settled before a crash).
+     */
+    public void republish(long userId, IntPredicate symbols) {
+        Account account = find(userId);
+        if (account == null) return;
+        List<Settlement> current = new ArrayList<>();
+        account.collect(symbols, current);
+        if (current.isEmpty()) return;
+        persister.balanceChanged(userId, current.get(0).cash());
+        for (Settlement s : current) {
+            if (s.symbolId() == Settlement.NO_SYMBOL) continue;
+            persister.holdingChanged(userId, s.symbolId(), s.holdingId(), s.quantity(), s.cost());
+        }
+    }
+
+    /**
+     * The settled state a shard's snapshot carries: every account's cash, and its positions in the
+     * symbols the shard owns.
+     */
+    public List<Settlement> settlements(IntPredicate symbols) {
+        List<Settlement> out = new ArrayList<>();
+        for (Account account : accounts.values()) {
+            account.collect(symbols, out);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the resident account, or null if it isn't loaded (or the user doesn't exist). Never reads the database.
+     */
+    public Account find(long userId) {
+        return accounts.get(userId);
+    }
+
+    /**
+     * Returns the account, loading it from the database if it isn't resident yet, or null if the user
+     * doesn't exist. Reads Postgres on a miss, so never call it from the matching path.
+     */
+    public Account warm(long userId) {
+        Account account = accounts.get(userId);
+        if (account != null) return account;
+        // Loaded outside the map, so no lock is held on the database
+        Account loaded = userRepository.findById(userId)
+                .map(user -> open(user, holdingRepository.findByUserId(userId)))
+                .orElse(null);
+        if (loaded == null) return null;
+        Account raced = accounts.putIfAbsent(userId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    // One load in flight per user; the order that missed is already rejected, so its retry finds the account
+    private void loadLater(long userId) {
+        if (!loading.add(userId)) return;
+        loader.execute(() -> {
+            try {
+                if (warm(userId) == null) log.warn("⚠️ Ledger: order from unknown user {}", userId);
+            } catch (RuntimeException e) {
+                log.error("❌ Ledger: could not load user {}", userId, e);
+            } finally {
+                loading.remove(userId);
+            }
+        });
+    }
+
+    // Opening state from the user's balance and holdings
+    private Account open(User user, List<Holding> holdings) {
+        long userId = user.getId();
+        Account account = new Account(userId, toCents(user.getBalance()));
+        for (Holding h : holdings) {
+            long cost = toCents(h.getAveragePrice().multiply(BigDecimal.valueOf(h.getQuantity())));
+            int symbolId = symbolId(h.getTicker());
+            if (symbolId < 0) {
+                log.warn("⚠️ Ledger: skipping user {}'s holding {} in unusable ticker {}", userId, h.getId(), h.getTicker());
+                continue;
+            }
+            account.putPosition(symbolId, h.getId(), h.getQuantity(), cost);
+        }
+        return account;
+    }
+
+    // A holding is state the engine settled, so its ticker is registered if this process doesn't know it
+    // yet. -1 for a ticker the registry can't take (a malformed row, or the registry is full): such a
+    // holding can't be traded, and indexing positions with it would throw
+    private int symbolId(String ticker) {
+        try {
+            return symbolRegistry.register(ticker);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+}
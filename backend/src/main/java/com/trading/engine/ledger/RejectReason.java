@@ -0,0 +1,33 @@
+package com.trading.engine.ledger;
+
+/**
+ * Why the engine refused an order, cancel or replace.
+ */
+public enum RejectReason {
+    // Pre-trade risk check
+    UNKNOWN_USER,
+    INSUFFICIENT_FUNDS,
+    INSUFFICIENT_POSITION,
+
+    // Symbol reference data (tick size, lot size, trading status)
+    INVALID_PRICE,
+    INVALID_QUANTITY,
+    UNKNOWN_SYMBOL,
+    SYMBOL_HALTED,
+
+    // Cancel / replace
+    UNKNOWN_ORDER,
+    NOT_OWNER,
+
+    // Cancelled by the engine: it would have traded against the same user's order
+    SELF_TRADE,
+
+    // Cancelled by the engine: what a market, IOC or FOK order could not fill on arrival (for a FOK, all of it)
+    UNFILLED,
+
+    // Pre-trade: the user's account isn't resident on this instance yet; it is being loaded, so a retry goes through
+    ACCOUNT_NOT_LOADED,
+
+    // A side or time in force byte that names no value (a corrupt record, or a sender on a newer version)
+    MALFORMED_MESSAGE
+}
@@ -0,0 +1,15 @@
+package com.trading.engine.ledger;
+
+/**
+ * One account's settled state after a change: its cash (cents) and, when symbolId is not -1, its position
+ * in that symbol. Journaled after every settlement leg and written into snapshots, so recovery rebuilds the
+ * ledger from the same point as the books.
+ *
+ * Absolute values, so applying one twice does nothing. Cash can be settled by several shards, so it carries
+ * the id of the settlement that produced it and only a newer one replaces it; a position only ever changes
+ * on the shard that owns its symbol, so the latest in journal order wins.
+ */
+public record Settlement(long userId, long cash, long cashVersion, int symbolId, long holdingId, long quantity, long cost) {
+
+    public static final int NO_SYMBOL = -1;
+}
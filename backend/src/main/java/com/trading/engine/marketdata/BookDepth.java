@@ -0,0 +1,54 @@
+package com.trading.engine.marketdata;
+
+import com.trading.engine.book.OrderBook;
+
+/**
+ * Immutable copy of the top levels of one book, taken on the matching thread so the
+ * publisher can read it from its own thread. Prices are ticks.
+ */
+public final class BookDepth {
+
+    final int symbolId;
+    final long[] bidPrices;
+    final long[] bidQuantities;
+    final int bidLevels;
+    final long[] askPrices;
+    final long[] askQuantities;
+    final int askLevels;
+    final long timestamp;
+
+    private BookDepth(int symbolId, long[] bidPrices, long[] bidQuantities, int bidLevels,
+                      long[] askPrices, long[] askQuantities, int askLevels, long timestamp) {
+        this.symbolId = symbolId;
+        this.bidPrices = bidPrices;
+        this.bidQuantities = bidQuantities;
+        this.bidLevels = bidLevels;
+        this.askPrices = askPrices;
+        this.askQuantities = askQuantities;
+        this.askLevels = askLevels;
+        this.timestamp = timestamp;
+    }
+
+    static BookDepth of(OrderBook book, int maxLevels) {
+        long[] bidPrices = new long[maxLevels];
+        long[] bidQuantities = new long[maxLevels];
+        long[] askPrices = new long[maxLevels];
+        long[] askQuantities = new long[maxLevels];
+        int bids = book.depth(true, maxLevels, bidPrices, bidQuantities);
+        int asks = book.depth(false, maxLevels, askPrices, askQuantities);
+        return new BookDepth(book.getSymbolId(), bidPrices, bidQuantities, bids, askPrices, askQuantities, asks,
+                System.currentTimeMillis());
+    }
+
+    // Same best bid/ask price and size (i.e. an L1 subscriber would see no change)
+    boolean sameTopOfBook(BookDepth other) {
+        return other != null
+                && top(bidLevels, bidPrices, bidQuantities, other.bidLevels, other.bidPrices, other.bidQuantities)
+                && top(askLevels, askPrices, askQuantities, other.askLevels, other.askPrices, other.askQuantities);
+    }
+
+    private static boolean top(int n, long[] px, long[] qty, int otherN, long[] otherPx, long[] otherQty) {
+        if (n == 0 || otherN == 0) return n == otherN;
+        return px[0] == otherPx[0] && qty[0] == otherQty[0];
+    }
+}
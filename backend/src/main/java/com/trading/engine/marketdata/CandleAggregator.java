@@ -0,0 +1,141 @@
+package com.trading.engine.marketdata;
+
+import com.trading.engine.book.Execution;
+import com.trading.engine.model.Candle;
+import com.trading.engine.persistence.WriteBehindPersister;
+import com.trading.engine.repository.CandleRepository;
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import jakarta.annotation.PostConstruct;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Incremental 1s/1m/5m/1h OHLCV bars per ticker, built from the trade stream.
+ *
+ * Fed by the market-data thread as it drains trade prints; each publish tick it pushes the
+ * forming bars of the tickers that traded to /topic/candles/{ticker}/{interval} and hands
+ * completed bars to the write-behind stage. Chart history is served from the ring buffers;
+ * the candles table is only read once per ticker to warm them after a restart. Series are indexed
+ * by symbol id.
+ */
+@Service
+public class CandleAggregator {
+
+    public record Bar(String ticker, String interval, long startTime, BigDecimal open, BigDecimal high,
+                      BigDecimal low, BigDecimal close, long volume) {
+    }
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private CandleRepository candleRepository;
+
+    @Autowired
+    private WriteBehindPersister persister;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    // Bars kept in memory per ticker and interval (1440 = a day of 1m bars)
+    @Value("${engine.candles.capacity:1440}")
+    private int capacity;
+
+    private AtomicReferenceArray<CandleSeries[]> series;
+    private final BitSet traded = new BitSet(); // market-data thread only, by symbol id
+
+    @PostConstruct
+    public void start() {
+        series = new AtomicReferenceArray<>(symbolRegistry.capacity());
+    }
+
+    // --- Market-data thread ---
+
+    public void onTrade(Execution e) {
+        for (CandleSeries s : series(symbolRegistry.spec(e.symbolId()))) {
+            s.onTrade(e.timestamp(), e.price(), e.quantity());
+        }
+        traded.set(e.symbolId());
+    }
+
+    public void publish(long now) {
+        for (int id = traded.nextSetBit(0); id >= 0; id = traded.nextSetBit(id + 1)) {
+            SymbolSpec spec = symbolRegistry.spec(id);
+            for (CandleSeries s : series(spec)) {
+                String label = s.getInterval().getLabel();
+                s.latest((start, o, h, l, c, v) -> messagingTemplate.convertAndSend(
+                        "/topic/candles/" + spec.ticker() + "/" + label, toBar(spec, label, start, o, h, l, c, v)));
+            }
+        }
+        traded.clear();
+
+        for (int id = 0; id < symbolRegistry.size(); id++) {
+            CandleSeries[] all = series.get(id);
+            if (all == null) continue;
+            int symbolId = id;
+            for (CandleSeries s : all) {
+                String label = s.getInterval().getLabel();
+                s.drainCompleted(now, (start, o, h, l, c, v) -> persister.candleClosed(symbolId, label, start, o, h, l, c, v));
+            }
+        }
+    }
+
+    // --- REST ---
+
+    /**
+     * The most recent bars, oldest first. The last one may still be forming. None for an unknown ticker.
+     */
+    public List<Bar> history(String ticker, CandleInterval interval, int limit) {
+        int symbolId = symbolRegistry.find(ticker);
+        if (symbolId < 0) return List.of();
+        SymbolSpec spec = symbolRegistry.spec(symbolId);
+        CandleSeries s = series(spec)[interval.ordinal()];
+        List<Bar> bars = new ArrayList<>(Math.min(limit, s.size()));
+        s.history(limit, (start, o, h, l, c, v) -> bars.add(toBar(spec, interval.getLabel(), start, o, h, l, c, v)));
+        return bars;
+    }
+
+    private CandleSeries[] series(SymbolSpec spec) {
+        CandleSeries[] all = series.get(spec.id());
+        if (all != null) return all;
+        // A REST read and the market-data thread may both warm it; the first one in wins
+        series.compareAndSet(spec.id(), null, warm(spec));
+        return series.get(spec.id());
+    }
+
+    private CandleSeries[] warm(SymbolSpec spec) {
+        String ticker = spec.ticker();
+        CandleInterval[] intervals = CandleInterval.values();
+        CandleSeries[] all = new CandleSeries[intervals.length];
+
+        for (CandleInterval interval : intervals) {
+            CandleSeries s = new CandleSeries(interval, capacity);
+            List<Candle> stored = candleRepository.findByTickerAndIntervalOrderByStartTimeDesc(
+                    ticker, interval.getLabel(), PageRequest.of(0, capacity));
+            for (int i = stored.size() - 1; i >= 0; i--) {
+                Candle c = stored.get(i);
+                s.restore(c.getStartTime().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                        spec.toTicks(c.getOpen()), spec.toTicks(c.getHigh()), spec.toTicks(c.getLow()),
+                        spec.toTicks(c.getClose()), c.getVolume());
+            }
+            all[interval.ordinal()] = s;
+        }
+        return all;
+    }
+
+    private static Bar toBar(SymbolSpec spec, String interval, long start,
+                             long o, long h, long l, long c, long v) {
+        return new Bar(spec.ticker(), interval, start, spec.toPrice(o), spec.toPrice(h), spec.toPrice(l), spec.toPrice(c), v);
+    }
+}
@@ -0,0 +1,38 @@
+package com.trading.engine.marketdata;
+
+/**
+ * Bar sizes the candle aggregator maintains for every ticker.
+ */
+public enum CandleInterval {
+    S1("1s", 1_000L),
+    M1("1m", 60_000L),
+    M5("5m", 300_000L),
+    H1("1h", 3_600_000L);
+
+    private final String label;
+    private final long millis;
+
+    CandleInterval(String label, long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long bucketOf(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, millis);
+    }
+
+    public static CandleInterval fromLabel(String label) {
+        for (CandleInterval i : values()) {
+            if (i.label.equals(label)) return i;
+        }
+        throw new IllegalArgumentException("Unknown candle interval: " + label);
+    }
+}
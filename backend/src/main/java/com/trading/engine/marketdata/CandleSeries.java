@@ -0,0 +1,115 @@
+package com.trading.engine.marketdata;
+
+/**
+ * Rolling OHLCV bars for one ticker and interval, in a fixed-size ring buffer of primitive arrays.
+ * Prices are ticks. The newest bar is the one still forming.
+ *
+ * Written by the market-data thread, read by REST threads; all methods lock the series.
+ */
+public class CandleSeries {
+
+    /**
+     * Receives bars when they are read out of the series (oldest first).
+     */
+    @FunctionalInterface
+    public interface BarVisitor {
+        void visit(long start, long open, long high, long low, long close, long volume);
+    }
+
+    private final CandleInterval interval;
+    private final long[] start;
+    private final long[] open;
+    private final long[] high;
+    private final long[] low;
+    private final long[] close;
+    private final long[] volume;
+
+    private int newest = -1; // index of the forming bar
+    private int count;
+    private long flushedUpTo = Long.MIN_VALUE; // start time of the last bar handed to storage
+
+    public CandleSeries(CandleInterval interval, int capacity) {
+        this.interval = interval;
+        this.start = new long[capacity];
+        this.open = new long[capacity];
+        this.high = new long[capacity];
+        this.low = new long[capacity];
+        this.close = new long[capacity];
+        this.volume = new long[capacity];
+    }
+
+    public CandleInterval getInterval() {
+        return interval;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Folds a trade into the bar for its time bucket, opening a new bar if needed.
+     * Trades older than the forming bar (out of order across shards) are folded into it.
+     */
+    public synchronized void onTrade(long timestamp, long price, long quantity) {
+        long bucket = interval.bucketOf(timestamp);
+        if (newest < 0 || bucket > start[newest]) {
+            newest = (newest + 1) % start.length;
+            count = Math.min(count + 1, start.length);
+            start[newest] = bucket;
+            open[newest] = high[newest] = low[newest] = close[newest] = price;
+            volume[newest] = 0;
+        } else {
+            high[newest] = Math.max(high[newest], price);
+            low[newest] = Math.min(low[newest], price);
+            close[newest] = price;
+        }
+        volume[newest] += quantity;
+    }
+
+    /**
+     * Adds an already completed bar (warming from storage). Bars must arrive oldest first.
+     */
+    public synchronized void restore(long barStart, long o, long h, long l, long c, long v) {
+        newest = (newest + 1) % start.length;
+        count = Math.min(count + 1, start.length);
+        start[newest] = barStart;
+        open[newest] = o;
+        high[newest] = h;
+        low[newest] = l;
+        close[newest] = c;
+        volume[newest] = v;
+        flushedUpTo = barStart;
+    }
+
+    /**
+     * Visits the newest bar (usually the one still forming).
+     */
+    public synchronized void latest(BarVisitor visitor) {
+        if (newest < 0) return;
+        visitor.visit(start[newest], open[newest], high[newest], low[newest], close[newest], volume[newest]);
+    }
+
+    /**
+     * Visits bars that have closed by {@code now} and were not visited before, oldest first.
+     */
+    public synchronized void drainCompleted(long now, BarVisitor visitor) {
+        for (int i = count - 1; i >= 0; i--) {
+            int idx = Math.floorMod(newest - i, start.length);
+            if (start[idx] <= flushedUpTo) continue;
+            if (start[idx] + interval.getMillis() > now) break;
+            visitor.visit(start[idx], open[idx], high[idx], low[idx], close[idx], volume[idx]);
+            flushedUpTo = start[idx];
+        }
+    }
+
+    /**
+     * Visits up to {@code limit} of the most recent bars, oldest first.
+     */
+    public synchronized void history(int limit, BarVisitor visitor) {
+        int n = Math.min(limit, count);
+        for (int i = n - 1; i >= 0; i--) {
+            int idx = Math.floorMod(newest - i, start.length);
+            visitor.visit(start[idx], open[idx], high[idx], low[idx], close[idx], volume[idx]);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.trading.engine.marketdata;
+
+import com.trading.engine.book.Execution;
+import com.trading.engine.book.OrderBook;
+import com.trading.engine.history.RecentTrades;
+import com.trading.engine.history.TradeView;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.metrics.Stage;
+import com.trading.engine.portfolio.PortfolioProjection;
+import com.trading.engine.model.Trade;
+import com.trading.engine.service.RedisService;
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Publishes market data off the matching thread, conflated per ticker.
+ *
+ * Matching threads only hand over trades and a copy of the top book levels. Every interval-ms
+ * the publisher thread sends, per ticker that changed:
+ *   /topic/trades/{ticker} - the trade prints since the last tick, as one batch
+ *   /topic/book/{ticker}   - L2: the latest aggregated depth snapshot (intermediate states are dropped)
+ *   /topic/quote/{ticker}  - L1: best bid/ask, only when it changed
+ * and all prints of the tick, across tickers, as one batch on /topic/trades.
+ * The same prints feed the {@link CandleAggregator}, the last-price cache, the
+ * per-user {@link RecentTrades} and the {@link PortfolioProjection}. Per-ticker state is held in
+ * arrays indexed by symbol id.
+ */
+@Service
+public class MarketDataPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataPublisher.class);
+
+    public record Level(BigDecimal price, long quantity) {
+    }
+
+    public record BookUpdate(String ticker, List<Level> bids, List<Level> asks, long timestamp) {
+    }
+
+    public record Quote(String ticker, BigDecimal bidPrice, long bidSize, BigDecimal askPrice, long askSize, long timestamp) {
+    }
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private CandleAggregator candles;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RecentTrades recentTrades;
+
+    @Autowired
+    private PortfolioProjection portfolio;
+
+    @Autowired
+    private EngineMetrics metrics;
+
+    @Value("${engine.marketdata.interval-ms:100}")
+    private long intervalMs;
+
+    @Value("${engine.marketdata.depth:10}")
+    private int depthLevels;
+
+    private final Queue<Execution> trades = new ConcurrentLinkedQueue<>();
+    private AtomicReferenceArray<BookDepth> latestDepth;
+
+    // --- Publisher thread only ---
+    private BookDepth[] publishedDepth;
+    private List<Trade>[] printsBySymbol;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        latestDepth = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        publishedDepth = new BookDepth[symbolRegistry.capacity()];
+        printsBySymbol = new List[symbolRegistry.capacity()];
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "market-data");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // --- Called from matching threads (cheap, never blocks) ---
+
+    public void tradeExecuted(Execution execution) {
+        trades.add(execution);
+    }
+
+    /**
+     * Captures the book's top levels. Only the latest capture per ticker is ever published.
+     */
+    public void bookChanged(OrderBook book) {
+        latestDepth.set(book.getSymbolId(), BookDepth.of(book, depthLevels));
+    }
+
+    // --- Publisher thread ---
+
+    private void publish() {
+        try {
+            publishTrades();
+            publishBooks();
+            candles.publish(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is never run again, so log and carry on
+            log.error("❌ Market data publish failed", e);
+        }
+    }
+
+    private void publishTrades() {
+        if (trades.isEmpty()) return;
+
+        List<Execution> drained = new ArrayList<>();
+        List<Trade> all = new ArrayList<>();
+        List<SymbolSpec> traded = new ArrayList<>();
+        for (Execution e; (e = trades.poll()) != null; ) {
+            drained.add(e);
+            candles.onTrade(e);
+            portfolio.onTrade(e);
+            Trade trade = toTrade(e);
+            recentTrades.onTrade(new TradeView(trade.getId(), trade.getTicker(), trade.getPrice(), trade.getQuantity(),
+                    trade.getBuyerId(), trade.getSellerId(), trade.getTimestamp()));
+            all.add(trade);
+            List<Trade> prints = printsBySymbol[e.symbolId()];
+            if (prints == null) {
+                prints = printsBySymbol[e.symbolId()] = new ArrayList<>();
+                traded.add(symbolRegistry.spec(e.symbolId()));
+            }
+            prints.add(trade);
+        }
+
+        for (SymbolSpec spec : traded) {
+            List<Trade> prints = printsBySymbol[spec.id()];
+            printsBySymbol[spec.id()] = null;
+            // Conflated: only the tick's last price per ticker goes to the price cache
+            redisService.savePrice(spec.id(), prints.get(prints.size() - 1).getPrice());
+            messagingTemplate.convertAndSend("/topic/trades/" + spec.ticker(), prints);
+        }
+        messagingTemplate.convertAndSend("/topic/trades", all);
+
+        long sent = System.currentTimeMillis();
+        for (Execution e : drained) {
+            metrics.recordNanos(Stage.BROADCAST, TimeUnit.MILLISECONDS.toNanos(sent - e.timestamp()));
+        }
+    }
+
+    private void publishBooks() {
+        for (int symbolId = 0; symbolId < symbolRegistry.size(); symbolId++) {
+            BookDepth depth = latestDepth.get(symbolId);
+            BookDepth previous = publishedDepth[symbolId];
+            if (depth == previous) continue;
+            publishedDepth[symbolId] = depth;
+
+            SymbolSpec spec = symbolRegistry.spec(symbolId);
+            String ticker = spec.ticker();
+            messagingTemplate.convertAndSend("/topic/book/" + ticker, new BookUpdate(ticker,
+                    levels(spec, depth.bidPrices, depth.bidQuantities, depth.bidLevels),
+                    levels(spec, depth.askPrices, depth.askQuantities, depth.askLevels),
+                    depth.timestamp));
+
+            if (!depth.sameTopOfBook(previous)) {
+                messagingTemplate.convertAndSend("/topic/quote/" + ticker, new Quote(ticker,
+                        depth.bidLevels > 0 ? spec.toPrice(depth.bidPrices[0]) : null,
+                        depth.bidLevels > 0 ? depth.bidQuantities[0] : 0,
+                        depth.askLevels > 0 ? spec.toPrice(depth.askPrices[0]) : null,
+                        depth.askLevels > 0 ? depth.askQuantities[0] : 0,
+                        depth.timestamp));
+            }
+        }
+    }
+
+    private static List<Level> levels(SymbolSpec spec, long[] prices, long[] quantities, int count) {
+        List<Level> levels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            levels.add(new Level(spec.toPrice(prices[i]), quantities[i]));
+        }
+        return levels;
+    }
+
+    // Same JSON shape the frontend has always received on /topic/trades
+    private Trade toTrade(Execution e) {
+        Trade trade = new Trade();
+        SymbolSpec spec = symbolRegistry.spec(e.symbolId());
+        trade.setId(e.tradeId());
+        trade.setTicker(spec.ticker());
+        trade.setPrice(spec.toPrice(e.price()));
+        trade.setQuantity((int) e.quantity());
+        trade.setBuyerId(e.buyerId());
+        trade.setSellerId(e.sellerId());
+        trade.setBuyerOrderId(e.buyerOrderId());
+        trade.setSellerOrderId(e.sellerOrderId());
+        trade.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(e.timestamp()), ZoneOffset.UTC));
+        return trade;
+    }
+}
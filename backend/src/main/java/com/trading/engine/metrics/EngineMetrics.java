@@ -0,0 +1,164 @@
+package com.trading.engine.metrics;
+
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Engine metrics, exposed through Micrometer (/actuator/prometheus).
+ *
+ * Stage latencies go into one HdrHistogram Recorder per {@link Stage}: recording is wait-free and
+ * allocation-free, so it is safe on the matching threads. Every window-seconds the recorders are
+ * rolled over and the gauges report the quantiles of the window that just closed:
+ *   engine_latency_seconds{stage, quantile}, engine_latency_max_seconds{stage}, engine_latency_count_total{stage}
+ * Per-ticker counters (engine_orders_total, engine_trades_total, engine_self_trades_total) and per-partition
+ * consumer lag (engine_kafka_consumer_lag) complete the picture.
+ */
+@Service
+public class EngineMetrics {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Value("${engine.metrics.window-seconds:10}")
+    private long windowSeconds;
+
+    private final Map<Stage, StageLatency> stages = new EnumMap<>(Stage.class);
+    private AtomicReferenceArray<Counter> ordersBySymbol;
+    private AtomicReferenceArray<Counter> tradesBySymbol;
+    private AtomicReferenceArray<Counter> selfTradesBySymbol;
+    private final Map<Integer, AtomicLong> lagByPartition = new ConcurrentHashMap<>();
+    private ScheduledExecutorService roller;
+
+    @PostConstruct
+    public void start() {
+        ordersBySymbol = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        tradesBySymbol = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        selfTradesBySymbol = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        for (Stage stage : Stage.values()) {
+            StageLatency latency = new StageLatency();
+            stages.put(stage, latency);
+
+            for (double q : QUANTILES) {
+                Gauge.builder("engine.latency", latency, l -> l.quantileSeconds(q))
+                        .tag("stage", stage.getTag()).tag("quantile", String.valueOf(q))
+                        .baseUnit("seconds").register(registry);
+            }
+            Gauge.builder("engine.latency.max", latency, StageLatency::maxSeconds)
+                    .tag("stage", stage.getTag()).baseUnit("seconds").register(registry);
+            FunctionCounter.builder("engine.latency.count", latency, StageLatency::count)
+                    .tag("stage", stage.getTag()).register(registry);
+        }
+
+        roller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-roller");
+            t.setDaemon(true);
+            return t;
+        });
+        roller.scheduleAtFixedRate(() -> stages.values().forEach(StageLatency::roll),
+                windowSeconds, windowSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        roller.shutdownNow();
+    }
+
+    // --- Called from hot paths ---
+
+    /**
+     * Records the time from {@code startNanos} (a {@link LatencyClock} stamp) until now.
+     */
+    public void record(Stage stage, long startNanos) {
+        recordNanos(stage, LatencyClock.now() - startNanos);
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        // Clock skew between nodes can make cross-node stages negative; outliers are capped, not dropped
+        stages.get(stage).recorder.recordValue(Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+    }
+
+    public void orderReceived(SymbolSpec symbol) {
+        counter(ordersBySymbol, "engine.orders", symbol).increment();
+    }
+
+    public void tradeExecuted(SymbolSpec symbol) {
+        counter(tradesBySymbol, "engine.trades", symbol).increment();
+    }
+
+    public void selfTradePrevented(SymbolSpec symbol) {
+        counter(selfTradesBySymbol, "engine.self.trades", symbol).increment();
+    }
+
+    // An array read once the symbol's counter exists; the registry hands back the same counter if two threads race
+    private Counter counter(AtomicReferenceArray<Counter> counters, String name, SymbolSpec symbol) {
+        Counter counter = counters.get(symbol.id());
+        if (counter == null) {
+            counter = registry.counter(name, "ticker", symbol.ticker());
+            counters.set(symbol.id(), counter);
+        }
+        return counter;
+    }
+
+    /**
+     * Records how many messages a partition's consumer is behind the end of the log.
+     */
+    public void consumerLag(int partition, long lag) {
+        lagByPartition.computeIfAbsent(partition, p -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("engine.kafka.consumer.lag", value, AtomicLong::get)
+                    .tag("partition", String.valueOf(p)).register(registry);
+            return value;
+        }).set(lag);
+    }
+
+    private static final class StageLatency {
+        final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        volatile Histogram window = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        volatile long count;
+
+        // Only the roller thread writes window and count
+        void roll() {
+            Histogram closed = recorder.getIntervalHistogram();
+            count += closed.getTotalCount();
+            window = closed;
+        }
+
+        double quantileSeconds(double quantile) {
+            return window.getValueAtPercentile(quantile * 100) / 1e9;
+        }
+
+        double maxSeconds() {
+            return window.getMaxValue() / 1e9;
+        }
+
+        double count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.trading.engine.metrics;
+
+/**
+ * Timestamps for latency measurement, in nanoseconds since the epoch.
+ *
+ * System.nanoTime() anchored to the wall clock once at startup: monotonic within a JVM,
+ * comparable across nodes to the accuracy of their clocks, and allocation-free.
+ */
+public final class LatencyClock {
+
+    private static final long OFFSET = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+    private LatencyClock() {
+    }
+
+    public static long now() {
+        return OFFSET + System.nanoTime();
+    }
+}
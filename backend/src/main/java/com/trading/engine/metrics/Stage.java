@@ -0,0 +1,25 @@
+package com.trading.engine.metrics;
+
+/**
+ * The steps an order goes through, each with its own latency histogram.
+ */
+public enum Stage {
+    GATEWAY("gateway"),       // REST validation and handing the order to the Kafka producer
+    TRANSPORT("transport"),   // ingress stamp -> received by the matching service (producer, broker, poll)
+    QUEUE("queue"),           // received -> owning shard's lock acquired
+    MATCH("match"),           // risk check, journal, matching, settlement and hand-offs
+    END_TO_END("end_to_end"), // ingress stamp -> engine done with the order
+    ROUND_TRIP("round_trip"), // ingress stamp -> the engine's execution report back at the gateway
+    PERSIST("persist"),       // write-behind batch: first event taken off the queue -> committed
+    BROADCAST("broadcast");   // trade executed -> sent to WebSocket subscribers (millisecond resolution)
+
+    private final String tag;
+
+    Stage(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,37 @@
+package com.trading.engine.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A completed OHLCV bar. Written in batches by the write-behind stage, read only to
+ * warm the in-memory candle series after a restart.
+ */
+@Data
+@Entity
+@Table(name = "candles", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"ticker", "bar_interval", "start_time"})
+})
+public class Candle {
+
+    // Assigned by the engine (IdGenerator), so inserts can be batched
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String ticker;
+
+    @Column(name = "bar_interval", nullable = false)
+    private String interval; // "1s", "1m", "5m", "1h"
+
+    @Column(nullable = false)
+    private LocalDateTime startTime;
+
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private Long volume;
+}
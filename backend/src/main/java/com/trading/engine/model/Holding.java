@@ -11,8 +11,8 @@ import java.math.BigDecimal;
 })
 public class Holding {
 
+    // Assigned by the engine (IdGenerator), so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
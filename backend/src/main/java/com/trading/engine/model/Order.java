@@ -7,11 +7,13 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_user_time", columnList = "user_id, timestamp, id")
+})
 public class Order {
 
+    // Assigned by the engine (IdGenerator), so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private Long userId;
@@ -20,19 +22,38 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private Type type; // Changed to use the inner enum
 
+    // Null for a market order: it trades at whatever the book offers and never rests
     private BigDecimal price;
     private Integer quantity;
 
+    // Only GTC orders ever rest, so only they reach this table; not a column
+    @Transient
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
+    // The client's own id for the order: a retry with the same one is answered, not placed again. Not a column
+    @Transient
+    private String clientOrderId;
+
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
     private LocalDateTime timestamp = LocalDateTime.now();
 
+    // Stamped at the REST gateway (LatencyClock) and carried through Kafka for latency metrics; not a column
+    @Transient
+    private long ingressNanos;
+
     // Inner Enum Definition (Required by OrderMatchingService)
     public enum Type {
         BUY, SELL
     }
 
+    public enum TimeInForce {
+        GTC, // rests until filled or cancelled
+        IOC, // fills what it can on arrival, the rest is cancelled
+        FOK  // fills completely on arrival or not at all
+    }
+
     public enum OrderStatus {
         PENDING, FILLED, CANCELLED
     }
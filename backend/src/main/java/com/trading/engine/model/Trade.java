@@ -7,11 +7,15 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "trades")
+// History pages walk these newest-first: (user, timestamp, id) matches the keyset ORDER BY
+@Table(name = "trades", indexes = {
+    @Index(name = "idx_trades_buyer_time", columnList = "buyer_id, timestamp, id"),
+    @Index(name = "idx_trades_seller_time", columnList = "seller_id, timestamp, id")
+})
 public class Trade {
 
+    // Assigned by the engine (IdGenerator), so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String ticker;
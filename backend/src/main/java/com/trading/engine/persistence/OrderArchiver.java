@@ -0,0 +1,146 @@
+package com.trading.engine.persistence;
+
+import com.trading.engine.replica.EngineRole;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the live orders table down to working orders.
+ *
+ * FILLED and CANCELLED orders are final: the engine never writes them again. Every interval-ms
+ * this job moves them, batch-size rows per statement, into orders_archive, which is range-partitioned
+ * by month on timestamp. A month's partition is created before the first row for it is moved, and
+ * old months can be detached or dropped whole. History reads both tables (HistoryService).
+ */
+@Service
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Hibernate doesn't manage partitioned tables or partial indexes, so they are created here
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS orders_archive (" +
+            "id BIGINT NOT NULL, user_id BIGINT, ticker VARCHAR(255), type VARCHAR(255), price NUMERIC(38,2), " +
+            "quantity INTEGER, status VARCHAR(255), timestamp TIMESTAMP(6) NOT NULL, " +
+            "PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_archive_user_time ON orders_archive (user_id, timestamp, id)",
+            // Finds the next batch to move without touching working orders
+            "CREATE INDEX IF NOT EXISTS idx_orders_terminal ON orders (timestamp) WHERE status IN ('FILLED', 'CANCELLED')"
+    };
+
+    private static final String OLDEST_TERMINAL =
+            "SELECT min(timestamp) FROM orders WHERE status IN ('FILLED', 'CANCELLED')";
+
+    // One statement, so a row is either still live or already archived, never both or neither
+    private static final String MOVE_TERMINAL =
+            "WITH moved AS (DELETE FROM orders WHERE id IN (" +
+            "SELECT id FROM orders WHERE status IN ('FILLED', 'CANCELLED') ORDER BY timestamp LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, user_id, ticker, type, price, quantity, status, timestamp) " +
+            "INSERT INTO orders_archive (id, user_id, ticker, type, price, quantity, status, timestamp) " +
+            "SELECT id, user_id, ticker, type, price, quantity, status, timestamp FROM moved";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private EngineRole role;
+
+    @Value("${engine.archive.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${engine.archive.batch-size:5000}")
+    private int batchSize;
+
+    private final Set<YearMonth> partitions = new HashSet<>(); // archiver thread only
+    private volatile boolean schemaReady;
+    private ScheduledExecutorService scheduler;
+    private Counter archived;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        archived = registry.counter("engine.orders.archived");
+        try {
+            // Up front, so history can read the archive before the first run
+            createSchema();
+        } catch (RuntimeException e) {
+            log.error("❌ Order archive schema not created yet", e);
+        }
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::compact, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void compact() {
+        // The primary owns the tables; a standby only starts archiving once promoted
+        if (role.isStandby()) return;
+        try {
+            if (!schemaReady) createSchema();
+
+            LocalDateTime oldest = jdbcTemplate.queryForObject(OLDEST_TERMINAL, LocalDateTime.class);
+            if (oldest == null) return;
+
+            // 1. Partitions for every month a terminal order can fall in (nothing newer than next month exists)
+            YearMonth last = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+            for (YearMonth month = YearMonth.from(oldest); !month.isAfter(last); month = month.plusMonths(1)) {
+                createPartition(month);
+            }
+
+            // 2. Move in batches, each its own short transaction, until a batch comes back short
+            int moved;
+            do {
+                moved = jdbcTemplate.update(MOVE_TERMINAL, batchSize);
+                archived.increment(moved);
+            } while (moved == batchSize && running);
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is never run again, so log and retry next interval
+            log.error("❌ Order archiving failed", e);
+        }
+    }
+
+    private void createSchema() {
+        for (String ddl : SCHEMA) jdbcTemplate.execute(ddl);
+        schemaReady = true;
+    }
+
+    private void createPartition(YearMonth month) {
+        if (partitions.contains(month)) return;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS orders_archive_" + month.format(PARTITION_SUFFIX) +
+                " PARTITION OF orders_archive FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        partitions.add(month);
+    }
+}
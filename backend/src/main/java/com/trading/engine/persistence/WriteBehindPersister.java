@@ -0,0 +1,539 @@
+package com.trading.engine.persistence;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.Execution;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.metrics.LatencyClock;
+import com.trading.engine.metrics.Stage;
+import com.trading.engine.model.Order;
+import com.trading.engine.service.IdGenerator;
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for everything the matching engine produces.
+ *
+ * Matching threads only enqueue events. A single writer thread coalesces them (latest row per
+ * order, latest balance per user, latest value per holding) and flushes them in JDBC batches
+ * inside one transaction, either when batch-size events have accumulated or when
+ * flush-interval-ms has passed.
+ *
+ * Matching never waits on the database: an event that finds the queue full is dropped and counted
+ * (engine.persistence.dropped), checkpoints stop advancing so the next recovery re-emits it from the
+ * journal, and {@link #isBacklogged()} tells the order entry to refuse new orders until the writer
+ * catches up. A batch the database refuses is written again one row at a time; rows it still refuses
+ * are dead-lettered to a file (engine.persistence.dead-lettered) instead of holding up the rest. While
+ * the database can't be reached at all, everything stays pending and the writer backs off.
+ *
+ * Settlement itself happens in the AccountLedger; this stage only writes its results.
+ * Ticks and cents only become BigDecimal, and symbol ids tickers, when the batch is bound to SQL.
+ *
+ * Each shard marks the journal sequence it has handed everything over for ({@link #journaled}); the
+ * batch that contains the mark records it in journal_checkpoints in the same transaction. What a crash
+ * loses from the queue comes after that sequence, and recovery re-emits it from the journal. Every write
+ * is keyed (trade id, order id, user, holding), so re-emitting a row that did arrive changes nothing.
+ */
+@Service
+public class WriteBehindPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindPersister.class);
+
+    private static final String INSERT_TRADE =
+            "INSERT INTO trades (id, ticker, price, quantity, buyer_id, seller_id, buyer_order_id, seller_order_id, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    private static final String UPSERT_ORDER =
+            "INSERT INTO orders (id, user_id, ticker, type, price, quantity, status, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET price = EXCLUDED.price, quantity = EXCLUDED.quantity, " +
+            "status = EXCLUDED.status, timestamp = EXCLUDED.timestamp";
+
+    private static final String UPDATE_BALANCE =
+            "UPDATE users SET balance = ? WHERE id = ?";
+
+    // A fully sold holding keeps its last average price
+    private static final String UPSERT_HOLDING =
+            "INSERT INTO holdings (id, user_id, ticker, quantity, average_price) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, ticker) DO UPDATE SET quantity = EXCLUDED.quantity, " +
+            "average_price = CASE WHEN EXCLUDED.quantity > 0 THEN EXCLUDED.average_price ELSE holdings.average_price END";
+
+    private static final String UPSERT_CANDLE =
+            "INSERT INTO candles (id, ticker, bar_interval, start_time, open, high, low, close, volume) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (ticker, bar_interval, start_time) DO UPDATE SET open = EXCLUDED.open, high = EXCLUDED.high, " +
+            "low = EXCLUDED.low, close = EXCLUDED.close, volume = EXCLUDED.volume";
+
+    private static final String CREATE_CHECKPOINTS =
+            "CREATE TABLE IF NOT EXISTS journal_checkpoints (partition_id INT PRIMARY KEY, sequence BIGINT NOT NULL)";
+
+    private static final String UPSERT_CHECKPOINT =
+            "INSERT INTO journal_checkpoints (partition_id, sequence) VALUES (?, ?) " +
+            "ON CONFLICT (partition_id) DO UPDATE SET sequence = GREATEST(journal_checkpoints.sequence, EXCLUDED.sequence)";
+
+    private static final String SELECT_CHECKPOINT =
+            "SELECT sequence FROM journal_checkpoints WHERE partition_id = ?";
+
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private EngineMetrics metrics;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${engine.persistence.batch-size:500}")
+    private int batchSize;
+
+    @Value("${engine.persistence.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${engine.persistence.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${engine.persistence.dead-letter-file:data/persistence-dead-letter.log}")
+    private String deadLetterFile;
+
+    private BlockingQueue<Object> queue;
+    private int backlogThreshold;
+    private Counter dropped;
+    private Counter deadLettered;
+    // Set once an event was dropped: its effects are only in the journal, so checkpoints must stay behind it
+    private volatile boolean overflowed;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean schemaReady;
+
+    // Per partition, the last journal sequence whose effects are in the database
+    private final Map<Integer, Long> persisted = new ConcurrentHashMap<>();
+
+    // --- Coalesced state, only touched by the writer thread ---
+    private final List<Execution> pendingTrades = new ArrayList<>();
+    private final Map<Long, OrderRow> pendingOrders = new LinkedHashMap<>();
+    private final Map<Long, BalanceRow> pendingBalances = new HashMap<>();
+    private final Map<HoldingKey, HoldingRow> pendingHoldings = new LinkedHashMap<>();
+    private final List<CandleRow> pendingCandles = new ArrayList<>();
+    private final Map<Integer, Checkpoint> pendingCheckpoints = new HashMap<>();
+    private int pendingEvents;
+    private long batchStarted; // LatencyClock stamp of the batch's first event
+    private long backoffNanos;
+    private long retryAt;      // System.nanoTime() before which a failed flush isn't retried
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        Gauge.builder("engine.persistence.queue", queue, BlockingQueue::size).register(registry);
+        backlogThreshold = queueCapacity / 10 * 9;
+        dropped = registry.counter("engine.persistence.dropped");
+        deadLettered = registry.counter("engine.persistence.dead-lettered");
+        running = true;
+        writer = new Thread(this::run, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // --- Called from matching threads ---
+
+    /**
+     * Records the current state of an order: FILLED once nothing is left, PENDING while it rests.
+     * Only the latest state per order id is written.
+     */
+    public void orderChanged(EngineOrder order) {
+        enqueue(OrderRow.of(order, order.getQuantity() == 0 ? Order.OrderStatus.FILLED : Order.OrderStatus.PENDING));
+    }
+
+    /**
+     * Records a cancelled order with the quantity it still had open. Terminal rows are moved
+     * out of the live table by the {@link OrderArchiver}.
+     */
+    public void orderCancelled(EngineOrder order) {
+        enqueue(OrderRow.of(order, Order.OrderStatus.CANCELLED));
+    }
+
+    /**
+     * Records a trade.
+     */
+    public void tradeExecuted(Execution execution) {
+        enqueue(execution);
+    }
+
+    /**
+     * Records a user's settled cash balance (cents). Only the latest value per user is written.
+     */
+    public void balanceChanged(long userId, long cash) {
+        enqueue(new BalanceRow(userId, cash));
+    }
+
+    /**
+     * Records a holding's settled quantity and cost basis (cents). Only the latest value is written.
+     */
+    public void holdingChanged(long userId, int symbolId, long holdingId, long quantity, long cost) {
+        enqueue(new HoldingRow(holdingId, userId, symbolId, quantity, cost));
+    }
+
+    /**
+     * Records a completed OHLCV bar (prices in ticks).
+     */
+    public void candleClosed(int symbolId, String interval, long start, long open, long high, long low, long close, long volume) {
+        enqueue(new CandleRow(symbolId, interval, start, open, high, low, close, volume));
+    }
+
+    /**
+     * Marks that the partition's shard has handed over everything up to this journal sequence.
+     */
+    public void journaled(int partition, long sequence) {
+        enqueue(new Checkpoint(partition, sequence));
+    }
+
+    /**
+     * The partition's last journal sequence whose effects are in the database: as this writer committed it,
+     * or as the primary reported it to a standby, or else as journal_checkpoints had it when first asked.
+     * 0 if unknown, which makes recovery re-emit everything the journal still holds.
+     */
+    public long persistedSequence(int partition) {
+        Long sequence = persisted.get(partition);
+        return sequence != null ? sequence : persisted.merge(partition, loadCheckpoint(partition), Math::max);
+    }
+
+    /**
+     * A standby learns how far the primary's writes have got (the primary owns the tables).
+     */
+    public void persistedByPrimary(int partition, long sequence) {
+        persisted.merge(partition, sequence, Math::max);
+    }
+
+    private long loadCheckpoint(int partition) {
+        try {
+            createSchema();
+            List<Long> sequence = jdbcTemplate.queryForList(SELECT_CHECKPOINT, Long.class, partition);
+            return sequence.isEmpty() ? 0 : sequence.get(0);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Write-behind: cannot read the checkpoint of partition {}", partition, e);
+            return 0;
+        }
+    }
+
+    private void createSchema() {
+        if (schemaReady) return;
+        jdbcTemplate.execute(CREATE_CHECKPOINTS);
+        schemaReady = true;
+    }
+
+    /**
+     * Whether the writer is so far behind (the database is slow or down) that new orders should wait.
+     */
+    public boolean isBacklogged() {
+        return queue.size() >= backlogThreshold;
+    }
+
+    // Never blocks a matching thread. A dropped event is still in the journal, and the checkpoint stays before it
+    private void enqueue(Object event) {
+        if (queue.offer(event)) return;
+        dropped.increment();
+        if (!overflowed) {
+            overflowed = true;
+            log.error("❌ Write-behind queue full ({} events), dropping events until restart re-emits them from the journal", queueCapacity);
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void run() {
+        List<Object> drained = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    apply(first);
+                    queue.drainTo(drained, batchSize);
+                    drained.forEach(this::apply);
+                    drained.clear();
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts us; the loop condition drains whatever is left
+            }
+
+            long now = System.nanoTime();
+            if (pendingEvents >= batchSize && now >= retryAt || now >= deadline) {
+                flush();
+                // After a failure, wait out the back-off before trying again
+                deadline = Math.max(System.nanoTime() + flushIntervalNanos, retryAt);
+            }
+        }
+        flush();
+    }
+
+    private void apply(Object event) {
+        if (pendingEvents == 0) batchStarted = LatencyClock.now();
+        if (event instanceof OrderRow row) {
+            pendingOrders.put(row.id(), row);
+        } else if (event instanceof Execution execution) {
+            pendingTrades.add(execution);
+        } else if (event instanceof BalanceRow balance) {
+            pendingBalances.put(balance.userId(), balance);
+        } else if (event instanceof HoldingRow holding) {
+            pendingHoldings.put(new HoldingKey(holding.userId(), holding.symbolId()), holding);
+        } else if (event instanceof CandleRow candle) {
+            pendingCandles.add(candle);
+        } else if (event instanceof Checkpoint checkpoint) {
+            if (!overflowed) pendingCheckpoints.merge(checkpoint.partition(), checkpoint, Checkpoint::later);
+        }
+        pendingEvents++;
+    }
+
+    private void flush() {
+        if (pendingEvents == 0) return;
+
+        try {
+            createSchema();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_TRADE, pendingTrades, batchSize, this::bindTrade);
+                jdbcTemplate.batchUpdate(UPSERT_ORDER, pendingOrders.values(), batchSize, this::bindOrder);
+                jdbcTemplate.batchUpdate(UPDATE_BALANCE, pendingBalances.values(), batchSize, this::bindBalance);
+                jdbcTemplate.batchUpdate(UPSERT_HOLDING, pendingHoldings.values(), batchSize, this::bindHolding);
+                jdbcTemplate.batchUpdate(UPSERT_CANDLE, pendingCandles, batchSize, this::bindCandle);
+                jdbcTemplate.batchUpdate(UPSERT_CHECKPOINT, pendingCheckpoints.values(), batchSize, this::bindCheckpoint);
+            });
+        } catch (RuntimeException e) {
+            if (!reachable()) {
+                // Nothing is wrong with the rows: keep them all and retry once the database is back
+                log.error("❌ Write-behind flush failed, database unreachable ({} events pending)", pendingEvents, e);
+                backOff();
+                return;
+            }
+            // Some row is refused: write them one by one so only the bad ones are set aside
+            log.error("❌ Write-behind batch refused ({} events), writing it row by row", pendingEvents, e);
+            if (!flushEach()) {
+                backOff();
+                return;
+            }
+        }
+
+        pendingTrades.clear();
+        pendingOrders.clear();
+        pendingBalances.clear();
+        pendingHoldings.clear();
+        pendingCandles.clear();
+        pendingCheckpoints.values().forEach(c -> persisted.merge(c.partition(), c.sequence(), Math::max));
+        pendingCheckpoints.clear();
+        pendingEvents = 0;
+        backoffNanos = 0;
+        metrics.record(Stage.PERSIST, batchStarted);
+    }
+
+    // Each row in its own statement, checkpoints last so they only cover rows that were written or set aside.
+    // Returns false, with what is left still pending, if the database stops answering part way
+    private boolean flushEach() {
+        boolean done = writeEach(INSERT_TRADE, pendingTrades, this::bindTrade)
+                && writeEach(UPSERT_ORDER, pendingOrders.values(), this::bindOrder)
+                && writeEach(UPDATE_BALANCE, pendingBalances.values(), this::bindBalance)
+                && writeEach(UPSERT_HOLDING, pendingHoldings.values(), this::bindHolding)
+                && writeEach(UPSERT_CANDLE, pendingCandles, this::bindCandle)
+                && writeEach(UPSERT_CHECKPOINT, pendingCheckpoints.values(), this::bindCheckpoint);
+        if (!done) {
+            pendingEvents = pendingTrades.size() + pendingOrders.size() + pendingBalances.size()
+                    + pendingHoldings.size() + pendingCandles.size() + pendingCheckpoints.size();
+        }
+        return done;
+    }
+
+    // Written and dead-lettered rows leave the collection
+    private <T> boolean writeEach(String sql, Collection<T> rows, ParameterizedPreparedStatementSetter<T> binder) {
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+            T row = it.next();
+            try {
+                jdbcTemplate.update(sql, ps -> binder.setValues(ps, row));
+                if (row instanceof Checkpoint c) persisted.merge(c.partition(), c.sequence(), Math::max);
+            } catch (RuntimeException e) {
+                if (!reachable()) return false;
+                deadLetter(row, e);
+            }
+            it.remove();
+        }
+        return true;
+    }
+
+    private boolean reachable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void backOff() {
+        backoffNanos = backoffNanos == 0 ? TimeUnit.MILLISECONDS.toNanos(flushIntervalMs)
+                : Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+        retryAt = System.nanoTime() + backoffNanos;
+    }
+
+    // One line per refused row, for replaying by hand once whatever it broke is fixed
+    private void deadLetter(Object row, RuntimeException e) {
+        deadLettered.increment();
+        log.error("❌ Write-behind dead-lettered {}", row, e);
+        Path file = Paths.get(deadLetterFile);
+        String line = Instant.now() + "\t" + row + "\t" + e.getMessage() + System.lineSeparator();
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Files.writeString(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException io) {
+            log.error("❌ Write-behind: cannot write dead letter to {}", file, io);
+        }
+    }
+
+    // --- Statement binding (ticks and cents become BigDecimal here) ---
+
+    private void bindTrade(PreparedStatement ps, Execution t) throws SQLException {
+        SymbolSpec spec = symbolRegistry.spec(t.symbolId());
+        ps.setLong(1, t.tradeId());
+        ps.setString(2, spec.ticker());
+        ps.setBigDecimal(3, spec.toPrice(t.price()));
+        ps.setLong(4, t.quantity());
+        ps.setLong(5, t.buyerId());
+        ps.setLong(6, t.sellerId());
+        ps.setLong(7, t.buyerOrderId());
+        ps.setLong(8, t.sellerOrderId());
+        ps.setObject(9, toDateTime(t.timestamp()));
+    }
+
+    private void bindOrder(PreparedStatement ps, OrderRow o) throws SQLException {
+        SymbolSpec spec = symbolRegistry.spec(o.symbolId());
+        ps.setLong(1, o.id());
+        ps.setLong(2, o.userId());
+        ps.setString(3, spec.ticker());
+        ps.setString(4, o.type().name());
+        ps.setBigDecimal(5, spec.toPrice(o.price()));
+        ps.setLong(6, o.quantity());
+        ps.setString(7, o.status().name());
+        ps.setObject(8, toDateTime(o.timestamp()));
+    }
+
+    private void bindBalance(PreparedStatement ps, BalanceRow b) throws SQLException {
+        ps.setBigDecimal(1, BigDecimal.valueOf(b.cash(), 2));
+        ps.setLong(2, b.userId());
+    }
+
+    private void bindHolding(PreparedStatement ps, HoldingRow h) throws SQLException {
+        ps.setLong(1, h.id());
+        ps.setLong(2, h.userId());
+        ps.setString(3, symbolRegistry.spec(h.symbolId()).ticker());
+        ps.setLong(4, h.quantity());
+        ps.setBigDecimal(5, h.averagePrice());
+    }
+
+    private void bindCandle(PreparedStatement ps, CandleRow c) throws SQLException {
+        SymbolSpec spec = symbolRegistry.spec(c.symbolId());
+        ps.setLong(1, idGenerator.nextId());
+        ps.setString(2, spec.ticker());
+        ps.setString(3, c.interval());
+        ps.setObject(4, toDateTime(c.start()));
+        ps.setBigDecimal(5, spec.toPrice(c.open()));
+        ps.setBigDecimal(6, spec.toPrice(c.high()));
+        ps.setBigDecimal(7, spec.toPrice(c.low()));
+        ps.setBigDecimal(8, spec.toPrice(c.close()));
+        ps.setLong(9, c.volume());
+    }
+
+    private void bindCheckpoint(PreparedStatement ps, Checkpoint c) throws SQLException {
+        ps.setInt(1, c.partition());
+        ps.setLong(2, c.sequence());
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    // Immutable copy of an order, taken on the matching thread (price in ticks)
+    private record OrderRow(long id, long userId, int symbolId, Order.Type type, long price,
+                            long quantity, Order.OrderStatus status, long timestamp) {
+
+        static OrderRow of(EngineOrder order, Order.OrderStatus status) {
+            return new OrderRow(order.getId(), order.getUserId(), order.getSymbolId(), order.getType(),
+                    order.getPrice(), order.getQuantity(), status, order.getTimestamp());
+        }
+    }
+
+    private record BalanceRow(long userId, long cash) {
+    }
+
+    private record HoldingRow(long id, long userId, int symbolId, long quantity, long cost) {
+
+        BigDecimal averagePrice() {
+            return quantity > 0
+                    ? BigDecimal.valueOf(cost, 2).divide(BigDecimal.valueOf(quantity), 2, RoundingMode.HALF_EVEN)
+                    : BigDecimal.ZERO;
+        }
+    }
+
+    private record HoldingKey(long userId, int symbolId) {
+    }
+
+    private record Checkpoint(int partition, long sequence) {
+
+        static Checkpoint later(Checkpoint a, Checkpoint b) {
+            return a.sequence() >= b.sequence() ? a : b;
+        }
+    }
+
+    private record CandleRow(int symbolId, String interval, long start, long open, long high, long low,
+                             long close, long volume) {
+    }
+}
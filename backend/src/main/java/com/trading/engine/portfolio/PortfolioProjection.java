@@ -0,0 +1,281 @@
+package com.trading.engine.portfolio;
+
+import com.trading.engine.book.Execution;
+import com.trading.engine.ledger.Account;
+import com.trading.engine.ledger.AccountLedger;
+import com.trading.engine.service.RedisService;
+import com.trading.engine.symbol.SymbolRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes portfolio changes to open dashboards on /topic/portfolio/{userId}, instead of each
+ * dashboard re-reading the user, its holdings and their prices on every trade.
+ *
+ * Only users somebody is subscribed to are tracked. A fill marks its buyer and seller dirty, a new
+ * last price marks everyone watched who holds that ticker dirty. Every interval-ms the projection
+ * thread reads each dirty user's account from the resident ledger (no database) and sends what
+ * changed since the last push, so a user costs nothing between changes and at most one message
+ * per interval however often it trades. Tickers are symbol ids until the message is built.
+ */
+@Service
+public class PortfolioProjection {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioProjection.class);
+
+    public static final String DESTINATION_PREFIX = "/topic/portfolio/";
+
+    @Autowired
+    private AccountLedger ledger;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${engine.portfolio.interval-ms:250}")
+    private long intervalMs;
+
+    // --- Subscriptions (clientInbound threads) ---
+    private final Map<String, Map<String, Long>> subscriptions = new ConcurrentHashMap<>(); // session -> subscription -> user
+    private final Map<Long, Integer> watchers = new ConcurrentHashMap<>();
+
+    // --- Handed to the projection thread ---
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<Long> needSnapshot = ConcurrentHashMap.newKeySet();
+    private final Set<Long> unwatched = ConcurrentHashMap.newKeySet();
+
+    // --- Projection thread only ---
+    private final Map<Long, Pushed> pushed = new HashMap<>();
+    private final Map<Integer, Set<Long>> holders = new HashMap<>(); // watched users with a position, per symbol id
+    private BigDecimal[] marks; // by symbol id
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        marks = new BigDecimal[symbolRegistry.capacity()];
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "portfolio");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // --- Called from the market-data thread ---
+
+    public void onTrade(Execution e) {
+        if (watchers.containsKey(e.buyerId())) dirty.add(e.buyerId());
+        if (watchers.containsKey(e.sellerId())) dirty.add(e.sellerId());
+    }
+
+    // --- STOMP subscriptions ---
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Long userId = userOf(headers.getDestination());
+        if (userId == null) return;
+
+        subscriptions.computeIfAbsent(headers.getSessionId(), s -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), userId);
+        watchers.merge(userId, 1, Integer::sum);
+        unwatched.remove(userId);
+        needSnapshot.add(userId);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> session = subscriptions.get(headers.getSessionId());
+        Long userId = session != null ? session.remove(headers.getSubscriptionId()) : null;
+        if (userId != null) unwatch(userId);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> session = subscriptions.remove(event.getSessionId());
+        if (session != null) session.values().forEach(this::unwatch);
+    }
+
+    private void unwatch(long userId) {
+        if (watchers.computeIfPresent(userId, (u, n) -> n > 1 ? n - 1 : null) == null) {
+            unwatched.add(userId);
+        }
+    }
+
+    private static Long userOf(String destination) {
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) return null;
+        try {
+            return Long.parseLong(destination.substring(DESTINATION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // --- Projection thread ---
+
+    private void publish() {
+        try {
+            for (Long userId : drain(unwatched)) {
+                if (!watchers.containsKey(userId)) forget(userId);
+            }
+
+            // 1. Held tickers whose last price moved (near-cache reads only, no Redis round trip)
+            for (Map.Entry<Integer, Set<Long>> e : holders.entrySet()) {
+                int symbolId = e.getKey();
+                BigDecimal price = redisService.getCachedPrice(symbolId);
+                if (price == null) continue;
+                BigDecimal previous = marks[symbolId];
+                marks[symbolId] = price;
+                if (previous == null || price.compareTo(previous) != 0) {
+                    dirty.addAll(e.getValue());
+                }
+            }
+
+            // 2. New subscribers get everything, other dirty users what changed
+            for (Long userId : drain(needSnapshot)) {
+                dirty.remove(userId);
+                push(userId, true);
+            }
+            for (Long userId : drain(dirty)) {
+                push(userId, false);
+            }
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is never run again, so log and carry on
+            log.error("❌ Portfolio publish failed", e);
+        }
+    }
+
+    private void push(long userId, boolean snapshot) {
+        if (!watchers.containsKey(userId)) return;
+        Account account = ledger.warm(userId);
+        if (account == null) return;
+
+        List<Holding> holdings = new ArrayList<>();
+        long cash = account.visit((symbolId, quantity, cost) -> holdings.add(new Holding(symbolId, quantity, cost)));
+
+        Pushed last = pushed.computeIfAbsent(userId, u -> new Pushed());
+        Map<Integer, Holding> current = new HashMap<>();
+        List<PortfolioUpdate.Position> changed = new ArrayList<>();
+        BigDecimal marketValue = BigDecimal.ZERO;
+        BigDecimal unrealizedPnl = BigDecimal.ZERO;
+
+        for (Holding h : holdings) {
+            Holding before = last.holdings.get(h.symbolId);
+            if (h.quantity == 0 && before == null) continue; // closed before we started watching
+
+            BigDecimal mark = mark(h.symbolId);
+            Holding now = new Holding(h.symbolId, h.quantity, h.cost, mark);
+            PortfolioUpdate.Position position = position(now);
+            if (h.quantity > 0) {
+                current.put(h.symbolId, now);
+                holders.computeIfAbsent(h.symbolId, t -> new HashSet<>()).add(userId);
+                marketValue = marketValue.add(position.marketValue());
+                unrealizedPnl = unrealizedPnl.add(position.unrealizedPnl());
+            } else {
+                Set<Long> users = holders.get(h.symbolId);
+                if (users != null && users.remove(userId) && users.isEmpty()) holders.remove(h.symbolId);
+            }
+            if (snapshot ? h.quantity > 0 : !now.equals(before)) changed.add(position);
+        }
+
+        if (!snapshot && changed.isEmpty() && cash == last.cash) return;
+        last.cash = cash;
+        last.holdings = current;
+
+        messagingTemplate.convertAndSend(DESTINATION_PREFIX + userId, new PortfolioUpdate(userId, snapshot,
+                BigDecimal.valueOf(cash, 2), marketValue, unrealizedPnl, changed, System.currentTimeMillis()));
+    }
+
+    // Last traded price; looked up in Redis once per ticker if this node hasn't seen a trade in it
+    private BigDecimal mark(int symbolId) {
+        BigDecimal mark = marks[symbolId];
+        if (mark == null) {
+            mark = redisService.getPrice(symbolId);
+            marks[symbolId] = mark;
+        }
+        return mark;
+    }
+
+    private PortfolioUpdate.Position position(Holding h) {
+        BigDecimal cost = BigDecimal.valueOf(h.cost, 2);
+        BigDecimal avgPrice = h.quantity > 0
+                ? cost.divide(BigDecimal.valueOf(h.quantity), 2, RoundingMode.HALF_EVEN)
+                : BigDecimal.ZERO;
+        // No trade yet: marked at cost, like the REST portfolio
+        BigDecimal currentPrice = h.mark != null ? h.mark : avgPrice;
+        BigDecimal marketValue = h.mark != null
+                ? currentPrice.multiply(BigDecimal.valueOf(h.quantity)).setScale(2, RoundingMode.HALF_EVEN)
+                : cost;
+        return new PortfolioUpdate.Position(symbolRegistry.spec(h.symbolId).ticker(), h.quantity, avgPrice, currentPrice,
+                marketValue, marketValue.subtract(cost));
+    }
+
+    private void forget(long userId) {
+        Pushed last = pushed.remove(userId);
+        if (last == null) return;
+        for (Integer symbolId : last.holdings.keySet()) {
+            Set<Long> users = holders.get(symbolId);
+            if (users != null && users.remove(userId) && users.isEmpty()) holders.remove(symbolId);
+        }
+    }
+
+    private static List<Long> drain(Set<Long> users) {
+        List<Long> drained = new ArrayList<>();
+        for (Iterator<Long> it = users.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    // What was last pushed to a user
+    private static final class Pushed {
+        long cash = Long.MIN_VALUE;
+        Map<Integer, Holding> holdings = new HashMap<>();
+    }
+
+    private record Holding(int symbolId, long quantity, long cost, BigDecimal mark) {
+
+        Holding(int symbolId, long quantity, long cost) {
+            this(symbolId, quantity, cost, null);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.trading.engine.portfolio;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A user's portfolio as pushed on /topic/portfolio/{userId}.
+ *
+ * The first message after subscribing is a snapshot (every position). After that, positions only
+ * lists those whose quantity, cost or mark changed; a position with quantity 0 was closed.
+ * The totals always describe the whole portfolio.
+ */
+public record PortfolioUpdate(long userId, boolean snapshot, BigDecimal balance, BigDecimal marketValue,
+                              BigDecimal unrealizedPnl, List<Position> positions, long timestamp) {
+
+    /**
+     * Marked to the last traded price, or to the average price if the ticker has no trade yet.
+     */
+    public record Position(String ticker, long quantity, BigDecimal avgPrice, BigDecimal currentPrice,
+                           BigDecimal marketValue, BigDecimal unrealizedPnl) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.trading.engine.replica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether this instance is the primary (consumes stock-orders, persists, acks, broadcasts) or a hot
+ * standby following the primary's journal (engine.role=standby). A standby becomes primary once,
+ * when it is promoted; there is no way back.
+ */
+@Component
+public class EngineRole {
+
+    private volatile boolean primary;
+
+    public EngineRole(@Value("${engine.role:primary}") String role) {
+        if (!role.equals("primary") && !role.equals("standby")) {
+            throw new IllegalArgumentException("engine.role must be primary or standby, got " + role);
+        }
+        this.primary = role.equals("primary");
+    }
+
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    public boolean isStandby() {
+        return !primary;
+    }
+
+    void promoted() {
+        primary = true;
+    }
+}
@@ -0,0 +1,148 @@
+package com.trading.engine.replica;
+
+import com.trading.engine.book.MatchingShard;
+import com.trading.engine.config.KafkaConfig;
+import com.trading.engine.journal.EventJournal;
+import com.trading.engine.persistence.WriteBehindPersister;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary side of hot-standby replication: ships every record the shards' journals commit to
+ * "engine-journal", one Kafka record per matched batch, on the same partition number as the shard.
+ *
+ * The value is the batch's journal records, byte for byte. Headers carry the journal sequence and
+ * the stock-orders offset the shard reached with the batch (rejected inputs leave no journal record
+ * but still move the offset), and, every checksum-every records, {@link MatchingShard#checksum()},
+ * which the standby compares with its own books at the same sequence. The journal sequence this
+ * node's database writes have reached goes with each record too, so a promoted standby knows from
+ * where the database may be missing what was matched.
+ */
+@Service
+public class JournalReplicator {
+
+    public static final String SEQUENCE_HEADER = "sequence";
+    public static final String OFFSET_HEADER = "offset";
+    public static final String CHECKSUM_HEADER = "checksum";
+    public static final String PERSISTED_HEADER = "persisted";
+
+    @Autowired
+    private ProducerFactory<Object, Object> producerFactory;
+
+    @Autowired
+    private EngineRole role;
+
+    @Autowired
+    private WriteBehindPersister persister;
+
+    @Value("${engine.replica.publish:true}")
+    private boolean enabled;
+
+    @Value("${engine.replica.checksum-every:10000}")
+    private long checksumEvery;
+
+    private DefaultKafkaProducerFactory<String, byte[]> journalProducerFactory;
+    private KafkaTemplate<String, byte[]> template;
+    private final Map<Integer, Outbox> outboxes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        // Same producer settings as the order path, but the values are already bytes
+        journalProducerFactory = new DefaultKafkaProducerFactory<>(producerFactory.getConfigurationProperties(),
+                new StringSerializer(), new ByteArraySerializer());
+        template = new KafkaTemplate<>(journalProducerFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        template.flush();
+        journalProducerFactory.destroy();
+    }
+
+    /**
+     * Starts capturing the shard's journal records. Called whenever this instance takes a shard.
+     */
+    public void attach(MatchingShard shard) {
+        Outbox outbox = new Outbox();
+        outboxes.put(shard.getPartition(), outbox);
+        shard.getJournal().setTap(outbox);
+    }
+
+    /**
+     * Sends what the shard journaled since the last call. Caller holds the shard's lock, at the end of a batch.
+     */
+    public void publish(MatchingShard shard) {
+        Outbox outbox = outboxes.get(shard.getPartition());
+        if (!isActive() || outbox == null) return;
+
+        long sequence = shard.getJournal().getLastSequence();
+        long offset = shard.getLastOffset();
+        if (outbox.size == 0 && offset == outbox.publishedOffset) return;
+
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(KafkaConfig.JOURNAL_TOPIC, shard.getPartition(),
+                null, outbox.drain());
+        record.headers().add(SEQUENCE_HEADER, toBytes(sequence)).add(OFFSET_HEADER, toBytes(offset))
+                .add(PERSISTED_HEADER, toBytes(persister.persistedSequence(shard.getPartition())));
+        if (sequence - outbox.checksumSequence >= checksumEvery) {
+            record.headers().add(CHECKSUM_HEADER, toBytes(shard.checksum()));
+            outbox.checksumSequence = sequence;
+        }
+        outbox.publishedOffset = offset;
+        template.send(record);
+    }
+
+    private boolean isActive() {
+        return enabled && role.isPrimary();
+    }
+
+    static byte[] toBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    // -1 if the header is missing
+    static long longHeader(Header header) {
+        return header != null ? ByteBuffer.wrap(header.value()).getLong() : -1;
+    }
+
+    /**
+     * One shard's records since its last publish. Written and drained on the shard's owning thread.
+     */
+    private final class Outbox implements EventJournal.Tap {
+
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+        private long publishedOffset = -1;
+        private long checksumSequence;
+
+        @Override
+        public void onRecord(ByteBuffer buffer, int offset, int length) {
+            if (!isActive()) return;
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+            buffer.get(offset, bytes, size, length);
+            size += length;
+        }
+
+        byte[] drain() {
+            byte[] batch = Arrays.copyOf(bytes, size);
+            size = 0;
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.trading.engine.replica;
+
+import com.trading.engine.config.KafkaConfig;
+import com.trading.engine.kafka.OrderConsumer;
+import com.trading.engine.service.OrderMatchingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standby side of hot-standby replication (engine.role=standby).
+ *
+ * Follows "engine-journal" from the beginning and applies each partition's records to its own
+ * shards as they arrive ({@link OrderMatchingService#applyReplicated}), so its books, journal and
+ * reservations stay a few milliseconds behind the primary's. Each checksum the primary sends is
+ * compared with the standby's books at the same sequence; a mismatch, a sequence that disagrees or
+ * a gap halts that partition and counts a divergence, and a diverged standby refuses to take over.
+ *
+ * {@link #promote()} drains what is left of the journal topic, makes this instance the primary and
+ * starts the stock-orders listener: the standby's journal is already in place, so the new primary
+ * recovers its shards from local disk (re-emitting what the old one hadn't written to the database)
+ * and only re-decides the orders the old one hadn't replicated yet. Promotion is manual (POST
+ * /api/replica/promote) unless engine.replica.failover-after-ms is set, in which case the standby
+ * promotes itself once the primary's consumer group has had no members for that long. That
+ * detection can't tell a dead primary from a partitioned one, so only enable it where a fenced-off
+ * primary can't keep writing.
+ */
+@Service
+public class StandbyReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(StandbyReplica.class);
+
+    @Autowired
+    private EngineRole role;
+
+    @Autowired
+    private OrderMatchingService matching;
+
+    @Autowired
+    private ConsumerFactory<Object, Object> consumerFactory;
+
+    @Autowired
+    private KafkaAdmin kafkaAdmin;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listeners;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${engine.replica.group-id:trading-standby}")
+    private String groupId;
+
+    @Value("${engine.replica.failover-after-ms:0}")
+    private long failoverAfterMs;
+
+    private final Set<Integer> diverged = ConcurrentHashMap.newKeySet();
+    private Counter divergences;
+    private Counter checksums;
+    private Thread follower;
+    private volatile Consumer<Object, Object> consumer;
+    private volatile boolean following;
+    private long primaryLastSeen; // follower thread only
+    private long primaryCheckedAt;
+
+    @PostConstruct
+    public void start() {
+        divergences = registry.counter("engine.replica.divergences");
+        checksums = registry.counter("engine.replica.checksums");
+        if (role.isPrimary()) return;
+
+        following = true;
+        follower = new Thread(this::follow, "replica");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopFollowing();
+    }
+
+    /**
+     * Makes this standby the primary. Returns each partition's last applied journal sequence.
+     */
+    public synchronized Map<Integer, Long> promote() {
+        if (role.isPrimary()) throw new IllegalStateException("This instance is already the primary");
+        if (!diverged.isEmpty()) {
+            throw new IllegalStateException("Standby diverged from the primary on partitions " + diverged + ", not taking over");
+        }
+        long started = System.nanoTime();
+
+        // 1. Stop following, then apply whatever the primary managed to replicate before it went away
+        try {
+            stopFollowing();
+            drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while taking over", e);
+        }
+
+        // 2. From here on this instance journals, persists, acks, broadcasts and replicates
+        role.promoted();
+        Map<Integer, Long> sequences = matching.takeOver();
+
+        // 3. Resume stock-orders from the old primary's committed offsets; the shards skip what they already hold
+        listeners.getListenerContainer(OrderConsumer.LISTENER_ID).start();
+
+        log.warn("⚠️ Standby promoted to primary in {} ms at journal sequences {}",
+                (System.nanoTime() - started) / 1_000_000, sequences);
+        return sequences;
+    }
+
+    public boolean isFollowing() {
+        return following;
+    }
+
+    public Set<Integer> getDiverged() {
+        return Set.copyOf(diverged);
+    }
+
+    public long getDivergences() {
+        return (long) divergences.count();
+    }
+
+    public long getChecksumsVerified() {
+        return (long) checksums.count();
+    }
+
+    // --- FOLLOWING ---
+
+    private void follow() {
+        try (Consumer<Object, Object> c = createConsumer()) {
+            consumer = c;
+            c.assign(journalPartitions(c));
+            while (following) {
+                apply(c.poll(Duration.ofMillis(100)));
+                c.commitSync();
+                if (failoverAfterMs > 0 && primaryGone()) {
+                    new Thread(this::promote, "replica-failover").start();
+                    return;
+                }
+            }
+        } catch (WakeupException e) {
+            // stopFollowing()
+        } catch (RuntimeException e) {
+            log.error("❌ Standby stopped following the primary", e);
+        } finally {
+            consumer = null;
+        }
+    }
+
+    // Whatever is in the topic now; the primary is gone (or about to be), so this ends
+    private void drain() {
+        try (Consumer<Object, Object> c = createConsumer()) {
+            List<TopicPartition> partitions = c.partitionsFor(KafkaConfig.JOURNAL_TOPIC).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition())).toList();
+            c.assign(partitions);
+            Map<TopicPartition, Long> end = c.endOffsets(partitions);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (partitions.stream().anyMatch(tp -> c.position(tp) < end.get(tp)) && System.nanoTime() < deadline) {
+                apply(c.poll(Duration.ofMillis(50)));
+            }
+            c.commitSync();
+        }
+    }
+
+    private void apply(ConsumerRecords<Object, Object> records) {
+        for (ConsumerRecord<Object, Object> record : records) {
+            int partition = record.partition();
+            if (diverged.contains(partition)) continue;
+
+            try {
+                matching.applyReplicated(partition, ByteBuffer.wrap((byte[]) record.value()),
+                        JournalReplicator.longHeader(record.headers().lastHeader(JournalReplicator.OFFSET_HEADER)),
+                        JournalReplicator.longHeader(record.headers().lastHeader(JournalReplicator.PERSISTED_HEADER)));
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                diverge(partition, e.getMessage());
+                continue;
+            }
+
+            // Same sequence, same books: the primary's checksum was taken right after these records
+            long sequence = JournalReplicator.longHeader(record.headers().lastHeader(JournalReplicator.SEQUENCE_HEADER));
+            long applied = matching.lastSequence(partition);
+            if (sequence >= 0 && sequence != applied) {
+                diverge(partition, "primary is at sequence " + sequence + ", standby at " + applied);
+                continue;
+            }
+            long expected = JournalReplicator.longHeader(record.headers().lastHeader(JournalReplicator.CHECKSUM_HEADER));
+            if (expected != -1) {
+                long actual = matching.checksum(partition);
+                if (actual != expected) {
+                    diverge(partition, String.format("book checksum %016x at sequence %d, primary has %016x", actual, applied, expected));
+                } else {
+                    checksums.increment();
+                }
+            }
+        }
+    }
+
+    private void diverge(int partition, String why) {
+        diverged.add(partition);
+        divergences.increment();
+        log.error("❌ Standby diverged from the primary on partition {}, no longer applying it: {}", partition, why);
+    }
+
+    private Consumer<Object, Object> createConsumer() {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return consumerFactory.createConsumer(groupId, null, null, overrides);
+    }
+
+    // Waits for the primary to create the topic (or for stopFollowing())
+    private List<TopicPartition> journalPartitions(Consumer<Object, Object> c) {
+        while (true) {
+            List<PartitionInfo> infos = c.partitionsFor(KafkaConfig.JOURNAL_TOPIC);
+            if (infos != null && !infos.isEmpty()) {
+                return infos.stream().map(p -> new TopicPartition(p.topic(), p.partition())).toList();
+            }
+            if (!following) throw new WakeupException();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WakeupException();
+            }
+        }
+    }
+
+    private void stopFollowing() throws InterruptedException {
+        following = false;
+        Consumer<Object, Object> c = consumer;
+        if (c != null) c.wakeup();
+        if (follower != null && Thread.currentThread() != follower) follower.join(5000);
+    }
+
+    // --- AUTOMATIC FAILOVER (opt-in) ---
+
+    // True once the primary's consumer group, seen with members before, has been empty for failover-after-ms.
+    // Asked at most a few times per failover window
+    private boolean primaryGone() {
+        long now = System.currentTimeMillis();
+        if (now - primaryCheckedAt < Math.min(1000, failoverAfterMs / 4)) return false;
+        primaryCheckedAt = now;
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            ConsumerGroupDescription group = admin.describeConsumerGroups(List.of(OrderConsumer.GROUP_ID))
+                    .all().get(1, TimeUnit.SECONDS).get(OrderConsumer.GROUP_ID);
+            if (!group.members().isEmpty()) {
+                primaryLastSeen = now;
+                return false;
+            }
+        } catch (Exception e) {
+            // Broker unreachable: no evidence either way
+            return false;
+        }
+        return primaryLastSeen > 0 && now - primaryLastSeen >= failoverAfterMs;
+    }
+}
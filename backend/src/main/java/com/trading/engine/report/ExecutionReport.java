@@ -0,0 +1,24 @@
+package com.trading.engine.report;
+
+import com.trading.engine.ledger.RejectReason;
+
+import java.math.BigDecimal;
+
+/**
+ * The engine's answer to one order placed through the gateway, sent once it is done with the order:
+ * what filled on arrival and what became of the rest. Reason is set when rejected or cancelled by the
+ * engine; orderId is 0 when rejected (it never got an engine id). Average price is null if nothing filled.
+ * Later fills of a resting order go to /topic/trades and /topic/orders/{userId} as before.
+ */
+public record ExecutionReport(String clientOrderId, long orderId, long userId, String ticker, Status status,
+                              RejectReason reason, long filledQuantity, long leavesQuantity, BigDecimal averagePrice,
+                              long timestamp) {
+
+    public enum Status {
+        NEW,              // resting, nothing filled yet
+        PARTIALLY_FILLED, // resting with the rest
+        FILLED,
+        CANCELLED,        // market, IOC and FOK remainders, self-trade prevention
+        REJECTED
+    }
+}
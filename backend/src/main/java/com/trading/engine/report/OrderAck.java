@@ -0,0 +1,15 @@
+package com.trading.engine.report;
+
+import com.trading.engine.ledger.RejectReason;
+
+/**
+ * The engine's answer to an order, cancel or replace request. Reason is only set when rejected, or
+ * when the engine itself cancelled the order; orderId is 0 when a new order is rejected (it never got
+ * an engine id).
+ */
+public record OrderAck(long orderId, long userId, String ticker, Status status, RejectReason reason, long timestamp) {
+
+    public enum Status {
+        ACCEPTED, CANCELLED, REPLACED, REJECTED
+    }
+}
@@ -0,0 +1,149 @@
+package com.trading.engine.report;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.codec.ReportMessage;
+import com.trading.engine.config.KafkaConfig;
+import com.trading.engine.ledger.RejectReason;
+import com.trading.engine.service.IdGenerator;
+import com.trading.engine.symbol.SymbolRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends order acks/rejects to their owner on /topic/orders/{userId}, and execution reports for orders
+ * placed through a gateway to "engine-reports", on the partition the waiting gateway node reads.
+ *
+ * Matching threads only enqueue; a single thread does the serialization and the send.
+ * Acks are notifications (the book and the database are the truth), so when the queue is full
+ * they are dropped rather than ever making matching wait. So are reports: the gateway times out
+ * and the client finds the order in its history.
+ */
+@Service
+public class OrderAckPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAckPublisher.class);
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${engine.reports.partitions:8}")
+    private int reportPartitions;
+
+    @Value("${engine.acks.queue-capacity:100000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Object> queue; // OrderAcks and ReportMessages
+    private Thread sender;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        sender = new Thread(this::run, "order-acks");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        sender.interrupt();
+        sender.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // --- Called from matching threads (never blocks) ---
+
+    public void accepted(EngineOrder order) {
+        publish(order, OrderAck.Status.ACCEPTED);
+    }
+
+    public void cancelled(EngineOrder order) {
+        publish(order, OrderAck.Status.CANCELLED);
+    }
+
+    // Cancelled by the engine, not at the owner's request
+    public void cancelled(EngineOrder order, RejectReason reason) {
+        publish(new OrderAck(order.getId(), order.getUserId(), ticker(order), OrderAck.Status.CANCELLED, reason,
+                System.currentTimeMillis()));
+    }
+
+    public void replaced(EngineOrder order) {
+        publish(order, OrderAck.Status.REPLACED);
+    }
+
+    public void rejected(long orderId, long userId, String ticker, RejectReason reason) {
+        publish(new OrderAck(orderId, userId, ticker, OrderAck.Status.REJECTED, reason, System.currentTimeMillis()));
+    }
+
+    // --- Execution reports for gateway requests (called from matching threads, never blocks) ---
+
+    /**
+     * What the engine did with an order on arrival. Filled notional is in cents.
+     */
+    public void report(long requestId, EngineOrder order, ExecutionReport.Status status, RejectReason reason,
+                       long filledQuantity, long filledNotional, long leavesQuantity) {
+        publish(ReportMessage.encode(requestId, order.getId(), order.getUserId(), symbolRegistry.spec(order.getSymbolId()).code(),
+                status, reason, filledQuantity, leavesQuantity, filledNotional, System.currentTimeMillis()));
+    }
+
+    public void reportRejected(long requestId, long userId, long tickerCode, RejectReason reason) {
+        publish(ReportMessage.encode(requestId, 0, userId, tickerCode, ExecutionReport.Status.REJECTED, reason,
+                0, 0, 0, System.currentTimeMillis()));
+    }
+
+    private void publish(EngineOrder order, OrderAck.Status status) {
+        publish(new OrderAck(order.getId(), order.getUserId(), ticker(order), status, null, System.currentTimeMillis()));
+    }
+
+    private String ticker(EngineOrder order) {
+        return symbolRegistry.spec(order.getSymbolId()).ticker();
+    }
+
+    private void publish(Object ackOrReport) {
+        if (!queue.offer(ackOrReport)) {
+            long count = dropped.incrementAndGet();
+            if (count % 10_000 == 1) log.warn("⚠️ Ack queue full, dropping acks ({} so far)", count);
+        }
+    }
+
+    // --- Sender thread ---
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Object next = queue.take();
+                if (next instanceof OrderAck ack) {
+                    messagingTemplate.convertAndSend("/topic/orders/" + ack.userId(), ack);
+                } else if (next instanceof ReportMessage report) {
+                    // The gateway that sent the order reads partition node-id % partitions
+                    int partition = IdGenerator.nodeOf(report.getRequestId()) % reportPartitions;
+                    kafkaTemplate.send(KafkaConfig.REPORT_TOPIC, partition, null, report);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts us; the loop condition sends whatever is left
+            } catch (RuntimeException e) {
+                log.error("❌ Ack publish failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.trading.engine.repository;
+
+import com.trading.engine.model.Candle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface CandleRepository extends JpaRepository<Candle, Long> {
+    // Newest bars first (used once per series to warm the ring buffer after a restart)
+    List<Candle> findByTickerAndIntervalOrderByStartTimeDesc(String ticker, String interval, Pageable pageable);
+}
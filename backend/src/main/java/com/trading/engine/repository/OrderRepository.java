@@ -1,28 +1,22 @@
 package com.trading.engine.repository;
 
+import com.trading.engine.history.OrderView;
 import com.trading.engine.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.math.BigDecimal;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    
-    // Find SELL orders that are CHEAPER than or equal to my BUY price (Best Price First)
-    List<Order> findByTickerAndTypeAndPriceLessThanEqualOrderByPriceAsc(
-        String ticker, 
-        Order.Type type, 
-        BigDecimal price
-    );
-
-    // Find BUY orders that are HIGHER than or equal to my SELL price (Best Price First)
-    List<Order> findByTickerAndTypeAndPriceGreaterThanEqualOrderByPriceDesc(
-        String ticker, 
-        Order.Type type, 
-        BigDecimal price
-    );
-
 
-    // --- NEW METHOD: FILTER COMPLETED ORDERS ---
-    // Only return orders that still have stocks left to trade (Quantity > 0)
-    List<Order> findByUserIdAndQuantityGreaterThan(Long userId, int quantity);
-}
\ No newline at end of file
+    // A user's orders in one status (live table only), newest first, one keyset page at a time
+    @Query("select new com.trading.engine.history.OrderView(o.id, o.ticker, o.type, o.price, o.quantity, o.status, o.timestamp) " +
+           "from Order o where o.userId = :userId and o.status = :status " +
+           "and (o.timestamp < :timestamp or (o.timestamp = :timestamp and o.id < :id)) " +
+           "order by o.timestamp desc, o.id desc")
+    List<OrderView> findByStatusBefore(@Param("userId") Long userId, @Param("status") Order.OrderStatus status,
+                                       @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Pageable limit);
+}
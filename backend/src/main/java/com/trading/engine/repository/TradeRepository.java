@@ -1,10 +1,29 @@
 package com.trading.engine.repository;
 
+import com.trading.engine.history.TradeView;
 import com.trading.engine.model.Trade;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.List; // <--- THIS WAS MISSING
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface TradeRepository extends JpaRepository<Trade, Long> {
-    // Finds all trades where the user was EITHER the buyer OR the seller
-    List<Trade> findByBuyerIdOrSellerId(Long buyerId, Long sellerId);
-}
\ No newline at end of file
+
+    // Keyset pages, newest first: one query per side so each walks its own (user, timestamp, id) index.
+    // "buyer OR seller" in a single query can't use either index for the ORDER BY.
+
+    @Query("select new com.trading.engine.history.TradeView(t.id, t.ticker, t.price, t.quantity, t.buyerId, t.sellerId, t.timestamp) " +
+           "from Trade t where t.buyerId = :userId and (t.timestamp < :timestamp or (t.timestamp = :timestamp and t.id < :id)) " +
+           "order by t.timestamp desc, t.id desc")
+    List<TradeView> findBuysBefore(@Param("userId") Long userId, @Param("timestamp") LocalDateTime timestamp,
+                                   @Param("id") Long id, Pageable limit);
+
+    @Query("select new com.trading.engine.history.TradeView(t.id, t.ticker, t.price, t.quantity, t.buyerId, t.sellerId, t.timestamp) " +
+           "from Trade t where t.sellerId = :userId and (t.timestamp < :timestamp or (t.timestamp = :timestamp and t.id < :id)) " +
+           "order by t.timestamp desc, t.id desc")
+    List<TradeView> findSellsBefore(@Param("userId") Long userId, @Param("timestamp") LocalDateTime timestamp,
+                                    @Param("id") Long id, Pageable limit);
+}
@@ -0,0 +1,82 @@
+package com.trading.engine.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One matching thread: runs the tasks in its inbox one at a time, in the order they were submitted.
+ * Spins briefly when the inbox runs dry (a batch usually follows within microseconds under load),
+ * then parks until a producer wakes it.
+ */
+final class EventLoop {
+
+    private static final int SPINS = 1_000;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int index;
+    private final MpscQueue<Runnable> inbox;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    // Time spent running tasks; written by this loop's thread only
+    private volatile long busyNanos;
+
+    EventLoop(int index, int queueSize) {
+        this.index = index;
+        this.inbox = new MpscQueue<>(queueSize);
+        this.thread = new Thread(this::run, "matching-loop-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    long getBusyNanos() {
+        return busyNanos;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Any thread. A full inbox pushes back on the caller (the Kafka consumer thread) until there is room.
+     */
+    void submit(Runnable task) {
+        while (!inbox.offer(task)) {
+            LockSupport.unpark(thread);
+            Thread.yield(); // let the loop run if it shares this core
+        }
+        // parked is set before the loop's last look at the inbox, so either it sees this task or we see it parked
+        if (parked) LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        int idle = 0;
+        while (running) {
+            Runnable task = inbox.poll();
+            if (task == null) {
+                if (++idle < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    if (inbox.isEmpty() && running) LockSupport.parkNanos(PARK_NANOS);
+                    parked = false;
+                }
+                continue;
+            }
+            idle = 0;
+            long started = System.nanoTime();
+            task.run();
+            busyNanos += System.nanoTime() - started;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.trading.engine.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer (an event loop's inbox).
+ *
+ * A ring of slots, each with a sequence number saying whose turn it is: producers claim a position
+ * with one CAS on the tail and publish the element by advancing the slot's sequence; the consumer
+ * takes it when the sequence says it is full and hands the slot back a lap later. No locks and, once
+ * constructed, no allocation. With a single producer the CAS never fails, so it serves as an SPSC
+ * queue as well.
+ */
+public final class MpscQueue<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // next position to claim (producers)
+    private long head; // next position to take (consumer only)
+
+    public MpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        elements = new Object[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    /**
+     * Any thread. Returns false if the queue is full.
+     */
+    public boolean offer(E element) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (sequence < position) {
+                return false; // the consumer hasn't freed this slot from the previous lap
+            }
+            // else another producer claimed the position first: retry with the new tail
+        }
+        elements[slot] = element;
+        sequences.lazySet(slot, position + 1); // publishes the element to the consumer
+        return true;
+    }
+
+    /**
+     * Consumer thread only. Returns null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) return null;
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        sequences.lazySet(slot, head + elements.length); // free for the producers' next lap
+        head++;
+        return element;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,220 @@
+package com.trading.engine.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs matching on a fixed pool of single-threaded event loops, decoupled from the Kafka consumer
+ * threads that poll stock-orders.
+ *
+ * The unit of scheduling is a symbol group: the tickers of one stock-orders partition, which share a
+ * matching shard (books, journal, snapshots, committed offset). Each group lives on one loop, so its
+ * tickers are matched in offset order by one thread at a time. Consumer threads hand each partition's
+ * run of a poll to its group's loop and wait for the whole poll, so offsets are still committed only
+ * after matching, and the groups of one poll are matched in parallel.
+ *
+ * Every rebalance-interval-ms the scheduler measures the time each group spent matching. When the
+ * busiest loop was busy for more than rebalance-threshold of the interval, its colder groups move to
+ * the least busy loops (the hot group stays put), as long as each move lowers the busiest load. A
+ * group has nothing queued or running between two polls of its partition (its consumer thread is
+ * waiting on it or hasn't submitted yet), so a move takes effect at that boundary and never
+ * reorders a ticker's orders. A single hot ticker still runs on one core; the groups it shared a
+ * loop with no longer queue behind it. More partitions mean smaller groups to balance.
+ */
+@Service
+public class SymbolScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolScheduler.class);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${engine.matching.loops:4}")
+    private int loopCount;
+
+    @Value("${engine.matching.loop-queue-size:1024}")
+    private int queueSize;
+
+    @Value("${engine.matching.rebalance-interval-ms:1000}")
+    private long rebalanceIntervalMs;
+
+    @Value("${engine.matching.rebalance-threshold:0.7}")
+    private double rebalanceThreshold;
+
+    private final List<EventLoop> loops = new ArrayList<>();
+    private final Map<Integer, Group> groups = new ConcurrentHashMap<>();
+    private final Map<EventLoop, Double> utilization = new ConcurrentHashMap<>();
+    private ScheduledExecutorService rebalancer;
+    private Counter migrations;
+
+    // Rebalancer thread only
+    private final Map<EventLoop, Long> loopBusy = new HashMap<>();
+    private long lastRebalance;
+
+    @PostConstruct
+    public void start() {
+        migrations = registry.counter("engine.matching.migrations");
+        for (int i = 0; i < loopCount; i++) {
+            EventLoop loop = new EventLoop(i, queueSize);
+            loops.add(loop);
+            utilization.put(loop, 0.0);
+            Gauge.builder("engine.matching.loop.utilization", utilization, u -> u.get(loop))
+                    .tag("loop", String.valueOf(i)).register(registry);
+            loop.start();
+        }
+
+        lastRebalance = System.nanoTime();
+        rebalancer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "symbol-rebalancer");
+            t.setDaemon(true);
+            return t;
+        });
+        rebalancer.scheduleWithFixedDelay(this::rebalance, rebalanceIntervalMs, rebalanceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        rebalancer.shutdownNow();
+        for (EventLoop loop : loops) loop.stop();
+    }
+
+    /**
+     * Runs each partition's task on its group's loop and returns once all of them have finished.
+     * Rethrows the first failure. Each partition must only ever be submitted by one thread at a time
+     * (Kafka's partition ownership guarantees it for the consumer threads).
+     */
+    public void execute(Map<Integer, Runnable> tasks) {
+        CountDownLatch done = new CountDownLatch(tasks.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        tasks.forEach((partition, task) -> {
+            Group group = groups.computeIfAbsent(partition, this::place);
+            group.owner.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    group.busyNanos += System.nanoTime() - started;
+                    done.countDown();
+                }
+            });
+        });
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for matching", e);
+        }
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException e) throw e;
+        if (t instanceof Error e) throw e;
+        if (t != null) throw new IllegalStateException(t);
+    }
+
+    /**
+     * Which loop a partition's symbols currently run on, or -1 if it hasn't been scheduled yet.
+     */
+    public int loopOf(int partition) {
+        Group group = groups.get(partition);
+        return group != null ? group.owner.getIndex() : -1;
+    }
+
+    // A new group goes to the loop with the fewest groups
+    private Group place(int partition) {
+        Map<EventLoop, Integer> counts = new HashMap<>();
+        loops.forEach(loop -> counts.put(loop, 0));
+        groups.values().forEach(g -> counts.merge(g.owner, 1, Integer::sum));
+        EventLoop loop = loops.stream().min(Comparator.comparing(counts::get)).orElseThrow();
+        return new Group(partition, loop);
+    }
+
+    // --- REBALANCING ---
+
+    private void rebalance() {
+        try {
+            long now = System.nanoTime();
+            long window = now - lastRebalance;
+            lastRebalance = now;
+
+            // 1. What each group and each loop spent matching over the last interval
+            Map<EventLoop, Long> load = new HashMap<>();
+            for (EventLoop loop : loops) {
+                long busy = loop.getBusyNanos();
+                load.put(loop, 0L);
+                utilization.put(loop, (busy - loopBusy.getOrDefault(loop, busy)) / (double) window);
+                loopBusy.put(loop, busy);
+            }
+            List<Group> snapshot = new ArrayList<>(groups.values());
+            for (Group g : snapshot) {
+                long busy = g.busyNanos;
+                g.load = busy - g.lastBusy;
+                g.lastBusy = busy;
+                load.merge(g.owner, g.load, Long::sum);
+            }
+
+            // 2. Only an overloaded loop sheds groups
+            EventLoop hottest = loops.stream().max(Comparator.comparing(load::get)).orElseThrow();
+            if (load.get(hottest) < rebalanceThreshold * window) return;
+
+            // 3. Its colder groups go to the least busy loops while that lowers its load; the hottest group stays
+            List<Group> candidates = snapshot.stream()
+                    .filter(g -> g.owner == hottest)
+                    .sorted(Comparator.comparingLong((Group g) -> g.load).reversed())
+                    .toList();
+            for (Group g : candidates.subList(Math.min(1, candidates.size()), candidates.size())) {
+                EventLoop coolest = loops.stream().min(Comparator.comparing(load::get)).orElseThrow();
+                if (load.get(coolest) + g.load >= load.get(hottest) - g.load) continue;
+
+                g.owner = coolest;
+                load.merge(hottest, -g.load, Long::sum);
+                load.merge(coolest, g.load, Long::sum);
+                migrations.increment();
+                log.info("Moved partition {}'s symbols from matching loop {} to {} ({} ms busy in the last {} ms)",
+                        g.partition, hottest.getIndex(), coolest.getIndex(), g.load / 1_000_000, window / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is never run again
+            log.error("❌ Symbol rebalancing failed", e);
+        }
+    }
+
+    /**
+     * The symbols of one stock-orders partition.
+     */
+    private static final class Group {
+
+        private final int partition;
+        private volatile EventLoop owner; // read when a poll is submitted, changed by the rebalancer
+        private volatile long busyNanos; // written by whichever loop runs the group (one at a time)
+        private long lastBusy; // rebalancer thread only
+        private long load;
+
+        Group(int partition, EventLoop owner) {
+            this.partition = partition;
+            this.owner = owner;
+        }
+    }
+}
@@ -1,147 +1,741 @@
 package com.trading.engine.service;
 
-import com.trading.engine.model.Holding;
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.Execution;
+import com.trading.engine.book.MatchingShard;
+import com.trading.engine.book.OrderBook;
+import com.trading.engine.book.OrderPool;
+import com.trading.engine.book.SelfTradePrevention;
+import com.trading.engine.codec.CancelMessage;
+import com.trading.engine.codec.EngineMessage;
+import com.trading.engine.codec.OrderMessage;
+import com.trading.engine.codec.ReplaceMessage;
+import com.trading.engine.journal.EventJournal;
+import com.trading.engine.kafka.OrderProducer;
+import com.trading.engine.journal.SnapshotStore;
+import com.trading.engine.ledger.Account;
+import com.trading.engine.ledger.AccountLedger;
+import com.trading.engine.ledger.RejectReason;
+import com.trading.engine.ledger.Settlement;
+import com.trading.engine.marketdata.MarketDataPublisher;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.metrics.LatencyClock;
+import com.trading.engine.metrics.Stage;
 import com.trading.engine.model.Order;
-import com.trading.engine.model.Trade;
-import com.trading.engine.model.User;
-import com.trading.engine.repository.HoldingRepository;
-import com.trading.engine.repository.OrderRepository;
-import com.trading.engine.repository.TradeRepository;
-import com.trading.engine.repository.UserRepository;
+import com.trading.engine.persistence.WriteBehindPersister;
+import com.trading.engine.replica.EngineRole;
+import com.trading.engine.replica.JournalReplicator;
+import com.trading.engine.report.ExecutionReport;
+import com.trading.engine.report.OrderAckPublisher;
+import com.trading.engine.symbol.SymbolRegistry;
+import com.trading.engine.symbol.SymbolSpec;
+import com.trading.engine.symbol.SymbolStatus;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 @Service
 public class OrderMatchingService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderMatchingService.class);
+
+    @Autowired
+    private WriteBehindPersister persister;
+
     @Autowired
-    private OrderRepository orderRepository;
+    private AccountLedger ledger;
 
     @Autowired
-    private TradeRepository tradeRepository;
-    
+    private IdGenerator idGenerator;
+
     @Autowired
-    private UserRepository userRepository;
-    
+    private SymbolRegistry symbolRegistry;
+
     @Autowired
-    private HoldingRepository holdingRepository;
+    private MarketDataPublisher marketData;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private EngineMetrics metrics;
 
     @Autowired
-    private RedisService redisService; // <--- NEW: Redis Injection
-
-    @Transactional
-    public void processOrder(Order newOrder) {
-        // 1. Save the new order to DB
-        orderRepository.save(newOrder);
-
-        // 2. Find matching orders (Simple Price Priority)
-        // BUY looks for cheap SELLS. SELL looks for expensive BUYS.
-        List<Order> matchingOrders;
-        if (newOrder.getType() == Order.Type.BUY) {
-            matchingOrders = orderRepository.findByTickerAndTypeAndPriceLessThanEqualOrderByPriceAsc(
-                    newOrder.getTicker(), Order.Type.SELL, newOrder.getPrice());
-        } else {
-            matchingOrders = orderRepository.findByTickerAndTypeAndPriceGreaterThanEqualOrderByPriceDesc(
-                    newOrder.getTicker(), Order.Type.BUY, newOrder.getPrice());
+    private OrderAckPublisher acks;
+
+    @Autowired
+    private EngineRole role;
+
+    @Autowired
+    private JournalReplicator replicator;
+
+    @Value("${engine.journal.dir:data/journal}")
+    private String journalDir;
+
+    @Value("${engine.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${engine.journal.snapshot-every:100000}")
+    private long snapshotEvery;
+
+    @Value("${engine.matching.order-pool-size:16384}")
+    private int orderPoolSize;
+
+    // Part of matching: recovery and standbys replay the journal with it, so it must not change under a journal
+    @Value("${engine.matching.self-trade-prevention:CANCEL_NEWEST}")
+    private SelfTradePrevention selfTrade;
+
+    // Resident order books, grouped by the "stock-orders" partition that owns their ticker.
+    // The journal is the source of truth for them; the database is only the durability layer.
+    private final Map<Integer, MatchingShard> shards = new ConcurrentHashMap<>();
+
+    /**
+     * Applies a batch of one partition's records (orders, cancels, replaces) in offset order, under a single
+     * acquisition of its shard. Market data sees each touched book once, in its state after the whole batch.
+     */
+    public void processBatch(int partition, List<ConsumerRecord<String, EngineMessage>> records) {
+        long received = LatencyClock.now();
+        MatchingShard shard = assignShard(partition);
+
+        synchronized (shard) {
+            metrics.recordNanos(Stage.QUEUE, LatencyClock.now() - received);
+            long journaled = shard.getJournal().getLastSequence();
+
+            List<OrderBook> touched = new ArrayList<>();
+            for (ConsumerRecord<String, EngineMessage> record : records) {
+                long offset = record.offset();
+                // Already applied before a restart (Kafka redelivers from the last committed offset)
+                if (offset <= shard.getLastOffset()) continue;
+
+                OrderBook book = null;
+                if (record.value() instanceof OrderMessage order) {
+                    book = processOrder(shard, order, offset, received, requestId(record));
+                } else if (record.value() instanceof CancelMessage cancel) {
+                    book = processCancel(shard, cancel, offset);
+                } else if (record.value() instanceof ReplaceMessage replace) {
+                    book = processReplace(shard, replace, offset);
+                } else {
+                    // Undecodable (ErrorHandlingDeserializer already logged why)
+                    log.warn("⚠️ Skipping record {}-{}: not an order, cancel or replace", partition, offset);
+                }
+                shard.setLastOffset(offset);
+                if (book != null && !touched.contains(book)) touched.add(book);
+
+                if (shard.getJournal().getRecordsSinceSnapshot() >= snapshotEvery) {
+                    snapshot(shard);
+                }
+            }
+            touched.forEach(marketData::bookChanged);
+            replicator.publish(shard);
+
+            // Everything these records changed is queued for the database by now
+            if (shard.getJournal().getLastSequence() > journaled) {
+                persister.journaled(partition, shard.getJournal().getLastSequence());
+            }
+        }
+    }
+
+    // --- HOT STANDBY: the primary's journal records, applied as they arrive ---
+
+    /**
+     * Appends records replicated from the primary's journal for this partition and applies them with
+     * the recovery code, so the books (and the reservations and positions in the ledger) follow the
+     * primary's without deciding anything: ids, timestamps and risk outcomes are the primary's.
+     * Nothing is persisted, acked or broadcast.
+     *
+     * @param sourceOffset the stock-orders offset the primary reached with these records, or -1
+     * @param persistedSequence the journal sequence the primary's database writes had reached, or -1
+     */
+    public void applyReplicated(int partition, ByteBuffer records, long sourceOffset, long persistedSequence) {
+        if (persistedSequence >= 0) persister.persistedByPrimary(partition, persistedSequence);
+        MatchingShard shard = assignShard(partition);
+        synchronized (shard) {
+            shard.getJournal().append(records, new Replayer(shard, true, Long.MAX_VALUE));
+            if (sourceOffset > shard.getLastOffset()) shard.setLastOffset(sourceOffset);
+
+            if (shard.getJournal().getRecordsSinceSnapshot() >= snapshotEvery) {
+                snapshot(shard);
+            }
+        }
+    }
+
+    /**
+     * The partition's {@link MatchingShard#checksum()}. A partition this instance doesn't hold has no
+     * resting orders here, so it hashes like empty books.
+     */
+    public long checksum(int partition) {
+        MatchingShard shard = shards.get(partition);
+        if (shard == null) return MatchingShard.EMPTY_CHECKSUM;
+        synchronized (shard) {
+            return shard.checksum();
+        }
+    }
+
+    /**
+     * The last journal sequence applied for the partition, or 0 if this instance doesn't hold it.
+     */
+    public long lastSequence(int partition) {
+        MatchingShard shard = shards.get(partition);
+        if (shard == null) return 0;
+        synchronized (shard) {
+            return shard.getJournal().getLastSequence();
+        }
+    }
+
+    /**
+     * A promoted standby starts serving. Each shard is recovered again from its snapshot and journal, now as
+     * the primary: what the old primary had not written to the database yet is re-emitted, and the books go
+     * out to market data. Returns each held partition's last journal sequence.
+     */
+    public Map<Integer, Long> takeOver() {
+        Map<Integer, Long> sequences = new TreeMap<>();
+        for (int partition : new ArrayList<>(shards.keySet())) {
+            revokeShard(partition);
+            assignShard(partition);
+            sequences.put(partition, lastSequence(partition));
+        }
+        return sequences;
+    }
+
+    /**
+     * Matches one new order; returns its book, or null if it was rejected or could not trade. Never waits on Postgres:
+     * risk checks and settlement run against the in-memory ledger, and every state change is handed to
+     * the write-behind stage. A non-zero requestId gets an execution report once the order is done with.
+     * Caller holds the shard's lock.
+     */
+    private OrderBook processOrder(MatchingShard shard, OrderMessage order, long offset, long received, long requestId) {
+        long started = LatencyClock.now();
+        boolean stamped = order.getIngressNanos() > 0;
+        if (stamped) metrics.recordNanos(Stage.TRANSPORT, received - order.getIngressNanos());
+
+        // 1. Straight from the wire format to a symbol id, ticks, lots and cents (no String, no BigDecimal)
+        int symbolId = symbolRegistry.find(order.getTickerCode());
+        if (symbolId < 0) {
+            log.warn("❌ Rejected order from user {} for {}: {}", order.getUserId(), order.getTicker(), RejectReason.UNKNOWN_SYMBOL);
+            acks.rejected(0, order.getUserId(), order.getTicker(), RejectReason.UNKNOWN_SYMBOL);
+            if (requestId != 0) acks.reportRejected(requestId, order.getUserId(), order.getTickerCode(), RejectReason.UNKNOWN_SYMBOL);
+            return null;
+        }
+        SymbolSpec spec = symbolRegistry.spec(symbolId);
+        metrics.orderReceived(spec);
+        long centsPerTick = spec.centsPerTick();
+        long price = order.isMarket() ? 0 : toTicks(spec, order.getPriceMantissa(), order.getPriceExponent());
+        RejectReason reject = order.getType() == null || order.getTimeInForce() == null ? RejectReason.MALFORMED_MESSAGE
+                : symbolRegistry.status(symbolId) != SymbolStatus.TRADING ? RejectReason.SYMBOL_HALTED
+                : price < 0 ? RejectReason.INVALID_PRICE
+                : !spec.isValidQuantity(order.getQuantity()) ? RejectReason.INVALID_QUANTITY
+                : null;
+        if (reject != null) {
+            reject(order, spec, reject, requestId);
+            return null;
         }
 
-        // 3. Match Logic
-        for (Order match : matchingOrders) {
-            if (newOrder.getQuantity() <= 0) break;
+        // 2. A market order's limit is the worst price its quantity reaches in the book as it stands.
+        // One that can't trade now (empty side, or a FOK the crossing levels can't fill) ends here:
+        // nothing is reserved, journaled or persisted
+        OrderBook book = shard.book(spec);
+        EngineOrder newOrder = toEngineOrder(shard.getOrders().acquire(), order, symbolId, price);
+        if (order.isMarket()) newOrder.setPrice(book.sweepPrice(newOrder.isBuy(), newOrder.getQuantity()));
+        if (newOrder.getPrice() == 0
+                || newOrder.getTimeInForce() == Order.TimeInForce.FOK && !book.canFill(newOrder, selfTrade)) {
+            acks.cancelled(newOrder, RejectReason.UNFILLED);
+            if (requestId != 0) acks.report(requestId, newOrder, ExecutionReport.Status.CANCELLED, RejectReason.UNFILLED, 0, 0, 0);
+            shard.getOrders().release(newOrder);
+            return null;
+        }
+
+        // 3. Pre-trade risk check: reserve the cash/shares it could use, or reject it before the book
+        reject = ledger.reserve(newOrder, centsPerTick);
+        if (reject != null) {
+            shard.getOrders().release(newOrder);
+            reject(order, spec, reject, requestId);
+            return null;
+        }
+        acks.accepted(newOrder);
 
-            int quantityToTrade = Math.min(newOrder.getQuantity(), match.getQuantity());
-            BigDecimal tradePrice = match.getPrice(); // Maker's price determines execution price
+        // Journal the accepted input (the engine assigned the id, no insert needed to learn it)
+        shard.getJournal().appendOrder(offset, newOrder);
 
-            // Create and Save Trade
-            Trade trade = new Trade();
-            trade.setTicker(newOrder.getTicker());
-            trade.setPrice(tradePrice);
-            trade.setQuantity(quantityToTrade);
-            trade.setBuyerId(newOrder.getType() == Order.Type.BUY ? newOrder.getUserId() : match.getUserId());
-            trade.setSellerId(newOrder.getType() == Order.Type.SELL ? newOrder.getUserId() : match.getUserId());
-            trade.setTimestamp(LocalDateTime.now());
-            tradeRepository.save(trade);
+        matchAndRest(shard, book, newOrder, requestId);
 
-            // 4. Update Balances and Holdings (SETTLEMENT)
-            settleTrade(trade);
+        metrics.record(Stage.MATCH, started);
+        if (stamped) metrics.record(Stage.END_TO_END, order.getIngressNanos());
+        return book;
+    }
+
+    private void reject(OrderMessage order, SymbolSpec spec, RejectReason reason, long requestId) {
+        log.warn("❌ Rejected order from user {} ({} {} x {} @ {}): {}", order.getUserId(), order.getType(),
+                spec.ticker(), order.getQuantity(), order.isMarket() ? "market" : order.getPrice(), reason);
+        acks.rejected(0, order.getUserId(), spec.ticker(), reason);
+        if (requestId != 0) acks.reportRejected(requestId, order.getUserId(), spec.code(), reason);
+    }
+
+    // The gateway's request id, if the sender waits for an execution report; 0 otherwise
+    private static long requestId(ConsumerRecord<String, EngineMessage> record) {
+        Header header = record.headers().lastHeader(OrderProducer.REQUEST_ID_HEADER);
+        return header != null ? ByteBuffer.wrap(header.value()).getLong() : 0;
+    }
 
-            // 5. Update Order Quantities
-            newOrder.setQuantity(newOrder.getQuantity() - quantityToTrade);
-            match.setQuantity(match.getQuantity() - quantityToTrade);
-            orderRepository.save(match);
-            
-            // 6. Broadcast to Frontend
-            messagingTemplate.convertAndSend("/topic/trades", trade);
+    /**
+     * Removes a resting order through the book's order-id index (O(1), no price-level scan).
+     * Only its owner may cancel it; a halted symbol still takes cancels.
+     */
+    private OrderBook processCancel(MatchingShard shard, CancelMessage cancel, long offset) {
+        OrderBook book = shard.find(symbolRegistry.find(cancel.getTickerCode()));
+        EngineOrder resting = book != null ? book.get(cancel.getOrderId()) : null;
+        RejectReason reject = resting == null ? RejectReason.UNKNOWN_ORDER
+                : resting.getUserId() != cancel.getUserId() ? RejectReason.NOT_OWNER
+                : null;
+        if (reject != null) {
+            acks.rejected(cancel.getOrderId(), cancel.getUserId(), cancel.getTicker(), reject);
+            return null;
         }
 
-        // Save remaining quantity of new order
-        orderRepository.save(newOrder);
+        shard.getJournal().appendCancel(offset, resting.getId(), resting.getSymbolId());
+        book.cancel(resting.getId());
+        ledger.release(resting, symbolRegistry.spec(resting.getSymbolId()).centsPerTick());
+        persister.orderCancelled(resting);
+        acks.cancelled(resting);
+        shard.getOrders().release(resting);
+        return book;
     }
 
     /**
-     * Handles the movement of Cash and Stock between Buyer and Seller.
+     * Cancel-replace. Same price and no more quantity: amended in place, keeping time priority.
+     * Anything else: the order leaves its level and is re-entered (same id) at the back of the new one,
+     * matching first if the new price crosses. The reservation is swapped before anything changes, so a
+     * replace the account can't cover is rejected and the original order stays as it was.
      */
-    private void settleTrade(Trade trade) {
-        // --- 1. Update BUYER (Lose Cash, Gain Stock) ---
-        User buyer = userRepository.findById(trade.getBuyerId()).orElseThrow();
-        BigDecimal cost = trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity()));
-        
-        buyer.setBalance(buyer.getBalance().subtract(cost));
-        userRepository.save(buyer);
-        
-        updateHolding(trade.getBuyerId(), trade.getTicker(), trade.getQuantity(), trade.getPrice());
-
-        // --- 2. Update SELLER (Gain Cash, Lose Stock) ---
-        User seller = userRepository.findById(trade.getSellerId()).orElseThrow();
-        
-        seller.setBalance(seller.getBalance().add(cost));
-        userRepository.save(seller);
-        
-        // Negative quantity for seller (reducing holdings)
-        updateHolding(trade.getSellerId(), trade.getTicker(), -trade.getQuantity(), trade.getPrice());
-
-        // --- 3. NEW: SAVE PRICE TO REDIS ---
-        // This makes the price instantly available to the frontend without querying the DB
-        redisService.savePrice(trade.getTicker(), trade.getPrice());
-    }
-
-    private void updateHolding(Long userId, String ticker, int quantityChange, BigDecimal tradePrice) {
-        Optional<Holding> existingHolding = holdingRepository.findByUserIdAndTicker(userId, ticker);
-
-        if (existingHolding.isPresent()) {
-            Holding h = existingHolding.get();
-            // Calculate new Weighted Average Price only if buying (positive quantity)
-            if (quantityChange > 0) {
-                BigDecimal totalValue = h.getAveragePrice().multiply(BigDecimal.valueOf(h.getQuantity()));
-                BigDecimal newValue = tradePrice.multiply(BigDecimal.valueOf(quantityChange));
-                BigDecimal newTotalValue = totalValue.add(newValue);
-                int newTotalQty = h.getQuantity() + quantityChange;
-                
-                // Avoid division by zero
-                if (newTotalQty != 0) {
-                     h.setAveragePrice(newTotalValue.divide(BigDecimal.valueOf(newTotalQty), java.math.MathContext.DECIMAL32));
+    private OrderBook processReplace(MatchingShard shard, ReplaceMessage replace, long offset) {
+        OrderBook book = shard.find(symbolRegistry.find(replace.getTickerCode()));
+        EngineOrder resting = book != null ? book.get(replace.getOrderId()) : null;
+        if (resting == null || resting.getUserId() != replace.getUserId()) {
+            acks.rejected(replace.getOrderId(), replace.getUserId(), replace.getTicker(),
+                    resting == null ? RejectReason.UNKNOWN_ORDER : RejectReason.NOT_OWNER);
+            return null;
+        }
+
+        SymbolSpec spec = symbolRegistry.spec(book.getSymbolId());
+        long centsPerTick = spec.centsPerTick();
+        long price = toTicks(spec, replace.getPriceMantissa(), replace.getPriceExponent());
+        long quantity = replace.getQuantity();
+        RejectReason reject = symbolRegistry.status(spec.id()) != SymbolStatus.TRADING ? RejectReason.SYMBOL_HALTED
+                : price < 0 ? RejectReason.INVALID_PRICE
+                : !spec.isValidQuantity(quantity) ? RejectReason.INVALID_QUANTITY
+                : null;
+        if (reject != null) {
+            acks.rejected(replace.getOrderId(), replace.getUserId(), spec.ticker(), reject);
+            return null;
+        }
+
+        if (price == resting.getPrice() && quantity <= resting.getQuantity()) {
+            shard.getJournal().appendAmend(offset, resting.getId(), resting.getSymbolId(), quantity);
+            ledger.release(resting, resting.getQuantity() - quantity, centsPerTick);
+            book.reduce(resting.getId(), quantity);
+            persister.orderChanged(resting);
+            acks.replaced(resting);
+            return book;
+        }
+
+        EngineOrder replacement = shard.getOrders().acquire();
+        replacement.setId(resting.getId());
+        replacement.setUserId(resting.getUserId());
+        replacement.setSymbolId(resting.getSymbolId());
+        replacement.setType(resting.getType());
+        replacement.setPrice(price);
+        replacement.setQuantity(quantity);
+        replacement.setTimestamp(System.currentTimeMillis());
+
+        ledger.release(resting, centsPerTick);
+        reject = ledger.reserve(replacement, centsPerTick);
+        if (reject != null) {
+            ledger.restore(resting, centsPerTick);
+            shard.getOrders().release(replacement);
+            acks.rejected(replace.getOrderId(), replace.getUserId(), spec.ticker(), reject);
+            return null;
+        }
+
+        EventJournal journal = shard.getJournal();
+        journal.appendCancel(offset, resting.getId(), resting.getSymbolId());
+        journal.appendOrder(offset, replacement);
+        book.cancel(resting.getId());
+        shard.getOrders().release(resting);
+        acks.replaced(replacement);
+
+        matchAndRest(shard, book, replacement, 0);
+        return book;
+    }
+
+    // Steps 4-7 of an accepted order: match, settle each fill, rest (or cancel) the remainder, report
+    private void matchAndRest(MatchingShard shard, OrderBook book, EngineOrder newOrder, long requestId) {
+        // 4. Match in memory against the opposite side (Price-Time Priority); the shard's listener settles each fill
+        Fills fills = (Fills) shard.getFillListener();
+        fills.startTaker();
+        book.match(newOrder, selfTrade, fills);
+
+        // 7. Whatever is left rests in the book, if the order may rest
+        boolean rested = newOrder.canRest() && book.add(newOrder);
+        boolean selfTradeCancelled = fills.takeSelfTradeCancelled() == newOrder;
+
+        if (!newOrder.canRest()) {
+            // Market, IOC and FOK orders never reach the orders table: their trades are their only record
+            if (selfTradeCancelled) {
+                acks.cancelled(newOrder, RejectReason.SELF_TRADE);
+            } else if (newOrder.getQuantity() > 0) {
+                ledger.release(newOrder, symbolRegistry.spec(newOrder.getSymbolId()).centsPerTick());
+                acks.cancelled(newOrder, RejectReason.UNFILLED);
+            }
+        } else if (selfTradeCancelled) {
+            // Save remaining quantity of new order (or that self-trade prevention cancelled it)
+            persister.orderCancelled(newOrder);
+            acks.cancelled(newOrder, RejectReason.SELF_TRADE);
+        } else {
+            persister.orderChanged(newOrder);
+        }
+
+        // 8. The gateway waiting on this order hears what became of it, before it goes back to the pool
+        if (requestId != 0) {
+            ExecutionReport.Status status = selfTradeCancelled || !rested && newOrder.getQuantity() > 0 ? ExecutionReport.Status.CANCELLED
+                    : !rested ? ExecutionReport.Status.FILLED
+                    : fills.filledQuantity > 0 ? ExecutionReport.Status.PARTIALLY_FILLED
+                    : ExecutionReport.Status.NEW;
+            RejectReason reason = selfTradeCancelled ? RejectReason.SELF_TRADE
+                    : status == ExecutionReport.Status.CANCELLED ? RejectReason.UNFILLED
+                    : null;
+            acks.report(requestId, newOrder, status, reason, fills.filledQuantity, fills.filledNotional,
+                    rested ? newOrder.getQuantity() : 0);
+        }
+        if (!rested) shard.getOrders().release(newOrder);
+    }
+
+    /**
+     * Steps 5-6 for each fill of one shard's matches. One instance per shard, created with it,
+     * so matching allocates no listener per order.
+     */
+    private final class Fills implements OrderBook.FillListener, AccountLedger.SettlementListener {
+
+        private final MatchingShard shard;
+        private EngineOrder selfTradeCancelled; // the taker, if self-trade prevention emptied it
+        private long filledQuantity;            // the current taker's fills, for its execution report
+        private long filledNotional;
+
+        Fills(MatchingShard shard) {
+            this.shard = shard;
+        }
+
+        void startTaker() {
+            filledQuantity = 0;
+            filledNotional = 0;
+        }
+
+        EngineOrder takeSelfTradeCancelled() {
+            EngineOrder taker = selfTradeCancelled;
+            selfTradeCancelled = null;
+            return taker;
+        }
+
+        @Override
+        public void onFill(EngineOrder match, EngineOrder taker, long tradePrice, long quantityToTrade) {
+            SymbolSpec spec = symbolRegistry.spec(taker.getSymbolId());
+            long centsPerTick = spec.centsPerTick();
+
+            // Maker's price determines execution price. The Execution is the immutable record
+            // handed to the persistence and market-data threads; the orders never leave this one.
+            boolean takerBuys = taker.isBuy();
+            Execution execution = new Execution(
+                    idGenerator.nextId(), taker.getSymbolId(), tradePrice, quantityToTrade,
+                    tradePrice * centsPerTick * quantityToTrade,
+                    takerBuys ? taker.getUserId() : match.getUserId(),
+                    takerBuys ? match.getUserId() : taker.getUserId(),
+                    takerBuys ? taker.getId() : match.getId(),
+                    takerBuys ? match.getId() : taker.getId(),
+                    System.currentTimeMillis());
+            shard.getJournal().appendTrade(execution);
+            filledQuantity += quantityToTrade;
+            filledNotional += execution.notional();
+
+            // 5. Settle in the ledger (no DB reads) and journal what it left in both accounts,
+            // persist the trade and the maker's remaining quantity
+            ledger.settle(execution, takerBuys ? taker.getPrice() : match.getPrice(), centsPerTick, this);
+            persister.tradeExecuted(execution);
+            persister.orderChanged(match);
+
+            // 6. Hand the print to the market-data stage (last price, candles and broadcast, off this thread)
+            marketData.tradeExecuted(execution);
+            metrics.tradeExecuted(spec);
+
+            // A filled maker has already left the book: nothing refers to it any more
+            if (match.getQuantity() == 0) shard.getOrders().release(match);
+        }
+
+        @Override
+        public void onSettled(Account account, int symbolId, Account.Position p) {
+            shard.getJournal().appendSettlement(account.getUserId(), account.getCash(), account.getCashVersion(),
+                    symbolId, p.getHoldingId(), p.getQuantity(), p.getCost());
+        }
+
+        // No trade: what was taken off either order gives back its reservation
+        @Override
+        public void onSelfTrade(EngineOrder maker, EngineOrder taker, long makerQuantity, long takerQuantity) {
+            SymbolSpec spec = symbolRegistry.spec(taker.getSymbolId());
+            long centsPerTick = spec.centsPerTick();
+            metrics.selfTradePrevented(spec);
+
+            if (takerQuantity > 0) {
+                ledger.release(taker, takerQuantity, centsPerTick);
+                if (taker.getQuantity() == 0) selfTradeCancelled = taker;
+            }
+            if (makerQuantity > 0) {
+                ledger.release(maker, makerQuantity, centsPerTick);
+                if (maker.getQuantity() == 0) {
+                    persister.orderCancelled(maker);
+                    acks.cancelled(maker, RejectReason.SELF_TRADE);
+                    shard.getOrders().release(maker);
+                } else {
+                    persister.orderChanged(maker);
+                    acks.replaced(maker);
                 }
             }
-            h.setQuantity(h.getQuantity() + quantityChange);
-            holdingRepository.save(h);
-        } else if (quantityChange > 0) {
-            // New Holding
-            Holding h = new Holding();
-            h.setUserId(userId);
-            h.setTicker(ticker);
-            h.setQuantity(quantityChange);
-            h.setAveragePrice(tradePrice);
-            holdingRepository.save(h);
-        }
-    }
-}
\ No newline at end of file
+        }
+    }
+
+    // --- SHARD OWNERSHIP (driven by Kafka partition assignment) ---
+
+    public MatchingShard assignShard(int partition) {
+        return shards.computeIfAbsent(partition, this::recover);
+    }
+
+    /**
+     * Releases a partition this instance no longer owns. Its journal stays on disk for the next owner,
+     * and its resting orders' reservations move with it.
+     */
+    public void revokeShard(int partition) {
+        MatchingShard shard = shards.remove(partition);
+        if (shard != null) {
+            synchronized (shard) {
+                forEachRestingOrder(shard, ledger::release);
+                shard.getJournal().close();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shards.keySet().forEach(this::revokeShard);
+    }
+
+    // --- RECOVERY: latest snapshot + journal tail (never the orders table) ---
+
+    private MatchingShard recover(int partition) {
+        long started = System.nanoTime();
+        Path dir = Paths.get(journalDir, "partition-" + partition);
+
+        // Start from a snapshot the database had caught up with, so every record it may have lost is replayed
+        long persisted = persister.persistedSequence(partition);
+        SnapshotStore.Snapshot snapshot = SnapshotStore.loadLatest(dir, symbolRegistry, persisted);
+        MatchingShard shard = new MatchingShard(partition, dir, EventJournal.open(dir, segmentSizeMb << 20, symbolRegistry),
+                new OrderPool(orderPoolSize));
+        shard.setFillListener(new Fills(shard));
+
+        long fromSequence = 0;
+        if (snapshot != null) {
+            snapshot.books().forEach(shard::restore);
+            snapshot.accounts().forEach(ledger::restore);
+            shard.setLastOffset(snapshot.sourceOffset());
+            fromSequence = snapshot.sequence();
+        }
+        if (fromSequence > persisted && role.isPrimary()) {
+            log.warn("⚠️ Partition {}: the database is at journal sequence {} but the oldest snapshot is at {}; "
+                    + "what came between can't be re-emitted", partition, persisted, fromSequence);
+        }
+
+        // Re-run the inputs through the same matching code, minus the side effects. Write-behind is lost
+        // on a crash, so the primary hands everything after the persisted sequence to it again
+        Replayer replayer = new Replayer(shard, false, role.isPrimary() ? persisted : Long.MAX_VALUE);
+        shard.getJournal().replay(fromSequence, replayer);
+
+        // Resting orders keep their claim on cash/shares (settled balances came from the snapshot and journal)
+        forEachRestingOrder(shard, ledger::restore);
+        if (role.isPrimary()) {
+            replayer.republish();
+            persister.journaled(partition, shard.getJournal().getLastSequence());
+            shard.books().forEach(marketData::bookChanged);
+        }
+        replicator.attach(shard);
+
+        log.info("📒 Partition {} recovered to sequence {} in {} ms",
+                partition, shard.getJournal().getLastSequence(), (System.nanoTime() - started) / 1_000_000);
+        return shard;
+    }
+
+    /**
+     * Applies journal records to a shard's books, and settlement records to the ledger. Recovery leaves
+     * reservations alone (it restores the surviving orders' afterwards); a standby mirrors each record's
+     * effect on them as it goes, as the primary's reserve, release and settle did. Records after
+     * persistAfter also go to the write-behind stage again, as matching first handed them over, and
+     * {@link #republish()} then hands it the accounts they settled. Decoded orders are never taken from
+     * or returned to the pool here.
+     */
+    private final class Replayer implements EventJournal.Handler, OrderBook.FillListener {
+
+        private final MatchingShard shard;
+        private final boolean mirrorLedger;
+        private final long persistAfter;
+        private final Set<Long> settledUsers = new HashSet<>();
+        private boolean persist;                // the record being applied comes after persistAfter
+        private EngineOrder selfTradeCancelled; // the taker, if self-trade prevention emptied it
+
+        Replayer(MatchingShard shard, boolean mirrorLedger, long persistAfter) {
+            this.shard = shard;
+            this.mirrorLedger = mirrorLedger;
+            this.persistAfter = persistAfter;
+        }
+
+        @Override
+        public void onOrder(long sequence, long sourceOffset, EngineOrder order) {
+            persist = sequence > persistAfter;
+            SymbolSpec spec = symbolRegistry.spec(order.getSymbolId());
+            OrderBook book = shard.book(spec);
+            if (mirrorLedger) ledger.restore(order, spec.centsPerTick());
+            book.match(order, selfTrade, this);
+            boolean cancelled = selfTradeCancelled == order;
+            selfTradeCancelled = null;
+
+            if (order.canRest()) {
+                book.add(order);
+                if (persist && cancelled) persister.orderCancelled(order);
+                else if (persist) persister.orderChanged(order);
+            } else if (mirrorLedger && order.getQuantity() > 0) {
+                ledger.release(order, spec.centsPerTick());
+            }
+            shard.setLastOffset(sourceOffset);
+        }
+
+        @Override
+        public void onFill(EngineOrder maker, EngineOrder taker, long price, long quantity) {
+            if (persist) persister.orderChanged(maker);
+            if (!mirrorLedger) return;
+
+            long centsPerTick = symbolRegistry.spec(taker.getSymbolId()).centsPerTick();
+            boolean takerBuys = taker.isBuy();
+            Execution execution = new Execution(0, taker.getSymbolId(), price, quantity, price * centsPerTick * quantity,
+                    takerBuys ? taker.getUserId() : maker.getUserId(),
+                    takerBuys ? maker.getUserId() : taker.getUserId(),
+                    takerBuys ? taker.getId() : maker.getId(),
+                    takerBuys ? maker.getId() : taker.getId(),
+                    0);
+            ledger.mirror(execution, takerBuys ? taker.getPrice() : maker.getPrice(), centsPerTick);
+        }
+
+        @Override
+        public void onSelfTrade(EngineOrder maker, EngineOrder taker, long makerQuantity, long takerQuantity) {
+            if (takerQuantity > 0 && taker.getQuantity() == 0) selfTradeCancelled = taker;
+            if (persist && makerQuantity > 0) {
+                if (maker.getQuantity() == 0) persister.orderCancelled(maker);
+                else persister.orderChanged(maker);
+            }
+            if (mirrorLedger) {
+                long centsPerTick = symbolRegistry.spec(taker.getSymbolId()).centsPerTick();
+                ledger.release(maker, makerQuantity, centsPerTick);
+                ledger.release(taker, takerQuantity, centsPerTick);
+            }
+        }
+
+        @Override
+        public void onCancel(long sequence, long sourceOffset, long orderId, int symbolId) {
+            OrderBook book = shard.find(symbolId);
+            EngineOrder cancelled = book != null ? book.cancel(orderId) : null;
+            if (cancelled != null) {
+                if (mirrorLedger) ledger.release(cancelled, symbolRegistry.spec(symbolId).centsPerTick());
+                if (sequence > persistAfter) persister.orderCancelled(cancelled);
+            }
+            shard.setLastOffset(sourceOffset);
+        }
+
+        @Override
+        public void onAmend(long sequence, long sourceOffset, long orderId, int symbolId, long quantity) {
+            OrderBook book = shard.find(symbolId);
+            EngineOrder resting = book != null ? book.get(orderId) : null;
+            if (resting != null) {
+                if (mirrorLedger) ledger.release(resting, resting.getQuantity() - quantity, symbolRegistry.spec(symbolId).centsPerTick());
+                book.reduce(orderId, quantity);
+                if (sequence > persistAfter) persister.orderChanged(resting);
+            }
+            shard.setLastOffset(sourceOffset);
+        }
+
+        @Override
+        public void onTrade(long sequence, Execution execution) {
+            if (sequence > persistAfter) persister.tradeExecuted(execution);
+        }
+
+        @Override
+        public void onSettlement(long sequence, Settlement settlement) {
+            ledger.restore(settlement);
+            if (sequence > persistAfter) settledUsers.add(settlement.userId());
+        }
+
+        // The balances and positions in this shard's symbols of the accounts settled after persistAfter,
+        // as they are now: a settlement record's balance may since have been replaced by another shard's
+        void republish() {
+            for (long userId : settledUsers) {
+                ledger.republish(userId, symbolId -> shard.find(symbolId) != null);
+            }
+        }
+    }
+
+    private void forEachRestingOrder(MatchingShard shard, BiConsumer<EngineOrder, Long> action) {
+        for (OrderBook book : shard.books()) {
+            long centsPerTick = symbolRegistry.spec(book.getSymbolId()).centsPerTick();
+            book.forEach(o -> action.accept(o, centsPerTick));
+        }
+    }
+
+    // --- EDGE CONVERSIONS ---
+
+    // Price in ticks, or -1 if it is not positive or not on the tick grid
+    private static long toTicks(SymbolSpec spec, long mantissa, int exponent) {
+        try {
+            long ticks = spec.toTicks(mantissa, exponent);
+            return ticks > 0 ? ticks : -1;
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private EngineOrder toEngineOrder(EngineOrder o, OrderMessage order, int symbolId, long price) {
+        o.setId(idGenerator.nextId());
+        o.setUserId(order.getUserId());
+        o.setSymbolId(symbolId);
+        o.setType(order.getType());
+        o.setPrice(price);
+        o.setQuantity(order.getQuantity());
+        o.setTimestamp(System.currentTimeMillis());
+        o.setTimeInForce(order.getTimeInForce());
+        return o;
+    }
+
+    // Runs on the owning thread, so the books can't change underneath it. The journal keeps everything
+    // after the snapshot recovery would start from, which the database may not have caught up with yet
+    private void snapshot(MatchingShard shard) {
+        long sequence = shard.getJournal().getLastSequence();
+        long base = SnapshotStore.write(shard.getDir(), sequence, shard.getLastOffset(), shard.books(),
+                ledger.settlements(symbolId -> shard.find(symbolId) != null), symbolRegistry,
+                persister.persistedSequence(shard.getPartition()));
+        shard.getJournal().snapshotTaken(base);
+    }
+}
@@ -1,27 +1,183 @@
 package com.trading.engine.service;
 
+import com.trading.engine.symbol.SymbolRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Last traded price per ticker.
+ *
+ * Reads hit a JVM-local near-cache first; misses go to Redis in a single MGET. Writes update
+ * the near-cache immediately and are coalesced per ticker, then flushed asynchronously as one
+ * MSET plus one pub/sub message so other nodes refresh their near-caches. The near-cache and the
+ * pending writes are arrays indexed by symbol id; tickers only appear in Redis keys and messages.
+ */
 @Service
 public class RedisService {
 
+    private static final Logger log = LoggerFactory.getLogger(RedisService.class);
+
+    public static final String PRICE_CHANNEL = "price-updates";
+    private static final String KEY_PREFIX = "PRICE_";
+
     @Autowired
     private StringRedisTemplate redisTemplate;
 
-    // Save the latest price of a stock (e.g., "AAPL" -> "150.00")
-    public void savePrice(String ticker, BigDecimal price) {
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Value("${engine.prices.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${engine.node-id:0}")
+    private String nodeId;
+
+    private AtomicReferenceArray<BigDecimal> localPrices;
+    private AtomicReferenceArray<BigDecimal> pendingWrites;
+    private AtomicReferenceArray<String> keys; // built once per symbol
+    private volatile boolean pending;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        localPrices = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        pendingWrites = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        keys = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "redis-prices");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    // Save the latest price of a stock (e.g., AAPL's id -> "150.00"). Never blocks on Redis.
+    public void savePrice(int symbolId, BigDecimal price) {
         if (price == null) return;
-        redisTemplate.opsForValue().set("PRICE_" + ticker, price.toString());
-        System.out.println("💾 Redis: Saved " + ticker + " @ $" + price);
+        localPrices.set(symbolId, price);
+        pendingWrites.set(symbolId, price);
+        pending = true;
     }
 
     // Get the latest price (return null if not found)
-    public BigDecimal getPrice(String ticker) {
-        String priceStr = redisTemplate.opsForValue().get("PRICE_" + ticker);
-        return priceStr != null ? new BigDecimal(priceStr) : null;
+    public BigDecimal getPrice(int symbolId) {
+        BigDecimal price = localPrices.get(symbolId);
+        return price != null ? price : fetch(List.of(symbolId)).get(symbolId);
+    }
+
+    // Near-cache only, never a Redis round trip (null if this node has no price for the symbol yet)
+    public BigDecimal getCachedPrice(int symbolId) {
+        return localPrices.get(symbolId);
+    }
+
+    /**
+     * Latest prices for several tickers; tickers with no price are absent from the result, as are tickers
+     * this node doesn't know (a malformed or unconfigured holding), so one can't fail the whole read.
+     * At most one Redis round trip, however many tickers miss the near-cache.
+     */
+    public Map<String, BigDecimal> getPrices(Collection<String> tickers) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (String ticker : tickers) {
+            int symbolId = symbolRegistry.find(ticker);
+            if (symbolId < 0) continue;
+            BigDecimal price = localPrices.get(symbolId);
+            if (price != null) prices.put(ticker, price); else misses.add(symbolId);
+        }
+        fetch(misses).forEach((symbolId, price) -> prices.put(symbolRegistry.spec(symbolId).ticker(), price));
+        return prices;
+    }
+
+    // One MGET for symbols the near-cache doesn't have; fills the near-cache with what Redis knows
+    private Map<Integer, BigDecimal> fetch(List<Integer> symbolIds) {
+        Map<Integer, BigDecimal> prices = new HashMap<>();
+        if (symbolIds.isEmpty()) return prices;
+
+        List<String> values = redisTemplate.opsForValue().multiGet(symbolIds.stream().map(this::key).toList());
+        for (int i = 0; values != null && i < symbolIds.size(); i++) {
+            if (values.get(i) == null) continue;
+            int symbolId = symbolIds.get(i);
+            // Don't overwrite a newer price the engine stored while we were waiting
+            localPrices.compareAndSet(symbolId, null, new BigDecimal(values.get(i)));
+            prices.put(symbolId, localPrices.get(symbolId));
+        }
+        return prices;
+    }
+
+    /**
+     * Applies a price update published by another node (format: "nodeId|TICKER=price;TICKER=price").
+     */
+    public void onRemoteUpdate(String message) {
+        int bar = message.indexOf('|');
+        if (bar < 0 || message.substring(0, bar).equals(nodeId)) return;
+
+        for (String entry : message.substring(bar + 1).split(";")) {
+            int eq = entry.indexOf('=');
+            if (eq > 0) {
+                int symbolId = symbolRegistry.find(entry.substring(0, eq));
+                if (symbolId < 0) continue; // A ticker this node doesn't know: it has no use for the price
+                try {
+                    localPrices.set(symbolId, new BigDecimal(entry.substring(eq + 1)));
+                } catch (NumberFormatException e) {
+                    // A malformed entry
+                }
+            }
+        }
+    }
+
+    private void flush() {
+        if (!pending) return;
+        pending = false;
+
+        Map<String, String> batch = new HashMap<>();
+        StringBuilder message = new StringBuilder(nodeId).append('|');
+        for (int symbolId = 0; symbolId < symbolRegistry.size(); symbolId++) {
+            BigDecimal price = pendingWrites.getAndSet(symbolId, null);
+            if (price == null) continue;
+            batch.put(key(symbolId), price.toPlainString());
+            message.append(symbolRegistry.spec(symbolId).ticker()).append('=').append(price.toPlainString()).append(';');
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            redisTemplate.opsForValue().multiSet(batch);
+            redisTemplate.convertAndSend(PRICE_CHANNEL, message.toString());
+        } catch (RuntimeException e) {
+            // The near-cache already has the prices; the next trade in each ticker retries the write
+            log.error("❌ Redis: price flush failed", e);
+        }
+    }
+
+    private String key(int symbolId) {
+        String key = keys.get(symbolId);
+        if (key == null) {
+            key = KEY_PREFIX + symbolRegistry.spec(symbolId).ticker();
+            keys.set(symbolId, key);
+        }
+        return key;
     }
-}
\ No newline at end of file
+}
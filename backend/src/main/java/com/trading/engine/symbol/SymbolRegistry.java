@@ -0,0 +1,179 @@
+package com.trading.engine.symbol;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-symbol reference data: a dense int id, tick size, lot size and trading status.
+ *
+ * Tickers are looked up once, at the edge (REST, or a message off the wire); from then on the engine,
+ * the books, the ledger and the caches work with the id and index arrays by it. Ids are handed out in
+ * order of registration, so they are local to the process: anything that leaves it (Kafka messages,
+ * journals, snapshots, the database) carries the ticker.
+ *
+ * Only the "TICKER:tickSize:lotSize[:status]" entries in engine.symbols, which get the first ids, and
+ * tickers added by {@link #register} (an admin action, or recovery of journaled or snapshotted state,
+ * which was registered when it was written) are known; lookups never register, so a stream of made-up
+ * tickers from the ingress is rejected rather than filling the registry. Registered tickers get the
+ * default tick and lot size. At most engine.symbols.capacity symbols, and ids are never freed, so the
+ * per-symbol arrays never grow. Journals and snapshots store prices in ticks, so a symbol's tick size
+ * must not change while it has journaled history.
+ */
+@Service
+public class SymbolRegistry {
+
+    private final BigDecimal defaultTickSize;
+    private final long defaultLotSize;
+    private final SymbolSpec[] specs;
+    private final AtomicReferenceArray<SymbolStatus> statuses;
+
+    // Open-addressed ticker code -> id index, at most half full. A slot's id (and the symbol's spec) is
+    // written before its code, and the code is published with a volatile write, so a reader that finds
+    // the code also sees them. Only register() writes, under the lock.
+    private final AtomicLongArray codes;
+    private final int[] ids;
+    private final int mask;
+    private volatile int size;
+
+    public SymbolRegistry(@Value("${engine.symbols:}") String symbols,
+                          @Value("${engine.symbols.default-tick-size:0.01}") BigDecimal defaultTickSize,
+                          @Value("${engine.symbols.default-lot-size:1}") long defaultLotSize,
+                          @Value("${engine.symbols.capacity:4096}") int capacity) {
+        this.defaultTickSize = defaultTickSize;
+        this.defaultLotSize = defaultLotSize;
+        this.specs = new SymbolSpec[capacity];
+        this.statuses = new AtomicReferenceArray<>(capacity);
+        int slots = Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1;
+        this.codes = new AtomicLongArray(slots);
+        this.ids = new int[slots];
+        this.mask = slots - 1;
+
+        for (String entry : symbols.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3 && parts.length != 4) {
+                throw new IllegalArgumentException("engine.symbols entries must look like TICKER:tickSize:lotSize[:status], got " + entry);
+            }
+            long code = TickerCode.of(parts[0]);
+            if (find(code) >= 0) throw new IllegalArgumentException("engine.symbols lists " + parts[0] + " twice");
+            SymbolStatus status = parts.length == 4 ? SymbolStatus.valueOf(parts[3]) : SymbolStatus.TRADING;
+            if (register(code, new BigDecimal(parts[1]), Long.parseLong(parts[2]), status) < 0) {
+                throw new IllegalArgumentException("engine.symbols lists more than engine.symbols.capacity (" + capacity + ") symbols");
+            }
+        }
+    }
+
+    /**
+     * The id of a registered ticker. Throws IllegalArgumentException if the ticker is malformed or unknown.
+     */
+    public int id(String ticker) {
+        int id = find(TickerCode.of(ticker));
+        if (id < 0) throw new IllegalArgumentException("Unknown symbol " + ticker);
+        return id;
+    }
+
+    /**
+     * The id of a registered ticker, or -1 if it is malformed or unknown. Never registers, never throws.
+     */
+    public int find(String ticker) {
+        return TickerCode.isValid(ticker) ? find(TickerCode.of(ticker)) : -1;
+    }
+
+    /**
+     * The id of a registered packed ticker (e.g. straight off the wire), or -1 if it is unknown.
+     * Never registers. Allocation-free.
+     */
+    public int find(long code) {
+        if (code == 0) return -1; // the empty-slot marker, not a ticker
+        for (int slot = slot(code); ; slot = (slot + 1) & mask) {
+            long c = codes.get(slot);
+            if (c == code) return ids[slot];
+            if (c == 0) return -1;
+        }
+    }
+
+    /**
+     * The id of a ticker, registering it with the default tick and lot size if it is new. Only for an
+     * admin action or for recovering state this engine already accepted; the ingress only looks up.
+     * Throws IllegalArgumentException if the ticker is malformed or the registry is full.
+     */
+    public int register(String ticker) {
+        int id = register(TickerCode.of(ticker));
+        if (id < 0) throw new IllegalArgumentException("Symbol registry is full (" + specs.length + " symbols), cannot add " + ticker);
+        return id;
+    }
+
+    /**
+     * As {@link #register(String)}, for a packed ticker; returns -1 if the code is not a valid ticker or the
+     * registry is full.
+     */
+    public int register(long code) {
+        return register(code, defaultTickSize, defaultLotSize, SymbolStatus.TRADING);
+    }
+
+    public SymbolSpec spec(int id) {
+        return specs[id];
+    }
+
+    /**
+     * Throws IllegalArgumentException if the ticker is malformed or unknown.
+     */
+    public SymbolSpec spec(String ticker) {
+        return specs[id(ticker)];
+    }
+
+    public SymbolStatus status(int id) {
+        return statuses.get(id);
+    }
+
+    public void setStatus(String ticker, SymbolStatus status) {
+        statuses.set(id(ticker), status);
+    }
+
+    /**
+     * Number of registered symbols; their ids are 0 to size - 1.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The most symbols there can be; per-symbol arrays of this length can be indexed by any id.
+     */
+    public int capacity() {
+        return specs.length;
+    }
+
+    public List<SymbolSpec> specs() {
+        int count = size;
+        List<SymbolSpec> all = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) all.add(specs[id]);
+        return all;
+    }
+
+    private synchronized int register(long code, BigDecimal tickSize, long lotSize, SymbolStatus status) {
+        int id = find(code);
+        if (id >= 0) return id;
+        if (!TickerCode.isValid(code) || size == specs.length) return -1;
+
+        id = size;
+        specs[id] = new SymbolSpec(id, TickerCode.toString(code), code, tickSize, lotSize);
+        statuses.set(id, status);
+        int slot = slot(code);
+        while (codes.get(slot) != 0) slot = (slot + 1) & mask;
+        ids[slot] = id;
+        codes.set(slot, code);
+        size = id + 1;
+        return id;
+    }
+
+    private int slot(long code) {
+        return (int) ((code * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,71 @@
+package com.trading.engine.symbol;
+
+import java.math.BigDecimal;
+
+/**
+ * Reference data for one ticker. Inside the engine prices are whole ticks and cash is whole cents;
+ * this is where they are converted to and from BigDecimal at the REST/JPA edge.
+ *
+ * The id is the symbol's dense index in this process's {@link SymbolRegistry}; code is the ticker
+ * packed by {@link TickerCode}.
+ */
+public record SymbolSpec(int id, String ticker, long code, BigDecimal tickSize, long lotSize) {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    public SymbolSpec {
+        if (tickSize.signum() <= 0 || tickSize.movePointRight(2).stripTrailingZeros().scale() > 0) {
+            throw new IllegalArgumentException("Tick size of " + ticker + " must be a positive whole number of cents: " + tickSize);
+        }
+        if (lotSize <= 0) {
+            throw new IllegalArgumentException("Lot size of " + ticker + " must be positive: " + lotSize);
+        }
+    }
+
+    /**
+     * Converts a price to ticks. Throws ArithmeticException if it is not on the tick grid.
+     */
+    public long toTicks(BigDecimal price) {
+        return price.divide(tickSize).longValueExact();
+    }
+
+    /**
+     * Converts a decimal price given as mantissa x 10^-exponent (the binary wire format) to ticks,
+     * without going through BigDecimal. Throws ArithmeticException if it is not on the tick grid.
+     */
+    public long toTicks(long mantissa, int exponent) {
+        long cents;
+        if (exponent <= 2) {
+            cents = Math.multiplyExact(mantissa, powerOfTen(2 - exponent));
+        } else {
+            long divisor = powerOfTen(exponent - 2);
+            if (mantissa % divisor != 0) throw new ArithmeticException("Price is finer than a cent");
+            cents = mantissa / divisor;
+        }
+
+        long centsPerTick = centsPerTick();
+        if (cents % centsPerTick != 0) throw new ArithmeticException("Price is not a multiple of the tick size");
+        return cents / centsPerTick;
+    }
+
+    public BigDecimal toPrice(long ticks) {
+        return tickSize.multiply(BigDecimal.valueOf(ticks));
+    }
+
+    public long centsPerTick() {
+        return tickSize.movePointRight(2).longValueExact();
+    }
+
+    public boolean isValidQuantity(long quantity) {
+        return quantity > 0 && quantity % lotSize == 0;
+    }
+
+    private static long powerOfTen(int n) {
+        if (n < 0 || n >= POWERS_OF_TEN.length) throw new ArithmeticException("Price out of range");
+        return POWERS_OF_TEN[n];
+    }
+}
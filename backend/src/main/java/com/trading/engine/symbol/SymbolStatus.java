@@ -0,0 +1,11 @@
+package com.trading.engine.symbol;
+
+/**
+ * Whether a symbol accepts orders.
+ */
+public enum SymbolStatus {
+    // Orders, cancels and replaces as usual
+    TRADING,
+    // New orders and replaces are rejected; resting orders can still be cancelled
+    HALTED
+}
@@ -0,0 +1,68 @@
+package com.trading.engine.symbol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A ticker of up to 8 ASCII characters packed into a long, first character in the lowest byte,
+ * zero-padded: exactly the little-endian read of the 8-byte ticker field of the binary messages.
+ * Lets the engine go from the wire to a symbol id with one long read, without building a String.
+ */
+public final class TickerCode {
+
+    public static final int MAX_LENGTH = 8;
+
+    private TickerCode() {
+    }
+
+    /**
+     * Packs a ticker. Throws IllegalArgumentException unless it is 1-8 printable ASCII characters.
+     */
+    public static long of(String ticker) {
+        if (ticker == null || ticker.isEmpty() || ticker.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Ticker must be 1-" + MAX_LENGTH + " characters: " + ticker);
+        }
+        long code = 0;
+        for (int i = 0; i < ticker.length(); i++) {
+            char c = ticker.charAt(i);
+            if (c <= ' ' || c > '~') throw new IllegalArgumentException("Ticker must be printable ASCII: " + ticker);
+            code |= (long) c << (i * Byte.SIZE);
+        }
+        return code;
+    }
+
+    /**
+     * True if {@link #of(String)} accepts the ticker.
+     */
+    public static boolean isValid(String ticker) {
+        if (ticker == null || ticker.isEmpty() || ticker.length() > MAX_LENGTH) return false;
+        for (int i = 0; i < ticker.length(); i++) {
+            char c = ticker.charAt(i);
+            if (c <= ' ' || c > '~') return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if the code is what {@link #of(String)} returns for some ticker.
+     */
+    public static boolean isValid(long code) {
+        if (code == 0) return false;
+        for (int i = 0; i < length(code); i++) {
+            int c = (int) (code >>> (i * Byte.SIZE)) & 0xFF;
+            if (c <= ' ' || c > '~') return false;
+        }
+        return true;
+    }
+
+    public static int length(long code) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(code) + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    public static String toString(long code) {
+        byte[] chars = new byte[length(code)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (byte) (code >>> (i * Byte.SIZE));
+        }
+        return new String(chars, StandardCharsets.US_ASCII);
+    }
+}
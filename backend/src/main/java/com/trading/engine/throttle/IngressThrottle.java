@@ -0,0 +1,114 @@
+package com.trading.engine.throttle;
+
+import com.trading.engine.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Rate limits at the REST ingress, before a request costs a Kafka send, matching or a DB write:
+ * one {@link TokenBucket} per user, so a runaway client only throttles itself, and one per ticker,
+ * so a flood on one symbol can't crowd the others out of stock-orders. A rate of 0 turns a limit off.
+ *
+ * Buckets are created on a user's or ticker's first request; a sweep every minute drops the ones
+ * that have refilled completely. Ticker buckets are indexed by symbol id.
+ */
+@Service
+public class IngressThrottle {
+
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Value("${engine.throttle.user.rate:200}")
+    private double userRate;
+
+    @Value("${engine.throttle.user.burst:400}")
+    private int userBurst;
+
+    @Value("${engine.throttle.ticker.rate:20000}")
+    private double tickerRate;
+
+    @Value("${engine.throttle.ticker.burst:40000}")
+    private int tickerBurst;
+
+    private final Map<Long, TokenBucket> users = new ConcurrentHashMap<>();
+    private AtomicReferenceArray<TokenBucket> symbols;
+    private Counter userThrottled;
+    private Counter tickerThrottled;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        symbols = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        userThrottled = registry.counter("engine.throttled", "scope", "user");
+        tickerThrottled = registry.counter("engine.throttled", "scope", "ticker");
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "throttle-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Takes a token from the user's bucket; false if the user is over its rate.
+     */
+    public boolean allowUser(long userId) {
+        if (userRate <= 0) return true;
+        long now = System.nanoTime();
+        // Plain get first: computeIfAbsent's capturing lambda would be allocated on every call
+        TokenBucket bucket = users.get(userId);
+        if (bucket == null) bucket = users.computeIfAbsent(userId, id -> new TokenBucket(userRate, userBurst));
+        if (bucket.tryAcquire(now)) return true;
+        userThrottled.increment();
+        return false;
+    }
+
+    /**
+     * Takes a token from the symbol's bucket; false if the ticker is over its rate.
+     */
+    public boolean allowSymbol(int symbolId) {
+        if (tickerRate <= 0) return true;
+        long now = System.nanoTime();
+        TokenBucket bucket = symbols.get(symbolId);
+        if (bucket == null) {
+            TokenBucket created = new TokenBucket(tickerRate, tickerBurst);
+            bucket = symbols.compareAndSet(symbolId, null, created) ? created : symbols.get(symbolId);
+            if (bucket == null) bucket = created; // swept in between: it was full, like a new one
+        }
+        if (bucket.tryAcquire(now)) return true;
+        tickerThrottled.increment();
+        return false;
+    }
+
+    // A bucket that is full behaves exactly like a new one, so dropping it changes nothing
+    private void sweep() {
+        long now = System.nanoTime();
+        users.values().removeIf(bucket -> bucket.isFull(now));
+        for (int id = 0; id < symbolRegistry.size(); id++) {
+            TokenBucket bucket = symbols.get(id);
+            if (bucket != null && bucket.isFull(now)) symbols.compareAndSet(id, bucket, null);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.trading.engine.throttle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket: {@code ratePerSecond} tokens a second, holding at most {@code burst}.
+ *
+ * Kept as a single timestamp instead of a token count (the GCRA form of the same bucket): the time at
+ * which the bucket would be full again. Taking a token pushes it one interval later, with one CAS;
+ * a request is refused while it is more than a full bucket's worth of intervals ahead of now. Refusing
+ * only reads, so a flood of refused requests doesn't contend on the counter.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * Takes a token if there is one. {@code now} is {@link System#nanoTime()}.
+     */
+    public boolean tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long from = Math.max(current, now);
+            long next = from + intervalNanos;
+            if (next - now > toleranceNanos) return false;
+            if (fullAt.compareAndSet(current, next)) return true;
+        }
+    }
+
+    /**
+     * True once no tokens are missing, i.e. the bucket behaves as if it had just been created.
+     */
+    public boolean isFull(long now) {
+        return fullAt.get() <= now;
+    }
+}
@@ -0,0 +1,87 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Once warmed up, matching must not allocate: a mixed stream of resting, crossing and cancelled
+ * orders (levels appearing and emptying, makers filling, pooled orders recycled) is run while the
+ * test thread's allocated-bytes counter is watched.
+ */
+class OrderBookAllocationTest {
+
+    private static final long MID = 10_000;
+    private static final int LIVE = 1024; // resting orders kept in the book
+
+    private final OrderBook book = new OrderBook(0, "TEST");
+    private final OrderPool pool = new OrderPool(4 * LIVE);
+    private final long[] live = new long[LIVE];
+    private long nextId;
+    private long filled;
+
+    // Like the engine's: a maker that filled has left the book, so it goes back to the pool
+    private final OrderBook.FillListener recycle = (maker, taker, price, quantity) -> {
+        filled += quantity;
+        if (maker.getQuantity() == 0) pool.release(maker);
+    };
+
+    @Test
+    void steadyStateMatchingAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        run(500_000); // JIT, pool and table growth
+
+        // Best of a few rounds, so a late deoptimisation in the first one can't fail the test
+        long allocated = Long.MAX_VALUE;
+        long filledBefore = filled;
+        for (int round = 0; round < 3 && allocated > 0; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            run(200_000);
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        assertTrue(filled > filledBefore, "the stream should produce fills");
+        assertTrue(book.size() <= LIVE);
+        assertEquals(0, allocated, "bytes allocated by matching in steady state");
+    }
+
+    private void run(int orders) {
+        for (int i = 0; i < orders; i++) {
+            boolean buy = (i & 1) == 0;
+            if (i % 4 == 3) {
+                // Crosses the spread, filling (and emptying) the best levels opposite
+                submit(buy, buy ? MID + 5 : MID - 6, 25);
+            } else {
+                long offset = i % 20;
+                submit(buy, buy ? MID - 1 - offset : MID + offset, 1 + i % 10);
+            }
+        }
+    }
+
+    // Match, rest the remainder, and cancel the order it displaces from the live ring
+    private void submit(boolean buy, long price, long quantity) {
+        EngineOrder order = pool.acquire();
+        order.setId(++nextId);
+        order.setUserId(nextId % 100);
+        order.setSymbolId(0);
+        order.setType(buy ? Order.Type.BUY : Order.Type.SELL);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+
+        book.match(order, recycle);
+        if (!book.add(order)) {
+            pool.release(order);
+            return;
+        }
+
+        int slot = (int) (order.getId() % LIVE);
+        EngineOrder displaced = book.cancel(live[slot]);
+        if (displaced != null) pool.release(displaced);
+        live[slot] = order.getId();
+    }
+}
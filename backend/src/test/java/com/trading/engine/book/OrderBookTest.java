@@ -0,0 +1,177 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Price-time priority: the best opposite price fills first, oldest first within a price, at the
+ * maker's price; what the taker doesn't fill rests, and a cancel takes an order out wherever it is.
+ * An amend down keeps the order's place in its queue; a replace that reprices it loses it.
+ */
+class OrderBookTest {
+
+    private final OrderBook book = new OrderBook(0, "TEST");
+    private final List<Fill> fills = new ArrayList<>();
+    private final OrderBook.FillListener recorder =
+            (maker, taker, price, quantity) -> fills.add(new Fill(maker.getId(), taker.getId(), price, quantity));
+    private long nextId;
+
+    private record Fill(long makerId, long takerId, long price, long quantity) {
+    }
+
+    @Test
+    void fillsTheBestPriceFirstAtTheMakersPrice() {
+        rest(sell(102, 5));
+        rest(sell(100, 5));
+        rest(sell(101, 5));
+
+        EngineOrder taker = buy(101, 8);
+        book.match(taker, recorder);
+
+        assertEquals(List.of(new Fill(2, 4, 100, 5), new Fill(3, 4, 101, 3)), fills);
+        assertEquals(0, taker.getQuantity());
+        assertEquals(101, book.getBestAsk().getPrice());
+        assertEquals(2, book.getBestAsk().getTotalQuantity());
+    }
+
+    @Test
+    void fillsTheOldestOrderFirstWithinAPrice() {
+        rest(buy(100, 3));
+        rest(buy(100, 3));
+        rest(buy(100, 3));
+
+        book.match(sell(100, 4), recorder);
+
+        assertEquals(List.of(new Fill(1, 4, 100, 3), new Fill(2, 4, 100, 1)), fills);
+        assertFalse(book.contains(1));
+        assertEquals(2, book.get(2).getQuantity());
+        assertEquals(5, book.getBestBid().getTotalQuantity());
+    }
+
+    @Test
+    void stopsAtTheLimitAndRestsTheRemainder() {
+        rest(sell(100, 2));
+        rest(sell(105, 2));
+
+        EngineOrder taker = buy(103, 5);
+        book.match(taker, recorder);
+        assertTrue(book.add(taker));
+
+        assertEquals(List.of(new Fill(1, 3, 100, 2)), fills);
+        assertEquals(103, book.getBestBid().getPrice());
+        assertEquals(3, book.getBestBid().getTotalQuantity());
+        assertEquals(105, book.getBestAsk().getPrice());
+    }
+
+    @Test
+    void aNonCrossingOrderDoesNotTrade() {
+        rest(buy(99, 10));
+
+        book.match(sell(100, 10), recorder);
+
+        assertTrue(fills.isEmpty());
+        assertEquals(1, book.size());
+    }
+
+    @Test
+    void cancelRemovesTheOrderAndItsEmptiedLevel() {
+        rest(buy(100, 5));
+        rest(buy(99, 5));
+        rest(buy(100, 7));
+
+        EngineOrder cancelled = book.cancel(1);
+        assertEquals(1, cancelled.getId());
+        assertEquals(7, book.getBestBid().getTotalQuantity());
+
+        book.cancel(3);
+        assertEquals(99, book.getBestBid().getPrice());
+        assertNull(book.cancel(3), "an order can only be cancelled once");
+
+        // The cancelled orders no longer fill anything
+        book.match(sell(99, 10), recorder);
+        assertEquals(List.of(new Fill(2, 4, 99, 5)), fills);
+    }
+
+    @Test
+    void anAmendDownKeepsTheOrdersPlaceInTheQueue() {
+        rest(sell(100, 10));
+        rest(sell(100, 10));
+
+        EngineOrder amended = book.reduce(1, 4);
+        assertEquals(4, amended.getQuantity());
+        assertEquals(14, book.getBestAsk().getTotalQuantity());
+
+        book.match(buy(100, 6), recorder);
+        assertEquals(List.of(new Fill(1, 3, 100, 4), new Fill(2, 3, 100, 2)), fills);
+    }
+
+    @Test
+    void anAmendMayOnlyLowerTheQuantity() {
+        rest(buy(100, 10));
+
+        assertNull(book.reduce(1, 11));
+        assertNull(book.reduce(1, 0));
+        assertNull(book.reduce(99, 5));
+        assertEquals(10, book.get(1).getQuantity());
+        assertEquals(10, book.getBestBid().getTotalQuantity());
+    }
+
+    @Test
+    void aReplaceThatRepricesGoesToTheBackOfTheQueue() {
+        rest(buy(99, 5));
+        rest(buy(100, 5));
+
+        // Cancel-replace: out, new price, back in under the same id
+        EngineOrder replaced = book.cancel(1);
+        replaced.setPrice(100);
+        rest(replaced);
+
+        book.match(sell(100, 7), recorder);
+        assertEquals(List.of(new Fill(2, 3, 100, 5), new Fill(1, 3, 100, 2)), fills);
+        assertEquals(3, book.get(1).getQuantity());
+    }
+
+    @Test
+    void aDuplicateIdOrAnEmptyOrderDoesNotRest() {
+        EngineOrder order = buy(100, 5);
+        assertTrue(book.add(order));
+
+        EngineOrder duplicate = buy(101, 5);
+        duplicate.setId(order.getId());
+        assertFalse(book.add(duplicate));
+        assertFalse(book.add(buy(100, 0)));
+        assertSame(order, book.get(order.getId()));
+        assertEquals(1, book.size());
+    }
+
+    private void rest(EngineOrder order) {
+        assertTrue(book.add(order));
+    }
+
+    private EngineOrder buy(long price, long quantity) {
+        return order(Order.Type.BUY, price, quantity);
+    }
+
+    private EngineOrder sell(long price, long quantity) {
+        return order(Order.Type.SELL, price, quantity);
+    }
+
+    private EngineOrder order(Order.Type type, long price, long quantity) {
+        EngineOrder order = new EngineOrder();
+        order.setId(++nextId);
+        order.setUserId(nextId);
+        order.setType(type);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        return order;
+    }
+}
@@ -0,0 +1,93 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The book's side of market and fill-or-kill orders: the limit a market order needs to sweep the
+ * opposite side, and whether a FOK order would fill in full (own orders counted as self-trade
+ * prevention would treat them).
+ */
+class OrderBookTimeInForceTest {
+
+    private static final long SELF = 1;
+    private static final long OTHER = 2;
+
+    private final OrderBook book = new OrderBook(0, "TEST");
+    private long nextId;
+
+    @Test
+    void sweepPriceIsTheLevelWhereTheQuantityIsReached() {
+        book.add(order(OTHER, Order.Type.SELL, 100, 5));
+        book.add(order(OTHER, Order.Type.SELL, 101, 5));
+        book.add(order(OTHER, Order.Type.SELL, 103, 5));
+        book.add(order(OTHER, Order.Type.BUY, 98, 5));
+
+        assertEquals(100, book.sweepPrice(true, 5));
+        assertEquals(101, book.sweepPrice(true, 6));
+        assertEquals(103, book.sweepPrice(true, 15));
+        // More than the side holds: everything there is
+        assertEquals(103, book.sweepPrice(true, 1_000));
+        assertEquals(98, book.sweepPrice(false, 1));
+    }
+
+    @Test
+    void sweepPriceOfAnEmptySideIsZero() {
+        book.add(order(OTHER, Order.Type.BUY, 98, 5));
+        assertEquals(0, book.sweepPrice(true, 5));
+    }
+
+    @Test
+    void canFillCountsOnlyCrossingLevels() {
+        book.add(order(OTHER, Order.Type.SELL, 100, 5));
+        book.add(order(OTHER, Order.Type.SELL, 101, 5));
+        book.add(order(OTHER, Order.Type.SELL, 102, 5));
+
+        assertTrue(book.canFill(order(SELF, Order.Type.BUY, 101, 10), SelfTradePrevention.NONE));
+        assertFalse(book.canFill(order(SELF, Order.Type.BUY, 101, 11), SelfTradePrevention.NONE));
+        assertTrue(book.canFill(order(SELF, Order.Type.BUY, 102, 15), SelfTradePrevention.NONE));
+        assertFalse(book.canFill(order(SELF, Order.Type.SELL, 100, 1), SelfTradePrevention.NONE));
+    }
+
+    @Test
+    void canFillLeavesOwnOrdersOutUnlessPreventionIsOff() {
+        book.add(order(SELF, Order.Type.SELL, 100, 5));
+        book.add(order(OTHER, Order.Type.SELL, 100, 5));
+        book.add(order(OTHER, Order.Type.SELL, 101, 5));
+
+        EngineOrder taker = order(SELF, Order.Type.BUY, 101, 10);
+        // Without prevention, own orders fill it like any other
+        assertTrue(book.canFill(taker, SelfTradePrevention.NONE));
+        // Cancelling the resting one lets matching go on to the rest
+        assertTrue(book.canFill(taker, SelfTradePrevention.CANCEL_OLDEST));
+        assertFalse(book.canFill(order(SELF, Order.Type.BUY, 101, 11), SelfTradePrevention.CANCEL_OLDEST));
+        // Any other mode stops at the first own order
+        assertFalse(book.canFill(taker, SelfTradePrevention.CANCEL_NEWEST));
+        assertFalse(book.canFill(taker, SelfTradePrevention.DECREMENT));
+    }
+
+    @Test
+    void canFillChangesNothing() {
+        book.add(order(OTHER, Order.Type.SELL, 100, 5));
+        EngineOrder taker = order(SELF, Order.Type.BUY, 100, 5);
+
+        assertTrue(book.canFill(taker, SelfTradePrevention.CANCEL_OLDEST));
+        assertEquals(5, taker.getQuantity());
+        assertEquals(5, book.getBestAsk().getTotalQuantity());
+        assertEquals(1, book.size());
+    }
+
+    private EngineOrder order(long userId, Order.Type type, long price, long quantity) {
+        EngineOrder order = new EngineOrder();
+        order.setId(++nextId);
+        order.setUserId(userId);
+        order.setType(type);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        return order;
+    }
+}
@@ -0,0 +1,116 @@
+package com.trading.engine.book;
+
+import com.trading.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * An incoming order meeting a resting order of its own user: each mode takes quantity off the
+ * newest, the oldest or both without a trade, reports it, and leaves other users' orders to fill.
+ */
+class SelfTradePreventionTest {
+
+    private static final long SELF = 1;
+    private static final long OTHER = 2;
+
+    private final OrderBook book = new OrderBook(0, "TEST");
+    private final List<String> events = new ArrayList<>();
+    private final OrderBook.FillListener recorder = new OrderBook.FillListener() {
+        @Override
+        public void onFill(EngineOrder maker, EngineOrder taker, long price, long quantity) {
+            events.add("fill " + maker.getId() + " " + quantity);
+        }
+
+        @Override
+        public void onSelfTrade(EngineOrder maker, EngineOrder taker, long makerQuantity, long takerQuantity) {
+            events.add("self " + maker.getId() + " maker -" + makerQuantity + " taker -" + takerQuantity);
+        }
+    };
+    private long nextId;
+
+    @Test
+    void noneTradesWithItself() {
+        book.add(sell(SELF, 5));
+        book.match(buy(SELF, 5), SelfTradePrevention.NONE, recorder);
+        assertEquals(List.of("fill 1 5"), events);
+    }
+
+    @Test
+    void cancelNewestStopsTheIncomingOrder() {
+        book.add(sell(SELF, 5));
+        book.add(sell(OTHER, 5));
+
+        EngineOrder taker = buy(SELF, 8);
+        book.match(taker, SelfTradePrevention.CANCEL_NEWEST, recorder);
+
+        assertEquals(List.of("self 1 maker -0 taker -8"), events);
+        assertEquals(0, taker.getQuantity());
+        assertEquals(5, book.get(1).getQuantity());
+        assertEquals(10, book.getBestAsk().getTotalQuantity());
+    }
+
+    @Test
+    void cancelOldestRemovesTheRestingOrderAndCarriesOn() {
+        book.add(sell(SELF, 5));
+        book.add(sell(OTHER, 5));
+
+        EngineOrder taker = buy(SELF, 8);
+        book.match(taker, SelfTradePrevention.CANCEL_OLDEST, recorder);
+
+        assertEquals(List.of("self 1 maker -5 taker -0", "fill 2 5"), events);
+        assertEquals(3, taker.getQuantity());
+        assertFalse(book.contains(1));
+        assertNull(book.getBestAsk());
+    }
+
+    @Test
+    void decrementTakesTheSmallerQuantityOffBoth() {
+        book.add(sell(SELF, 3));
+        book.add(sell(OTHER, 5));
+
+        EngineOrder taker = buy(SELF, 8);
+        book.match(taker, SelfTradePrevention.DECREMENT, recorder);
+
+        // The resting order is used up; the rest of the taker fills against the other user
+        assertEquals(List.of("self 1 maker -3 taker -3", "fill 2 5"), events);
+        assertEquals(0, taker.getQuantity());
+        assertFalse(book.contains(1));
+    }
+
+    @Test
+    void decrementLeavesTheLargerRestingOrderInPlace() {
+        book.add(sell(SELF, 10));
+        book.add(sell(OTHER, 5));
+
+        EngineOrder taker = buy(SELF, 4);
+        book.match(taker, SelfTradePrevention.DECREMENT, recorder);
+
+        assertEquals(List.of("self 1 maker -4 taker -4"), events);
+        assertEquals(6, book.get(1).getQuantity());
+        assertEquals(11, book.getBestAsk().getTotalQuantity());
+    }
+
+    private EngineOrder buy(long userId, long quantity) {
+        return order(userId, Order.Type.BUY, quantity);
+    }
+
+    private EngineOrder sell(long userId, long quantity) {
+        return order(userId, Order.Type.SELL, quantity);
+    }
+
+    private EngineOrder order(long userId, Order.Type type, long quantity) {
+        EngineOrder order = new EngineOrder();
+        order.setId(++nextId);
+        order.setUserId(userId);
+        order.setType(type);
+        order.setPrice(100);
+        order.setQuantity(quantity);
+        return order;
+    }
+}
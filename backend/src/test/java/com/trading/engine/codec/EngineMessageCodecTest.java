@@ -0,0 +1,191 @@
+package com.trading.engine.codec;
+
+import com.trading.engine.book.Execution;
+import com.trading.engine.ledger.RejectReason;
+import com.trading.engine.model.Order;
+import com.trading.engine.report.ExecutionReport;
+import com.trading.engine.symbol.SymbolSpec;
+import com.trading.engine.symbol.TickerCode;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each message survives the Kafka serializer and deserializer field for field, at its documented
+ * length, and bytes from another schema version, an unknown template or a short record are refused.
+ * An enum byte that names no value reads as null rather than throwing.
+ */
+class EngineMessageCodecTest {
+
+    private static final String TOPIC = "stock-orders";
+
+    private final EngineMessageSerializer serializer = new EngineMessageSerializer();
+    private final EngineMessageDeserializer deserializer = new EngineMessageDeserializer();
+
+    @Test
+    void orderRoundTrips() {
+        Order order = new Order();
+        order.setUserId(42L);
+        order.setTicker("AAPL");
+        order.setType(Order.Type.SELL);
+        order.setPrice(new BigDecimal("187.25"));
+        order.setQuantity(300);
+        order.setTimeInForce(Order.TimeInForce.FOK);
+        order.setIngressNanos(123_456_789L);
+
+        byte[] bytes = OrderMessage.encode(order, 1_700_000_000_000L).toBytes();
+        assertEquals(50, bytes.length);
+
+        OrderMessage m = assertInstanceOf(OrderMessage.class, deserializer.deserialize(TOPIC, bytes));
+        assertEquals(42, m.getUserId());
+        assertEquals("AAPL", m.getTicker());
+        assertEquals(TickerCode.of("AAPL"), m.getTickerCode());
+        assertEquals(Order.Type.SELL, m.getType());
+        assertEquals(18725, m.getPriceMantissa());
+        assertEquals(2, m.getPriceExponent());
+        assertEquals(new BigDecimal("187.25"), m.getPrice());
+        assertEquals(300, m.getQuantity());
+        assertEquals(Order.TimeInForce.FOK, m.getTimeInForce());
+        assertEquals(1_700_000_000_000L, m.getTimestamp());
+        assertEquals(123_456_789L, m.getIngressNanos());
+        assertFalse(m.isMarket());
+    }
+
+    @Test
+    void aMarketOrderHasNoPriceAndNeverRests() {
+        Order order = new Order();
+        order.setUserId(1L);
+        order.setTicker("MSFT");
+        order.setType(Order.Type.BUY);
+        order.setQuantity(10);
+
+        OrderMessage m = (OrderMessage) deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, order));
+        assertTrue(m.isMarket());
+        assertEquals(Order.TimeInForce.IOC, m.getTimeInForce());
+    }
+
+    @Test
+    void aPriceWithANegativeScaleIsSentAsAWholeNumber() {
+        Order order = new Order();
+        order.setUserId(1L);
+        order.setTicker("BRK");
+        order.setType(Order.Type.BUY);
+        order.setPrice(new BigDecimal("1E+3"));
+        order.setQuantity(1);
+
+        OrderMessage m = (OrderMessage) deserializer.deserialize(TOPIC, OrderMessage.encode(order, 0).toBytes());
+        assertEquals(1000, m.getPriceMantissa());
+        assertEquals(0, m.getPriceExponent());
+    }
+
+    @Test
+    void cancelRoundTrips() {
+        byte[] bytes = serializer.serialize(TOPIC, CancelMessage.encode(9_001L, 42L, "TSLA", 77L));
+        assertEquals(34, bytes.length);
+
+        CancelMessage m = assertInstanceOf(CancelMessage.class, deserializer.deserialize(TOPIC, bytes));
+        assertEquals(9_001L, m.getOrderId());
+        assertEquals(42L, m.getUserId());
+        assertEquals("TSLA", m.getTicker());
+        assertEquals(77L, m.getIngressNanos());
+    }
+
+    @Test
+    void replaceRoundTrips() {
+        byte[] bytes = serializer.serialize(TOPIC, ReplaceMessage.encode(9_001L, 42L, "TSLA", new BigDecimal("251.5"), 40, 77L));
+        assertEquals(50, bytes.length);
+
+        ReplaceMessage m = assertInstanceOf(ReplaceMessage.class, deserializer.deserialize(TOPIC, bytes));
+        assertEquals(9_001L, m.getOrderId());
+        assertEquals(42L, m.getUserId());
+        assertEquals("TSLA", m.getTicker());
+        assertEquals(2515, m.getPriceMantissa());
+        assertEquals(1, m.getPriceExponent());
+        assertEquals(40, m.getQuantity());
+        assertEquals(77L, m.getIngressNanos());
+    }
+
+    @Test
+    void tradeRoundTrips() {
+        SymbolSpec spec = new SymbolSpec(3, "GOOGLX", TickerCode.of("GOOGLX"), new BigDecimal("0.05"), 1);
+        Execution execution = new Execution(555L, 3, 2_001L, 40L, 400_200L, 10L, 20L, 100L, 200L, 1_700_000_000_123L);
+
+        byte[] bytes = serializer.serialize(TOPIC, TradeMessage.encode(execution, spec));
+        assertEquals(82, bytes.length);
+
+        TradeMessage m = assertInstanceOf(TradeMessage.class, deserializer.deserialize(TOPIC, bytes));
+        assertEquals("GOOGLX", m.getTicker());
+        // The receiver supplies its own symbol id for the ticker
+        assertEquals(new Execution(555L, 7, 2_001L, 40L, 400_200L, 10L, 20L, 100L, 200L, 1_700_000_000_123L),
+                m.toExecution(7));
+    }
+
+    @Test
+    void reportRoundTrips() {
+        byte[] bytes = serializer.serialize(TOPIC, ReportMessage.encode(11L, 22L, 33L, TickerCode.of("NVDA"),
+                ExecutionReport.Status.CANCELLED, RejectReason.SELF_TRADE, 5L, 0L, 61_250L, 1_700_000_000_456L));
+        assertEquals(74, bytes.length);
+
+        ReportMessage m = assertInstanceOf(ReportMessage.class, deserializer.deserialize(TOPIC, bytes));
+        assertEquals(11L, m.getRequestId());
+        assertEquals(new ExecutionReport("c-9", 22L, 33L, "NVDA", ExecutionReport.Status.CANCELLED, RejectReason.SELF_TRADE,
+                5L, 0L, new BigDecimal("122.50"), 1_700_000_000_456L), m.toReport("c-9"));
+        // No reason and nothing filled: no reason and no average price
+        ReportMessage resting = ReportMessage.encode(12L, 23L, 33L, TickerCode.of("NVDA"), ExecutionReport.Status.NEW,
+                null, 0L, 5L, 0L, 0L);
+        ExecutionReport report = ((ReportMessage) deserializer.deserialize(TOPIC, resting.toBytes())).toReport(null);
+        assertNull(report.reason());
+        assertNull(report.averagePrice());
+    }
+
+    @Test
+    void refusesForeignOrTruncatedBytes() {
+        byte[] bytes = CancelMessage.encode(1L, 2L, "AAPL", 0L).toBytes();
+
+        byte[] otherVersion = bytes.clone();
+        otherVersion[0] = EngineMessage.SCHEMA_VERSION + 1;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, otherVersion));
+
+        byte[] unknownTemplate = bytes.clone();
+        unknownTemplate[1] = 99;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, unknownTemplate));
+
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, truncated));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, new byte[1]));
+    }
+
+    @Test
+    void enumBytesThatNameNoValueReadAsNull() {
+        Order order = new Order();
+        order.setUserId(1L);
+        order.setTicker("AAPL");
+        order.setType(Order.Type.BUY);
+        order.setPrice(new BigDecimal("10.00"));
+        order.setQuantity(1);
+        byte[] bytes = OrderMessage.encode(order, 0).toBytes();
+        bytes[EngineMessage.HEADER_LENGTH + 21] = 9; // side
+        bytes[EngineMessage.HEADER_LENGTH + 22] = -3; // time in force
+
+        OrderMessage m = (OrderMessage) deserializer.deserialize(TOPIC, bytes);
+        assertNull(m.getType());
+        assertNull(m.getTimeInForce());
+
+        byte[] report = ReportMessage.encode(1L, 2L, 3L, TickerCode.of("AAPL"), ExecutionReport.Status.REJECTED,
+                RejectReason.INVALID_PRICE, 0L, 0L, 0L, 0L).toBytes();
+        report[EngineMessage.HEADER_LENGTH + 64] = 42; // status
+        report[EngineMessage.HEADER_LENGTH + 65] = 99; // reason
+        ReportMessage r = (ReportMessage) deserializer.deserialize(TOPIC, report);
+        assertNull(r.getStatus());
+        assertNull(r.getReason());
+    }
+}
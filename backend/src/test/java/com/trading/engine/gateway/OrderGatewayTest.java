@@ -0,0 +1,205 @@
+package com.trading.engine.gateway;
+
+import com.trading.engine.codec.ReportMessage;
+import com.trading.engine.config.KafkaConfig;
+import com.trading.engine.kafka.OrderProducer;
+import com.trading.engine.ledger.RejectReason;
+import com.trading.engine.metrics.EngineMetrics;
+import com.trading.engine.model.Order;
+import com.trading.engine.report.ExecutionReport;
+import com.trading.engine.service.IdGenerator;
+import com.trading.engine.symbol.TickerCode;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Correlation of execution reports with the requests waiting for them: each report completes its own
+ * request's future and nothing else, a retry with the same client order id is answered from the first
+ * request, a send that never reached the broker fails its future and can be retried, and a failing
+ * report consumer is replaced by one that carries on where it stopped.
+ */
+class OrderGatewayTest {
+
+    private static final int NODE_ID = 3;
+    private static final TopicPartition REPORTS = new TopicPartition(KafkaConfig.REPORT_TOPIC, NODE_ID);
+
+    private final OrderGateway gateway = new OrderGateway();
+    private final OrderProducer producer = mock(OrderProducer.class);
+    private final MockConsumer<Object, Object> consumer = new MockConsumer<>("latest");
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<Object, Object> consumerFactory = mock(ConsumerFactory.class);
+    private CompletableFuture<SendResult<String, Object>> sent = new CompletableFuture<>();
+    private long nextOffset;
+
+    @BeforeEach
+    void start() {
+        when(consumerFactory.createConsumer(any(), any(), any(), any())).thenReturn(consumer);
+        consumer.updateEndOffsets(Map.of(REPORTS, 0L));
+        when(producer.sendMessage(any(Order.class), anyLong())).thenAnswer(invocation -> sent);
+
+        ReflectionTestUtils.setField(gateway, "orderProducer", producer);
+        ReflectionTestUtils.setField(gateway, "idGenerator", new IdGenerator(NODE_ID));
+        ReflectionTestUtils.setField(gateway, "metrics", mock(EngineMetrics.class));
+        ReflectionTestUtils.setField(gateway, "consumerFactory", consumerFactory);
+        ReflectionTestUtils.setField(gateway, "nodeId", NODE_ID);
+        ReflectionTestUtils.setField(gateway, "reportPartitions", 8);
+        ReflectionTestUtils.setField(gateway, "dedupWindowMs", 60_000L);
+        gateway.start();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        gateway.stop();
+    }
+
+    @Test
+    void completesEachRequestWithItsOwnReport() throws Exception {
+        CompletableFuture<ExecutionReport> first = gateway.submit(order("c-1"));
+        long firstId = lastRequestId();
+        CompletableFuture<ExecutionReport> second = gateway.submit(order("c-2"));
+        long secondId = lastRequestId();
+        assertEquals(2, gateway.getInFlight());
+
+        deliver(secondId, ExecutionReport.Status.REJECTED, RejectReason.INSUFFICIENT_FUNDS, 0, 0);
+        ExecutionReport rejected = second.get(5, TimeUnit.SECONDS);
+        assertEquals("c-2", rejected.clientOrderId());
+        assertEquals(ExecutionReport.Status.REJECTED, rejected.status());
+        assertEquals(RejectReason.INSUFFICIENT_FUNDS, rejected.reason());
+        assertNull(rejected.averagePrice());
+        assertFalse(first.isDone());
+
+        deliver(firstId, ExecutionReport.Status.PARTIALLY_FILLED, null, 40, 60);
+        ExecutionReport partial = first.get(5, TimeUnit.SECONDS);
+        assertEquals("c-1", partial.clientOrderId());
+        assertEquals(77L, partial.orderId());
+        assertEquals(42L, partial.userId());
+        assertEquals("AAPL", partial.ticker());
+        assertEquals(40, partial.filledQuantity());
+        assertEquals(60, partial.leavesQuantity());
+        assertEquals(0, new BigDecimal("150.25").compareTo(partial.averagePrice()));
+        assertEquals(0, gateway.getInFlight());
+    }
+
+    @Test
+    void ignoresReportsForRequestsItIsNotWaitingFor() throws Exception {
+        CompletableFuture<ExecutionReport> report = gateway.submit(order(null));
+        long requestId = lastRequestId();
+
+        // Another gateway node sharing the partition
+        deliver(requestId + 1, ExecutionReport.Status.FILLED, null, 100, 0);
+        assertThrows(TimeoutException.class, () -> report.get(200, TimeUnit.MILLISECONDS));
+
+        deliver(requestId, ExecutionReport.Status.NEW, null, 0, 100);
+        assertEquals(ExecutionReport.Status.NEW, report.get(5, TimeUnit.SECONDS).status());
+    }
+
+    @Test
+    void aRetryWithTheSameClientOrderIdIsAnsweredFromTheFirstRequest() throws Exception {
+        CompletableFuture<ExecutionReport> first = gateway.submit(order("dup"));
+        CompletableFuture<ExecutionReport> retry = gateway.submit(order("dup"));
+        verify(producer, times(1)).sendMessage(any(Order.class), anyLong());
+
+        // A caller giving up on its copy doesn't affect the other
+        retry.cancel(true);
+        deliver(lastRequestId(), ExecutionReport.Status.FILLED, null, 100, 0);
+        assertEquals(ExecutionReport.Status.FILLED, first.get(5, TimeUnit.SECONDS).status());
+
+        // Still answered from the first request once it is done
+        assertEquals(ExecutionReport.Status.FILLED, gateway.submit(order("dup")).get(5, TimeUnit.SECONDS).status());
+        verify(producer, times(1)).sendMessage(any(Order.class), anyLong());
+    }
+
+    @Test
+    void aSendThatFailedCanBeRetried() throws Exception {
+        CompletableFuture<ExecutionReport> report = gateway.submit(order("retry-me"));
+        sent.completeExceptionally(new IllegalStateException("broker unavailable"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> report.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(0, gateway.getInFlight());
+
+        sent = new CompletableFuture<>();
+        CompletableFuture<ExecutionReport> retry = gateway.submit(order("retry-me"));
+        verify(producer, times(2)).sendMessage(any(Order.class), anyLong());
+        deliver(lastRequestId(), ExecutionReport.Status.NEW, null, 0, 100);
+        assertEquals(ExecutionReport.Status.NEW, retry.get(5, TimeUnit.SECONDS).status());
+    }
+
+    @Test
+    void aFailedPollReopensTheConsumerAtTheNextReport() throws Exception {
+        CompletableFuture<ExecutionReport> first = gateway.submit(order("c-1"));
+        deliver(lastRequestId(), ExecutionReport.Status.NEW, null, 0, 100);
+        assertEquals(ExecutionReport.Status.NEW, first.get(5, TimeUnit.SECONDS).status());
+
+        MockConsumer<Object, Object> reopened = new MockConsumer<>("latest");
+        when(consumerFactory.createConsumer(any(), any(), any(), any())).thenReturn(reopened);
+        consumer.setPollException(new KafkaException("broker went away"));
+
+        // Sent while the listener was down: the new consumer resumes after the last report it saw
+        CompletableFuture<ExecutionReport> second = gateway.submit(order("c-2"));
+        deliver(reopened, lastRequestId(), ExecutionReport.Status.FILLED, null, 100, 0);
+        assertEquals(ExecutionReport.Status.FILLED, second.get(5, TimeUnit.SECONDS).status());
+        assertTrue(consumer.closed());
+    }
+
+    private Order order(String clientOrderId) {
+        Order order = new Order();
+        order.setUserId(42L);
+        order.setTicker("AAPL");
+        order.setType(Order.Type.BUY);
+        order.setPrice(new BigDecimal("150.25"));
+        order.setQuantity(100);
+        order.setClientOrderId(clientOrderId);
+        return order;
+    }
+
+    private long lastRequestId() {
+        ArgumentCaptor<Long> requestId = ArgumentCaptor.forClass(Long.class);
+        verify(producer, atLeastOnce()).sendMessage(any(Order.class), requestId.capture());
+        return requestId.getValue();
+    }
+
+    // What the engine sends to this node's report partition, once the listener has it assigned
+    private void deliver(long requestId, ExecutionReport.Status status, RejectReason reason, long filled, long leaves) {
+        deliver(consumer, requestId, status, reason, filled, leaves);
+    }
+
+    private void deliver(MockConsumer<Object, Object> consumer, long requestId, ExecutionReport.Status status,
+                         RejectReason reason, long filled, long leaves) {
+        ReportMessage report = ReportMessage.encode(requestId, 77L, 42L, TickerCode.of("AAPL"), status, reason,
+                filled, leaves, filled * 15_025, System.currentTimeMillis());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (consumer.assignment().isEmpty() && System.nanoTime() < deadline) Thread.onSpinWait();
+        consumer.addRecord(new ConsumerRecord<>(KafkaConfig.REPORT_TOPIC, NODE_ID, nextOffset++, null, report));
+    }
+}
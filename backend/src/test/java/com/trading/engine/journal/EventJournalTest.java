@@ -0,0 +1,197 @@
+package com.trading.engine.journal;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.Execution;
+import com.trading.engine.ledger.Settlement;
+import com.trading.engine.model.Order;
+import com.trading.engine.symbol.SymbolRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every record type comes back from replay as it was appended, under its sequence; a reopened journal
+ * carries on where it stopped; old segments go once a snapshot covers them; and a standby's copy holds
+ * the primary's records under the same sequences.
+ */
+class EventJournalTest {
+
+    private static final int SEGMENT_SIZE = 1 << 16;
+
+    @TempDir
+    Path dir;
+
+    private final SymbolRegistry symbols = new SymbolRegistry("AAPL:0.01:1,MSFT:0.05:10", new BigDecimal("0.01"), 1, 16);
+    private final int aapl = symbols.id("AAPL");
+    private final int msft = symbols.id("MSFT");
+
+    @Test
+    void replaysEveryRecordTypeAsAppended() {
+        try (EventJournal journal = EventJournal.open(dir, SEGMENT_SIZE, symbols)) {
+            assertEquals(1, journal.appendOrder(7, order(1, Order.Type.BUY, Order.TimeInForce.GTC)));
+            assertEquals(2, journal.appendOrder(8, order(2, Order.Type.SELL, Order.TimeInForce.IOC)));
+            assertEquals(3, journal.appendTrade(new Execution(30, msft, 2000, 10, 1_000_000, 5, 6, 1, 2, 1_700_000_000_000L)));
+            assertEquals(4, journal.appendSettlement(5, 99_000, 31, msft, 40, 10, 1_000_000));
+            assertEquals(5, journal.appendAmend(9, 1, msft, 20));
+            assertEquals(6, journal.appendCancel(10, 1, msft));
+            assertEquals(6, journal.getLastSequence());
+
+            Recorder recorder = new Recorder();
+            journal.replay(0, recorder);
+            assertEquals(List.of(
+                    "1@7 order 1 user 101 BUY GTC " + msft + " 2000x30 at 1700000000001",
+                    "2@8 order 2 user 102 SELL IOC " + msft + " 2000x30 at 1700000000002",
+                    "3 trade " + new Execution(30, msft, 2000, 10, 1_000_000, 5, 6, 1, 2, 1_700_000_000_000L),
+                    "4 settlement " + new Settlement(5, 99_000, 31, msft, 40, 10, 1_000_000),
+                    "5@9 amend 1 " + msft + " to 20",
+                    "6@10 cancel 1 " + msft), recorder.records);
+        }
+    }
+
+    @Test
+    void replayStartsAfterTheGivenSequence() {
+        try (EventJournal journal = EventJournal.open(dir, SEGMENT_SIZE, symbols)) {
+            for (int i = 1; i <= 5; i++) journal.appendCancel(i, i, aapl);
+
+            Recorder recorder = new Recorder();
+            journal.replay(3, recorder);
+            assertEquals(List.of("4@4 cancel 4 " + aapl, "5@5 cancel 5 " + aapl), recorder.records);
+        }
+    }
+
+    @Test
+    void aReopenedJournalContinuesItsSequence() {
+        try (EventJournal journal = EventJournal.open(dir, SEGMENT_SIZE, symbols)) {
+            journal.appendCancel(1, 11, aapl);
+            journal.appendCancel(2, 12, aapl);
+        }
+
+        try (EventJournal journal = EventJournal.open(dir, SEGMENT_SIZE, symbols)) {
+            assertEquals(2, journal.getLastSequence());
+            assertEquals(3, journal.appendCancel(3, 13, aapl));
+
+            Recorder recorder = new Recorder();
+            journal.replay(0, recorder);
+            assertEquals(List.of("1@1 cancel 11 " + aapl, "2@2 cancel 12 " + aapl, "3@3 cancel 13 " + aapl), recorder.records);
+        }
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesOnlyThoseASnapshotCovers() throws IOException {
+        // Room for a handful of cancels per segment
+        try (EventJournal journal = EventJournal.open(dir, 256, symbols)) {
+            for (int i = 1; i <= 40; i++) journal.appendCancel(i, i, aapl);
+            long segments = segmentCount();
+            assertTrue(segments > 3, "40 records should span several segments, got " + segments);
+
+            journal.snapshotTaken(25);
+            assertTrue(segmentCount() < segments);
+
+            Recorder recorder = new Recorder();
+            journal.replay(25, recorder);
+            assertEquals(15, recorder.records.size());
+            assertEquals("26@26 cancel 26 " + aapl, recorder.records.get(0));
+        }
+    }
+
+    @Test
+    void aStandbyCopyKeepsThePrimarysSequencesAndRejectsGaps() {
+        List<byte[]> shipped = new ArrayList<>();
+        try (EventJournal primary = EventJournal.open(dir.resolve("primary"), SEGMENT_SIZE, symbols);
+             EventJournal standby = EventJournal.open(dir.resolve("standby"), SEGMENT_SIZE, symbols)) {
+            primary.setTap((buffer, offset, length) -> {
+                byte[] bytes = new byte[length];
+                buffer.get(offset, bytes);
+                shipped.add(bytes);
+            });
+            primary.appendOrder(1, order(1, Order.Type.BUY, Order.TimeInForce.GTC));
+            primary.appendAmend(2, 1, msft, 10);
+            primary.appendCancel(3, 1, msft);
+
+            Recorder applied = new Recorder();
+            standby.append(ByteBuffer.wrap(concat(shipped.subList(0, 2))), applied);
+            // A redelivery of the second record is skipped
+            standby.append(ByteBuffer.wrap(concat(shipped.subList(1, 3))), applied);
+            assertEquals(3, standby.getLastSequence());
+            assertEquals(3, applied.records.size());
+
+            Recorder primaryRecords = new Recorder();
+            Recorder standbyRecords = new Recorder();
+            primary.replay(0, primaryRecords);
+            standby.replay(0, standbyRecords);
+            assertEquals(primaryRecords.records, standbyRecords.records);
+
+            primary.appendCancel(4, 2, msft);
+            primary.appendCancel(5, 3, msft);
+            assertThrows(IllegalStateException.class, () -> standby.append(ByteBuffer.wrap(shipped.get(4)), applied));
+        }
+    }
+
+    private EngineOrder order(long id, Order.Type type, Order.TimeInForce timeInForce) {
+        EngineOrder order = new EngineOrder();
+        order.setId(id);
+        order.setUserId(100 + id);
+        order.setSymbolId(msft);
+        order.setType(type);
+        order.setTimeInForce(timeInForce);
+        order.setPrice(2000);
+        order.setQuantity(30);
+        order.setTimestamp(1_700_000_000_000L + id);
+        return order;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".journal")).count();
+        }
+    }
+
+    private static byte[] concat(List<byte[]> records) {
+        ByteBuffer b = ByteBuffer.allocate(records.stream().mapToInt(r -> r.length).sum());
+        records.forEach(b::put);
+        return b.array();
+    }
+
+    private static final class Recorder implements EventJournal.Handler {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void onOrder(long sequence, long sourceOffset, EngineOrder o) {
+            records.add(sequence + "@" + sourceOffset + " order " + o.getId() + " user " + o.getUserId() + " " + o.getType()
+                    + " " + o.getTimeInForce() + " " + o.getSymbolId() + " " + o.getPrice() + "x" + o.getQuantity()
+                    + " at " + o.getTimestamp());
+        }
+
+        @Override
+        public void onCancel(long sequence, long sourceOffset, long orderId, int symbolId) {
+            records.add(sequence + "@" + sourceOffset + " cancel " + orderId + " " + symbolId);
+        }
+
+        @Override
+        public void onAmend(long sequence, long sourceOffset, long orderId, int symbolId, long quantity) {
+            records.add(sequence + "@" + sourceOffset + " amend " + orderId + " " + symbolId + " to " + quantity);
+        }
+
+        @Override
+        public void onTrade(long sequence, Execution execution) {
+            records.add(sequence + " trade " + execution);
+        }
+
+        @Override
+        public void onSettlement(long sequence, Settlement settlement) {
+            records.add(sequence + " settlement " + settlement);
+        }
+    }
+}
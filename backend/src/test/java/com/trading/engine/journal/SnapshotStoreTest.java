@@ -0,0 +1,122 @@
+package com.trading.engine.journal;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.book.OrderBook;
+import com.trading.engine.ledger.Settlement;
+import com.trading.engine.model.Order;
+import com.trading.engine.symbol.SymbolRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * A snapshot gives back the same books (queue order included) and settled account state, and recovery
+ * starts from the newest snapshot the database had caught up with, which is kept until a newer one is.
+ */
+class SnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final SymbolRegistry symbols = new SymbolRegistry("AAPL:0.01:1,MSFT:0.05:10", new BigDecimal("0.01"), 1, 16);
+    private final int aapl = symbols.id("AAPL");
+    private final int msft = symbols.id("MSFT");
+
+    @Test
+    void restoresBooksInPriorityOrderAndAccounts() {
+        OrderBook book = new OrderBook(msft, "MSFT");
+        book.add(order(1, Order.Type.BUY, 100, 10));
+        book.add(order(2, Order.Type.BUY, 101, 20));
+        book.add(order(3, Order.Type.BUY, 100, 30));
+        book.add(order(4, Order.Type.SELL, 105, 40));
+        List<Settlement> accounts = List.of(
+                new Settlement(7, 50_000, 12, msft, 70, 40, 20_000),
+                new Settlement(8, 60_000, 13, Settlement.NO_SYMBOL, 0, 0, 0));
+
+        SnapshotStore.write(dir, 42, 99, List.of(book), accounts, symbols, 42);
+        // A fresh registry, as after a restart: tickers are interned again
+        SymbolRegistry restarted = new SymbolRegistry("", new BigDecimal("0.01"), 1, 16);
+        SnapshotStore.Snapshot snapshot = SnapshotStore.loadLatest(dir, restarted, 42);
+
+        assertEquals(42, snapshot.sequence());
+        assertEquals(99, snapshot.sourceOffset());
+        assertEquals(1, snapshot.books().size());
+        OrderBook restored = snapshot.books().get(0);
+        assertEquals("MSFT", restored.getTicker());
+        assertEquals(restarted.id("MSFT"), restored.getSymbolId());
+        assertEquals(List.of("2 BUY 101x20", "1 BUY 100x10", "3 BUY 100x30", "4 SELL 105x40"), describe(restored));
+
+        int restartedMsft = restarted.id("MSFT");
+        assertEquals(List.of(
+                new Settlement(7, 50_000, 12, restartedMsft, 70, 40, 20_000),
+                new Settlement(8, 60_000, 13, Settlement.NO_SYMBOL, 0, 0, 0)), snapshot.accounts());
+    }
+
+    @Test
+    void loadsTheNewestSnapshotAtOrBeforeThePersistedSequence() {
+        assertNull(SnapshotStore.loadLatest(dir, symbols, 0));
+        for (long sequence : new long[] {10, 20, 30}) write(sequence, 0);
+
+        assertEquals(20, SnapshotStore.loadLatest(dir, symbols, 25).sequence());
+        assertEquals(30, SnapshotStore.loadLatest(dir, symbols, 30).sequence());
+        // Nothing the database has caught up with is left: the oldest is the best there is
+        assertEquals(10, SnapshotStore.loadLatest(dir, symbols, 5).sequence());
+    }
+
+    @Test
+    void keepsSnapshotsBackToTheRecoveryBase() throws IOException {
+        assertEquals(10, write(10, 0));
+        assertEquals(10, write(20, 15));
+        assertEquals(10, write(30, 15));
+        assertEquals(List.of(10L, 20L, 30L), sequences());
+
+        // Once the database is past them, only the last two stay
+        assertEquals(40, write(40, 45));
+        assertEquals(List.of(30L, 40L), sequences());
+    }
+
+    private long write(long sequence, long persistedSequence) {
+        OrderBook book = new OrderBook(aapl, "AAPL");
+        EngineOrder order = order(sequence, Order.Type.SELL, 100, 1);
+        order.setSymbolId(aapl);
+        book.add(order);
+        return SnapshotStore.write(dir, sequence, sequence, List.of(book), List.of(), symbols, persistedSequence);
+    }
+
+    private List<Long> sequences() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("snapshot-") && name.endsWith(".bin"))
+                    .sorted()
+                    .map(name -> Long.parseLong(name.substring("snapshot-".length(), name.length() - ".bin".length())))
+                    .toList();
+        }
+    }
+
+    private static List<String> describe(OrderBook book) {
+        List<String> orders = new ArrayList<>();
+        book.forEach(o -> orders.add(o.getId() + " " + o.getType() + " " + o.getPrice() + "x" + o.getQuantity()));
+        return orders;
+    }
+
+    private EngineOrder order(long id, Order.Type type, long price, long quantity) {
+        EngineOrder order = new EngineOrder();
+        order.setId(id);
+        order.setUserId(id);
+        order.setSymbolId(msft);
+        order.setType(type);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        return order;
+    }
+}
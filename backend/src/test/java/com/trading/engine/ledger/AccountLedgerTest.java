@@ -0,0 +1,141 @@
+package com.trading.engine.ledger;
+
+import com.trading.engine.book.EngineOrder;
+import com.trading.engine.model.Holding;
+import com.trading.engine.model.Order;
+import com.trading.engine.model.User;
+import com.trading.engine.persistence.WriteBehindPersister;
+import com.trading.engine.repository.HoldingRepository;
+import com.trading.engine.repository.UserRepository;
+import com.trading.engine.service.IdGenerator;
+import com.trading.engine.symbol.SymbolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Accounts are preloaded at startup and the matching path only looks them up: an order whose account
+ * isn't resident is rejected without touching the database, and the account is loaded off that thread.
+ */
+class AccountLedgerTest {
+
+    private final SymbolRegistry symbols = new SymbolRegistry("AAPL:0.01:1", new BigDecimal("0.01"), 1, 16);
+    private final UserRepository users = mock(UserRepository.class);
+    private final HoldingRepository holdings = mock(HoldingRepository.class);
+    private final AccountLedger ledger = new AccountLedger();
+
+    @AfterEach
+    void stop() {
+        ledger.stop();
+    }
+
+    @Test
+    void preloadsEveryAccountWithItsHoldings() {
+        when(users.findAll()).thenReturn(List.of(user(1, "100.00"), user(2, "50.00")));
+        when(holdings.findAll()).thenReturn(List.of(holding(2, "AAPL", 30, "10.00")));
+        start();
+
+        assertEquals(10_000, ledger.find(1).getCash());
+        assertEquals(30, ledger.find(2).getPosition(symbols.id("AAPL")).getQuantity());
+        assertEquals(30_000, ledger.find(2).getPosition(symbols.id("AAPL")).getCost());
+
+        assertNull(ledger.reserve(sell(2, 30), 1));
+        verify(users, never()).findById(anyLong());
+        verify(holdings, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    void aMissIsRejectedAndLoadedOffTheMatchingThread() throws InterruptedException {
+        start();
+        Set<String> loadedOn = ConcurrentHashMap.newKeySet();
+        when(users.findById(7L)).thenAnswer(call -> {
+            loadedOn.add(Thread.currentThread().getName());
+            return Optional.of(user(7, "100.00"));
+        });
+
+        assertEquals(RejectReason.ACCOUNT_NOT_LOADED, ledger.reserve(buy(7, 100, 10), 1));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (ledger.find(7) == null && System.currentTimeMillis() < deadline) Thread.sleep(10);
+
+        assertEquals(Set.of("ledger-loader"), loadedOn);
+        // The retry finds it resident
+        assertNull(ledger.reserve(buy(7, 100, 10), 1));
+        assertEquals(1_000, ledger.find(7).getReservedCash());
+    }
+
+    @Test
+    void warmLoadsOnceAndKnowsNothingOfUnknownUsers() {
+        start();
+        when(users.findById(3L)).thenReturn(Optional.of(user(3, "1.00")));
+        when(users.findById(4L)).thenReturn(Optional.empty());
+
+        Account account = ledger.warm(3);
+        assertNotNull(account);
+        assertSame(account, ledger.warm(3));
+        verify(users).findById(3L);
+
+        assertNull(ledger.warm(4));
+        assertNull(ledger.find(4));
+    }
+
+    private void start() {
+        ReflectionTestUtils.setField(ledger, "userRepository", users);
+        ReflectionTestUtils.setField(ledger, "holdingRepository", holdings);
+        ReflectionTestUtils.setField(ledger, "persister", mock(WriteBehindPersister.class));
+        ReflectionTestUtils.setField(ledger, "idGenerator", mock(IdGenerator.class));
+        ReflectionTestUtils.setField(ledger, "symbolRegistry", symbols);
+        ledger.start();
+    }
+
+    private static User user(long id, String balance) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user_" + id);
+        user.setBalance(new BigDecimal(balance));
+        return user;
+    }
+
+    private static Holding holding(long userId, String ticker, int quantity, String averagePrice) {
+        Holding holding = new Holding();
+        holding.setId(userId * 100);
+        holding.setUserId(userId);
+        holding.setTicker(ticker);
+        holding.setQuantity(quantity);
+        holding.setAveragePrice(new BigDecimal(averagePrice));
+        return holding;
+    }
+
+    private EngineOrder buy(long userId, long price, long quantity) {
+        return order(userId, Order.Type.BUY, price, quantity);
+    }
+
+    private EngineOrder sell(long userId, long quantity) {
+        return order(userId, Order.Type.SELL, 1, quantity);
+    }
+
+    private EngineOrder order(long userId, Order.Type type, long price, long quantity) {
+        EngineOrder order = new EngineOrder();
+        order.setUserId(userId);
+        order.setSymbolId(symbols.id("AAPL"));
+        order.setType(type);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        return order;
+    }
+}
@@ -0,0 +1,119 @@
+package com.trading.engine.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservation and settlement arithmetic in cents: orders only claim what is still available, a fill
+ * is paid out of its claim (price improvement released), a sale takes its share of the cost basis,
+ * and restored state only replaces cash with a newer version.
+ */
+class AccountTest {
+
+    private static final int SYMBOL = 3;
+
+    private final Account account = new Account(1, 100_000);
+
+    @Test
+    void ordersOnlyClaimAvailableCash() {
+        assertTrue(account.reserveCash(60_000));
+        assertFalse(account.reserveCash(40_001));
+        assertTrue(account.reserveCash(40_000));
+        assertEquals(100_000, account.getReservedCash());
+
+        account.releaseCash(30_000);
+        assertEquals(70_000, account.getReservedCash());
+        assertEquals(100_000, account.getCash());
+    }
+
+    @Test
+    void ordersOnlyClaimSharesHeldAndNotYetClaimed() {
+        assertFalse(account.reserveShares(SYMBOL, 1), "no position at all");
+        account.putPosition(SYMBOL, 77, 50, 5_000);
+
+        assertTrue(account.reserveShares(SYMBOL, 30));
+        assertFalse(account.reserveShares(SYMBOL, 21));
+        assertTrue(account.reserveShares(SYMBOL, 20));
+
+        account.releaseShares(SYMBOL, 50);
+        assertEquals(0, account.getPosition(SYMBOL).getReserved());
+    }
+
+    @Test
+    void aBuyIsPaidOutOfItsReservationAndReleasesThePriceImprovement() {
+        // Limit 1.10 for 100 shares reserved, filled at 1.00
+        assertTrue(account.reserveCash(11_000));
+        Account.Position p = account.buy(SYMBOL, 100, 10_000, 11_000, 77);
+
+        assertEquals(90_000, account.getCash());
+        assertEquals(0, account.getReservedCash());
+        assertEquals(77, p.getHoldingId());
+        assertEquals(100, p.getQuantity());
+        assertEquals(10_000, p.getCost());
+
+        // A second fill adds to the same position
+        account.buy(SYMBOL, 50, 6_000, 6_000, 78);
+        assertEquals(77, p.getHoldingId());
+        assertEquals(150, p.getQuantity());
+        assertEquals(16_000, p.getCost());
+    }
+
+    @Test
+    void aSaleKeepsTheAveragePriceOfWhatIsLeft() {
+        account.putPosition(SYMBOL, 77, 3, 1_000); // 333.33 cents each
+        assertTrue(account.reserveShares(SYMBOL, 3));
+
+        Account.Position p = account.sell(SYMBOL, 1, 500, 0);
+        assertEquals(100_500, account.getCash());
+        assertEquals(2, p.getQuantity());
+        assertEquals(2, p.getReserved());
+        assertEquals(667, p.getCost());
+
+        account.sell(SYMBOL, 2, 1_000, 0);
+        assertEquals(0, p.getQuantity());
+        assertEquals(0, p.getCost());
+        assertEquals(0, p.getReserved());
+    }
+
+    @Test
+    void restoredCashOnlyReplacesAnOlderVersion() {
+        account.stamp(10);
+
+        account.restore(new Settlement(1, 50_000, 9, SYMBOL, 77, 20, 2_000));
+        assertEquals(100_000, account.getCash());
+        assertEquals(10, account.getCashVersion());
+        // The position is taken as it was, whatever the cash version
+        assertEquals(20, account.getPosition(SYMBOL).getQuantity());
+        assertEquals(2_000, account.getPosition(SYMBOL).getCost());
+
+        account.restore(new Settlement(1, 50_000, 11, Settlement.NO_SYMBOL, 0, 0, 0));
+        assertEquals(50_000, account.getCash());
+        assertEquals(11, account.getCashVersion());
+    }
+
+    @Test
+    void collectsPositionsInTheGivenSymbolsOrCashAlone() {
+        List<Settlement> out = new ArrayList<>();
+        account.collect(symbolId -> true, out);
+        assertTrue(out.isEmpty(), "a balance straight from the database needs no snapshot entry");
+
+        account.putPosition(SYMBOL, 77, 20, 2_000);
+        account.putPosition(5, 78, 10, 900);
+        account.stamp(12);
+
+        account.collect(symbolId -> symbolId == 5, out);
+        assertEquals(List.of(new Settlement(1, 100_000, 12, 5, 78, 10, 900)), out);
+
+        out.clear();
+        account.collect(symbolId -> symbolId == 9, out);
+        assertEquals(List.of(new Settlement(1, 100_000, 12, Settlement.NO_SYMBOL, 0, 0, 0)), out);
+        assertNull(account.getPosition(9));
+    }
+}
@@ -0,0 +1,235 @@
+package com.trading.engine.replica;
+
+import com.trading.engine.EngineApplication;
+import com.trading.engine.controller.TradeController;
+import com.trading.engine.ledger.Account;
+import com.trading.engine.ledger.AccountLedger;
+import com.trading.engine.model.Order;
+import com.trading.engine.service.OrderMatchingService;
+import com.trading.engine.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two engines in one JVM against embedded Postgres, Kafka and Redis: a primary taking orders and a
+ * standby following its journal. The standby must end up with the same books and reservations at the
+ * same journal sequences, with every periodic checksum agreeing, and take over when the primary goes.
+ */
+class StandbyReplicaTest {
+
+    private static final int PARTITIONS = 4;
+    private static final List<String> TICKERS = List.of("RPA", "RPB", "RPC", "RPD");
+    private static final List<Long> USERS = IntStream.range(0, 20).mapToObj(i -> 500_000L + i).toList();
+    private static final int ORDERS = 600;
+    private static final long TIMEOUT_MS = 60_000;
+
+    private static EmbeddedPostgres postgres;
+    private static EmbeddedKafkaBroker kafka;
+    private static RedisServer redis;
+    private static int redisPort;
+
+    @BeforeAll
+    static void startInfrastructure() throws IOException {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        postgres = EmbeddedPostgres.start();
+        kafka = new EmbeddedKafkaKraftBroker(1, PARTITIONS);
+        kafka.afterPropertiesSet();
+        redisPort = freePort();
+        redis = new RedisServer(redisPort);
+        redis.start();
+    }
+
+    @AfterAll
+    static void stopInfrastructure() throws IOException {
+        redis.stop();
+        kafka.destroy();
+        postgres.close();
+    }
+
+    @Test
+    void standbyMirrorsPrimaryAndTakesOver() throws Exception {
+        ConfigurableApplicationContext primary = engine("primary", 1);
+        ConfigurableApplicationContext standby = null;
+        try {
+            seedAccounts(primary.getBean(JdbcTemplate.class));
+            standby = engine("standby", 2);
+
+            OrderMatchingService primaryMatching = primary.getBean(OrderMatchingService.class);
+            OrderMatchingService standbyMatching = standby.getBean(OrderMatchingService.class);
+            StandbyReplica replica = standby.getBean(StandbyReplica.class);
+
+            // 1. Resting, crossing and partially filled orders on every partition, then cancels of some survivors
+            TradeController gateway = primary.getBean(TradeController.class);
+            Random random = new Random(7);
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = new Order();
+                order.setUserId(USERS.get(random.nextInt(USERS.size())));
+                order.setTicker(TICKERS.get(random.nextInt(TICKERS.size())));
+                order.setType(random.nextBoolean() ? Order.Type.BUY : Order.Type.SELL);
+                order.setPrice(new BigDecimal(9_990 + random.nextInt(21)).movePointLeft(2));
+                order.setQuantity(1 + random.nextInt(20));
+                gateway.placeOrder(order);
+            }
+            MeterRegistry registry = primary.getBean(MeterRegistry.class);
+            await("primary matched every order", () -> received(registry) >= ORDERS);
+
+            JdbcTemplate jdbc = primary.getBean(JdbcTemplate.class);
+            await("resting orders persisted", () -> !restingOrders(jdbc).isEmpty());
+            List<Map<String, Object>> resting = restingOrders(jdbc);
+            for (Map<String, Object> o : resting.subList(0, Math.min(50, resting.size()))) {
+                gateway.cancelOrder(((Number) o.get("id")).longValue(), (String) o.get("ticker"),
+                        ((Number) o.get("user_id")).longValue());
+            }
+
+            // 2. Caught up: same sequence everywhere, so the books must match
+            await("standby caught up", () -> sequences(standbyMatching).equals(sequences(primaryMatching))
+                    && sequences(primaryMatching).values().stream().mapToLong(Long::longValue).sum() > ORDERS);
+            Thread.sleep(500); // nothing in flight: the last cancels are applied on both
+            await("standby caught up after cancels", () -> sequences(standbyMatching).equals(sequences(primaryMatching)));
+
+            // A standby only holds the partitions the primary journaled something on
+            Map<Integer, Long> primarySequences = sequences(primaryMatching);
+            primarySequences.values().removeIf(sequence -> sequence == 0);
+            assertFalse(primarySequences.isEmpty(), "the primary should have journaled orders");
+            for (int p : primarySequences.keySet()) {
+                assertEquals(primaryMatching.checksum(p), standbyMatching.checksum(p), "books of partition " + p);
+            }
+            assertEquals(0, replica.getDivergences());
+            assertTrue(replica.getChecksumsVerified() > 0, "the primary should have sent checksums");
+
+            AccountLedger primaryLedger = primary.getBean(AccountLedger.class);
+            AccountLedger standbyLedger = standby.getBean(AccountLedger.class);
+            // Symbol ids are per process, so each side looks the ticker up in its own registry
+            SymbolRegistry primarySymbols = primary.getBean(SymbolRegistry.class);
+            SymbolRegistry standbySymbols = standby.getBean(SymbolRegistry.class);
+            for (long userId : USERS) {
+                Account a = primaryLedger.find(userId);
+                Account b = standbyLedger.find(userId);
+                if (a == null) continue;
+                assertEquals(a.getCash(), b.getCash(), "cash of user " + userId);
+                assertEquals(a.getReservedCash(), b.getReservedCash(), "reserved cash of user " + userId);
+                for (String ticker : TICKERS) {
+                    Account.Position pa = a.getPosition(primarySymbols.id(ticker));
+                    Account.Position pb = b.getPosition(standbySymbols.id(ticker));
+                    assertEquals(pa == null ? 0 : pa.getReserved(), pb == null ? 0 : pb.getReserved(),
+                            "reserved " + ticker + " of user " + userId);
+                }
+            }
+
+            // 3. The primary goes away; the standby takes over at exactly its sequences
+            primary.close();
+            long started = System.nanoTime();
+            Map<Integer, Long> takenOver = replica.promote();
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            takenOver = new TreeMap<>(takenOver);
+            takenOver.values().removeIf(sequence -> sequence == 0);
+            assertEquals(primarySequences, takenOver);
+            assertTrue(elapsedMs < 1000, "took " + elapsedMs + " ms to take over");
+            assertTrue(standby.getBean(EngineRole.class).isPrimary());
+
+            // 4. ...and keeps matching: a new order lands in its journal
+            long before = sequences(standbyMatching).values().stream().mapToLong(Long::longValue).sum();
+            Order order = new Order();
+            order.setUserId(USERS.get(0));
+            order.setTicker(TICKERS.get(0));
+            order.setType(Order.Type.BUY);
+            order.setPrice(new BigDecimal("100.10"));
+            order.setQuantity(1);
+            standby.getBean(TradeController.class).placeOrder(order);
+            await("promoted standby matched a new order",
+                    () -> sequences(standbyMatching).values().stream().mapToLong(Long::longValue).sum() > before);
+        } finally {
+            if (standby != null) standby.close();
+            if (primary.isActive()) primary.close();
+        }
+    }
+
+    private ConfigurableApplicationContext engine(String role, int nodeId) throws IOException {
+        return new SpringApplicationBuilder(EngineApplication.class).run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                "--spring.data.redis.host=localhost",
+                "--spring.data.redis.port=" + redisPort,
+                "--server.port=0",
+                "--engine.symbols=" + String.join(",", TICKERS.stream().map(t -> t + ":0.01:1").toList()),
+                "--engine.role=" + role,
+                "--engine.node-id=" + nodeId,
+                "--engine.journal.dir=" + Files.createTempDirectory("journal-" + role),
+                "--engine.orders.partitions=" + PARTITIONS,
+                "--engine.matching.shards=2",
+                "--engine.replica.checksum-every=50",
+                "--engine.archive.interval-ms=3600000",
+                "--logging.level.com.trading.engine=WARN");
+    }
+
+    // Plenty of cash and stock for everyone, so no order is rejected for funds
+    private static void seedAccounts(JdbcTemplate jdbc) {
+        for (long userId : USERS) {
+            jdbc.update("INSERT INTO users (id, username, balance) VALUES (?, ?, ?)",
+                    userId, "replica_" + userId, new BigDecimal("10000000.00"));
+            for (String ticker : TICKERS) {
+                jdbc.update("INSERT INTO holdings (id, user_id, ticker, quantity, average_price) VALUES (?, ?, ?, ?, ?)",
+                        userId * 10 + TICKERS.indexOf(ticker), userId, ticker, 100_000, new BigDecimal("100.00"));
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> restingOrders(JdbcTemplate jdbc) {
+        return jdbc.queryForList("SELECT id, user_id, ticker FROM orders WHERE status = 'PENDING' AND ticker IN ('RPA', 'RPB', 'RPC', 'RPD')");
+    }
+
+    private static double received(MeterRegistry registry) {
+        return registry.find("engine.orders").counters().stream()
+                .filter(c -> TICKERS.contains(c.getId().getTag("ticker")))
+                .mapToDouble(Counter::count).sum();
+    }
+
+    private static Map<Integer, Long> sequences(OrderMatchingService matching) {
+        Map<Integer, Long> sequences = new TreeMap<>();
+        for (int p = 0; p < PARTITIONS; p++) sequences.put(p, matching.lastSequence(p));
+        return sequences;
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("Timed out waiting: " + what);
+            Thread.sleep(50);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
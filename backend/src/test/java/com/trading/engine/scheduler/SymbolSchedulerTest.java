@@ -0,0 +1,125 @@
+package com.trading.engine.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Symbol groups run on their loop and a poll returns once all of them are matched; a failure comes
+ * back to the consumer thread; and when one loop is overloaded its colder group is handed to an idle
+ * loop between polls, keeping that group's tasks in order.
+ */
+class SymbolSchedulerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SymbolScheduler scheduler = new SymbolScheduler();
+
+    @BeforeEach
+    void start() {
+        ReflectionTestUtils.setField(scheduler, "registry", registry);
+        ReflectionTestUtils.setField(scheduler, "loopCount", 2);
+        ReflectionTestUtils.setField(scheduler, "queueSize", 64);
+        ReflectionTestUtils.setField(scheduler, "rebalanceIntervalMs", 100L);
+        ReflectionTestUtils.setField(scheduler, "rebalanceThreshold", 0.5);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        scheduler.stop();
+    }
+
+    @Test
+    void runsEachGroupOnItsLoopAndWaitsForAllOfThem() {
+        Map<Integer, String> threads = new ConcurrentHashMap<>();
+        Map<Integer, Runnable> tasks = Map.of(
+                0, () -> threads.put(0, Thread.currentThread().getName()),
+                1, () -> threads.put(1, Thread.currentThread().getName()),
+                2, () -> threads.put(2, Thread.currentThread().getName()));
+
+        scheduler.execute(tasks);
+
+        assertEquals(3, threads.size(), "every task has run by the time execute returns");
+        // New groups go to the loop with the fewest, so both loops get work
+        assertEquals(Set.of("matching-loop-0", "matching-loop-1"), new HashSet<>(threads.values()));
+        for (int partition = 0; partition < 3; partition++) {
+            assertEquals("matching-loop-" + scheduler.loopOf(partition), threads.get(partition));
+        }
+        assertEquals(-1, scheduler.loopOf(3));
+    }
+
+    @Test
+    void rethrowsATaskFailureAfterThePollIsMatched() {
+        IllegalStateException failure = new IllegalStateException("book corrupted");
+        List<Integer> ran = new ArrayList<>();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> scheduler.execute(Map.of(
+                0, () -> { throw failure; },
+                1, () -> { synchronized (ran) { ran.add(1); } })));
+
+        assertSame(failure, thrown);
+        assertEquals(List.of(1), ran);
+    }
+
+    @Test
+    void handsAColdGroupOffAnOverloadedLoopInOrder() {
+        // 0 and 2 share loop 0 (1 is placed on loop 1 in between); 1 stays idle
+        scheduler.execute(Map.of(0, () -> { }));
+        scheduler.execute(Map.of(1, () -> { }));
+        scheduler.execute(Map.of(2, () -> { }));
+        int crowded = scheduler.loopOf(0);
+        assertEquals(crowded, scheduler.loopOf(2));
+        assertNotEquals(crowded, scheduler.loopOf(1));
+
+        List<Integer> order = new ArrayList<>();
+        Set<String> threadsOfTwo = ConcurrentHashMap.newKeySet();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        int poll = 0;
+        while (scheduler.loopOf(2) == crowded && System.nanoTime() < deadline) {
+            int seq = poll++;
+            scheduler.execute(Map.of(
+                    0, () -> spin(6),
+                    1, () -> { },
+                    2, () -> {
+                        threadsOfTwo.add(Thread.currentThread().getName());
+                        order.add(seq);
+                        spin(3);
+                    }));
+        }
+        // One more poll on its new loop
+        scheduler.execute(Map.of(2, () -> {
+            threadsOfTwo.add(Thread.currentThread().getName());
+            order.add(Integer.MAX_VALUE);
+        }));
+
+        assertNotEquals(crowded, scheduler.loopOf(2), "the colder group should have moved off the busy loop");
+        assertEquals(crowded, scheduler.loopOf(0), "the hottest group stays put");
+        assertEquals(2, threadsOfTwo.size());
+        for (int i = 1; i < order.size(); i++) {
+            assertTrue(order.get(i) > order.get(i - 1), "group 2's tasks ran out of order: " + order);
+        }
+        assertTrue(registry.counter("engine.matching.migrations").count() >= 1);
+    }
+
+    // Holds the loop for the given time, which is what the scheduler measures as a group's load
+    private static void spin(long millis) {
+        long until = System.nanoTime() + millis * 1_000_000;
+        while (System.nanoTime() < until) LockSupport.parkNanos(10_000);
+    }
+}
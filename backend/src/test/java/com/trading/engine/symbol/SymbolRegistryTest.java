@@ -0,0 +1,53 @@
+package com.trading.engine.symbol;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Lookups never register: only configured tickers and explicit registrations get an id, so made-up
+ * tickers from the ingress can't use up the registry.
+ */
+class SymbolRegistryTest {
+
+    private final SymbolRegistry symbols = new SymbolRegistry("AAPL:0.01:1,MSFT:0.05:10", new BigDecimal("0.01"), 1, 3);
+
+    @Test
+    void configuredSymbolsAreKnownFromTheStart() {
+        assertEquals(0, symbols.find("AAPL"));
+        assertEquals(1, symbols.id("MSFT"));
+        assertEquals(1, symbols.find(TickerCode.of("MSFT")));
+        assertEquals(new BigDecimal("0.05"), symbols.spec("MSFT").tickSize());
+    }
+
+    @Test
+    void lookupsOfUnknownOrMalformedTickersNeverRegister() {
+        assertEquals(-1, symbols.find("ZZZZ"));
+        assertEquals(-1, symbols.find(TickerCode.of("ZZZZ")));
+        assertEquals(-1, symbols.find("TOO_LONG_TICKER"));
+        assertEquals(-1, symbols.find(""));
+        assertEquals(-1, symbols.find((String) null));
+        assertThrows(IllegalArgumentException.class, () -> symbols.id("ZZZZ"));
+        assertThrows(IllegalArgumentException.class, () -> symbols.spec("ZZZZ"));
+        assertThrows(IllegalArgumentException.class, () -> symbols.setStatus("ZZZZ", SymbolStatus.HALTED));
+        assertEquals(2, symbols.size());
+    }
+
+    @Test
+    void registrationAddsWithTheDefaultsUntilFull() {
+        int id = symbols.register("NVDA");
+        assertEquals(2, id);
+        assertEquals(id, symbols.register("NVDA"));
+        assertEquals(id, symbols.find("NVDA"));
+        assertEquals(new BigDecimal("0.01"), symbols.spec(id).tickSize());
+        assertEquals(SymbolStatus.TRADING, symbols.status(id));
+
+        assertThrows(IllegalArgumentException.class, () -> symbols.register("TSLA"));
+        assertEquals(-1, symbols.register(TickerCode.of("TSLA")));
+        assertEquals(-1, symbols.register(0L));
+        assertEquals(3, symbols.size());
+    }
+}
@@ -0,0 +1,60 @@
+package com.trading.engine.symbol;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prices become whole ticks and back without rounding, from BigDecimal and from the wire's
+ * mantissa/exponent form alike; anything off the tick grid or the lot size is refused.
+ */
+class SymbolSpecTest {
+
+    private final SymbolSpec nickel = new SymbolSpec(0, "MSFT", TickerCode.of("MSFT"), new BigDecimal("0.05"), 10);
+
+    @Test
+    void convertsPricesToTicksAndBack() {
+        assertEquals(2001, nickel.toTicks(new BigDecimal("100.05")));
+        assertEquals(2001, nickel.toTicks(new BigDecimal("100.0500")));
+        assertEquals(0, new BigDecimal("100.05").compareTo(nickel.toPrice(2001)));
+        assertEquals(5, nickel.centsPerTick());
+    }
+
+    @Test
+    void wirePricesMatchTheirDecimalValue() {
+        assertEquals(2001, nickel.toTicks(10005, 2));
+        assertEquals(2001, nickel.toTicks(100050, 3));
+        assertEquals(2000, nickel.toTicks(100, 0));
+        assertEquals(20, nickel.toTicks(1, 0));
+    }
+
+    @Test
+    void refusesPricesOffTheTickGrid() {
+        assertThrows(ArithmeticException.class, () -> nickel.toTicks(new BigDecimal("100.01")));
+        assertThrows(ArithmeticException.class, () -> nickel.toTicks(10001, 2));
+        assertThrows(ArithmeticException.class, () -> nickel.toTicks(100051, 3), "finer than a cent");
+        assertThrows(ArithmeticException.class, () -> nickel.toTicks(1, 40), "exponent out of range");
+    }
+
+    @Test
+    void quantitiesMustBeWholeLots() {
+        assertTrue(nickel.isValidQuantity(10));
+        assertTrue(nickel.isValidQuantity(250));
+        assertFalse(nickel.isValidQuantity(15));
+        assertFalse(nickel.isValidQuantity(0));
+        assertFalse(nickel.isValidQuantity(-10));
+    }
+
+    @Test
+    void tickSizeMustBeWholeCents() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SymbolSpec(1, "BRK", TickerCode.of("BRK"), new BigDecimal("0.005"), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SymbolSpec(1, "BRK", TickerCode.of("BRK"), new BigDecimal("0.01"), 0));
+    }
+}
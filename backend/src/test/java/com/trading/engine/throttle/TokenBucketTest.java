@@ -0,0 +1,81 @@
+package com.trading.engine.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The GCRA bucket: a full burst at once, then one token per interval; refused requests cost nothing,
+ * and racing threads never get more than the burst between them.
+ */
+class TokenBucketTest {
+
+    private static final long START = 1_000_000_000_000L;
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100); // 10 a second
+
+    @Test
+    void allowsABurstThenOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        assertTrue(bucket.isFull(START));
+
+        for (int i = 0; i < 3; i++) assertTrue(bucket.tryAcquire(START), "token " + i + " of the burst");
+        assertFalse(bucket.tryAcquire(START));
+        assertFalse(bucket.isFull(START));
+
+        assertFalse(bucket.tryAcquire(START + INTERVAL - 1));
+        assertTrue(bucket.tryAcquire(START + INTERVAL));
+        assertFalse(bucket.tryAcquire(START + INTERVAL));
+    }
+
+    @Test
+    void refusedRequestsDoNotDelayTheNextToken() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertTrue(bucket.tryAcquire(START));
+        for (int i = 0; i < 1_000; i++) assertFalse(bucket.tryAcquire(START + i));
+
+        assertTrue(bucket.tryAcquire(START + INTERVAL));
+    }
+
+    @Test
+    void refillsToTheBurstAndNoFurther() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        for (int i = 0; i < 3; i++) bucket.tryAcquire(START);
+
+        long later = START + 10 * INTERVAL;
+        assertTrue(bucket.isFull(later));
+        int granted = 0;
+        while (bucket.tryAcquire(later)) granted++;
+        assertEquals(3, granted);
+    }
+
+    @Test
+    void racingThreadsShareTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1_000);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(START)) granted.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(1_000, granted.get());
+    }
+}
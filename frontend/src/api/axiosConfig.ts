@@ -40,30 +40,53 @@ apiClient.interceptors.response.use(
 // Trade API types
 export interface TradeOrder {
   ticker: string;
-  price: number;
+  price?: number; // omitted for a market order
   quantity: number;
   type: 'BUY' | 'SELL';
   userId: number; // <--- ADD THIS LINE
+  timeInForce?: 'GTC' | 'IOC' | 'FOK';
+  clientOrderId?: string;
 }
 
+// The engine's execution report: what filled on arrival and what became of the rest
 export interface TradeResponse {
-  id: string;
+  clientOrderId: string | null;
+  orderId: number;
+  userId: number;
   ticker: string;
-  price: number;
-  quantity: number;
-  type: 'BUY' | 'SELL';
-  timestamp: string;
-  status: 'EXECUTED' | 'PENDING' | 'REJECTED';
+  status: 'NEW' | 'PARTIALLY_FILLED' | 'FILLED' | 'CANCELLED' | 'REJECTED';
+  reason: string | null;
+  filledQuantity: number;
+  leavesQuantity: number;
+  averagePrice: number | null;
+  timestamp: number;
+}
+
+// One page of history, newest first. Pass nextCursor back to get the next (older) page; null when done
+export interface HistoryPage<T> {
+  items: T[];
+  nextCursor: string | null;
 }
 
 // Trade API functions
 export const tradeApi = {
+  // Every attempt carries the same clientOrderId, so a retry gets the first attempt's report instead of a second order
   placeTrade: async (order: TradeOrder): Promise<TradeResponse> => {
-    const response = await apiClient.post<TradeResponse>('/trade', order);
-    return response.data;
+    const request = { ...order, clientOrderId: order.clientOrderId ?? crypto.randomUUID() };
+    for (let attempt = 1; ; attempt++) {
+      try {
+        const response = await apiClient.post<TradeResponse>('/trade', request);
+        return response.data;
+      } catch (error: any) {
+        const retriable = !error.response || error.response.status === 504;
+        if (!retriable || attempt === 3) throw error;
+      }
+    }
   },
-  getPendingOrders: (userId: number) => apiClient.get<any[]>(`/api/orders/pending/${userId}`),
-  getHistory: (userId: number) => apiClient.get<any[]>(`/api/orders/history/${userId}`),
+  getPendingOrders: (userId: number, cursor?: string) =>
+    apiClient.get<HistoryPage<any>>(`/api/orders/pending/${userId}`, { params: { cursor } }),
+  getHistory: (userId: number, cursor?: string) =>
+    apiClient.get<HistoryPage<any>>(`/api/orders/history/${userId}`, { params: { cursor } }),
   cancelOrder: (orderId: number) => apiClient.delete(`/api/orders/${orderId}`),
 };
 
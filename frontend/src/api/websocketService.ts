@@ -1,4 +1,4 @@
-import { Client, IMessage } from '@stomp/stompjs';
+import { Client, IMessage, StompSubscription } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
 
 export interface TradeUpdate {
@@ -17,6 +17,9 @@ class WebSocketService {
   private client: Client | null = null;
   private tradeCallbacks: TradeCallback[] = [];
   private connectionCallbacks: ConnectionCallback[] = [];
+  // Other topics (e.g. /topic/portfolio/{userId}): callbacks per topic, (re)subscribed on every connect
+  private topicCallbacks = new Map<string, Set<(message: any) => void>>();
+  private topicSubscriptions = new Map<string, StompSubscription>();
   private reconnectAttempts = 0;
   private maxReconnectAttempts = 5;
   private isConnected = false;
@@ -45,6 +48,8 @@ class WebSocketService {
         this.reconnectAttempts = 0;
         this.notifyConnectionChange(true);
         this.subscribeToTrades();
+        this.topicSubscriptions.clear();
+        this.topicCallbacks.forEach((_, topic) => this.subscribeToTopic(topic));
       },
       onDisconnect: () => {
         console.log('[WebSocket] Disconnected from server');
@@ -75,8 +80,10 @@ class WebSocketService {
 
     this.client.subscribe('/topic/trades', (message: IMessage) => {
       try {
-        const trade: TradeUpdate = JSON.parse(message.body);
-        this.notifyTradeUpdate(trade);
+        // The engine batches prints: one frame carries every trade since the last publish
+        const payload: TradeUpdate | TradeUpdate[] = JSON.parse(message.body);
+        const trades = Array.isArray(payload) ? payload : [payload];
+        trades.forEach((trade) => this.notifyTradeUpdate(trade));
       } catch (error) {
         console.error('[WebSocket] Failed to parse trade message:', error);
       }
@@ -85,6 +92,22 @@ class WebSocketService {
     console.log('[WebSocket] Subscribed to /topic/trades');
   }
 
+  private subscribeToTopic(topic: string): void {
+    if (!this.client?.connected || this.topicSubscriptions.has(topic)) {
+      return;
+    }
+
+    const subscription = this.client.subscribe(topic, (message: IMessage) => {
+      try {
+        const payload = JSON.parse(message.body);
+        this.topicCallbacks.get(topic)?.forEach((callback) => callback(payload));
+      } catch (error) {
+        console.error(`[WebSocket] Failed to parse message on ${topic}:`, error);
+      }
+    });
+    this.topicSubscriptions.set(topic, subscription);
+  }
+
   private handleReconnect(): void {
     if (this.reconnectAttempts < this.maxReconnectAttempts) {
       this.reconnectAttempts++;
@@ -108,15 +131,27 @@ class WebSocketService {
    * The new method your Portfolio component is calling.
    * It bridges the generic 'subscribe' call to our specific internal logic.
    */
-  subscribe(topic: string, callback: (message: any) => void) {
+  subscribe(topic: string, callback: (message: any) => void): () => void {
     if (topic === '/topic/trades') {
        // Bridge the generic subscribe call to our specific trade logic
        // The callback will receive the 'TradeUpdate' object
-       this.onTrade((trade) => callback(trade));
-    } else {
-       console.warn(`[WebSocket] Auto-subscription for topic '${topic}' not manually mapped in this service.`);
-       // If you need to support other topics later, you can add generic subscription logic here.
+       return this.onTrade((trade) => callback(trade));
     }
+
+    // Any other topic: one STOMP subscription per topic, shared by its callbacks
+    const callbacks = this.topicCallbacks.get(topic) ?? new Set();
+    callbacks.add(callback);
+    this.topicCallbacks.set(topic, callbacks);
+    this.subscribeToTopic(topic);
+
+    return () => {
+      callbacks.delete(callback);
+      if (callbacks.size === 0) {
+        this.topicCallbacks.delete(topic);
+        this.topicSubscriptions.get(topic)?.unsubscribe();
+        this.topicSubscriptions.delete(topic);
+      }
+    };
   }
 
   onTrade(callback: TradeCallback): () => void {
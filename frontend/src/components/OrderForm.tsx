@@ -57,11 +57,30 @@ const OrderForm: React.FC = () => {
     setIsSubmitting(true);
 
     try {
-      const response = await tradeApi.placeTrade(order);
-      
+      // Answered with the engine's execution report, no polling needed
+      const report = await tradeApi.placeTrade(order);
+      const filled = report.filledQuantity > 0
+        ? `${report.filledQuantity} filled @ $${report.averagePrice?.toFixed(2)}`
+        : 'nothing filled';
+
+      if (report.status === 'REJECTED') {
+        toast({
+          title: 'Order Rejected',
+          description: `${order.ticker}: ${report.reason}`,
+          variant: 'destructive',
+        });
+        return;
+      }
+
       toast({
-        title: `${type} Order Executed`,
-        description: `${order.ticker} × ${order.quantity} @ $${order.price.toFixed(2)}`,
+        title: report.status === 'FILLED' ? `${type} Order Filled`
+          : report.status === 'CANCELLED' ? `${type} Order Cancelled`
+          : `${type} Order Working`,
+        description: report.status === 'CANCELLED'
+          ? `${order.ticker}: ${filled}, rest cancelled (${report.reason})`
+          : report.leavesQuantity > 0
+            ? `${order.ticker}: ${filled}, ${report.leavesQuantity} resting @ $${order.price?.toFixed(2)}`
+            : `${order.ticker}: ${filled}`,
         className: type === 'BUY' ? 'border-primary' : 'border-destructive',
       });
 
@@ -69,8 +88,6 @@ const OrderForm: React.FC = () => {
       setTicker('');
       setPrice('');
       setQuantity('');
-      
-      console.log('Trade response:', response);
     } catch (error: any) {
       console.error("Trade failed:", error); // Added logging for debugging
       toast({
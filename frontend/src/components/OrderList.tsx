@@ -41,11 +41,11 @@ const OrderList: React.FC = () => {
     try {
       // 1. Get Pending
       const pendingRes = await tradeApi.getPendingOrders(1); // User 1
-      setPendingOrders(pendingRes.data);
+      setPendingOrders(pendingRes.data.items);
 
       // 2. Get History
       const historyRes = await tradeApi.getHistory(1);
-      setHistory(historyRes.data);
+      setHistory(historyRes.data.items);
     } catch (e) {
       console.error("Failed to fetch orders", e);
     } finally {
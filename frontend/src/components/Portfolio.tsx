@@ -27,6 +27,26 @@ interface PortfolioData {
   holdings: Holding[];
 }
 
+// Pushed by the engine on /topic/portfolio/{userId}: a snapshot first, then only what changed
+interface PortfolioUpdate {
+  userId: number;
+  snapshot: boolean;
+  balance: number;
+  marketValue: number;
+  unrealizedPnl: number;
+  positions: Holding[];
+  timestamp: number;
+}
+
+const applyUpdate = (current: PortfolioData, update: PortfolioUpdate): PortfolioData => {
+  const holdings = new Map(update.snapshot ? [] : current.holdings.map((h) => [h.ticker, h] as const));
+  update.positions.forEach((p) => {
+    if (p.quantity > 0) holdings.set(p.ticker, p);
+    else holdings.delete(p.ticker); // closed
+  });
+  return { ...current, balance: update.balance, holdings: [...holdings.values()] };
+};
+
 const Portfolio: React.FC = () => {
   const [portfolio, setPortfolio] = useState<PortfolioData | null>(null);
   const [isLoading, setIsLoading] = useState(true);
@@ -59,13 +79,11 @@ const Portfolio: React.FC = () => {
       try {
         await websocketService.connect();
         
-        // 3. Subscribe to Trade Updates
+        // 3. Subscribe to this user's portfolio pushes (no refetch per trade)
         // The service returns a cleanup function (unsubscribe)
-        const unsubscribe = websocketService.subscribe('/topic/trades', (tradeEvent) => {
-          console.log("🔥 [Portfolio] WebSocket Event Received:", tradeEvent);
-          
-          // 4. Trigger Silent Refresh
-          loadPortfolio(true);
+        const unsubscribe = websocketService.subscribe('/topic/portfolio/1', (update: PortfolioUpdate) => {
+          // 4. Apply the delta in place
+          setPortfolio((current) => (current ? applyUpdate(current, update) : current));
         });
 
         // Store cleanup for unmount
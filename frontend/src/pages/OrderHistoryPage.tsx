@@ -61,8 +61,8 @@ const OrderHistoryPage: React.FC = () => {
         tradeApi.getPendingOrders(1)
       ]);
       
-      // Transform History
-      const formattedHistory: TradeRecord[] = historyRes.data.map((t: any) => ({
+      // Transform History (first page, already newest first)
+      const formattedHistory: TradeRecord[] = historyRes.data.items.map((t: any) => ({
         id: t.id.toString(),
         ticker: t.ticker,
         price: t.price,
@@ -71,19 +71,19 @@ const OrderHistoryPage: React.FC = () => {
         timestamp: t.timestamp,
         status: 'EXECUTED',
         total: t.price * t.quantity
-      })).reverse();
+      }));
 
       // Transform Pending
-      const formattedPending: TradeRecord[] = pendingRes.data.map((o: any) => ({
+      const formattedPending: TradeRecord[] = pendingRes.data.items.map((o: any) => ({
         id: o.id.toString(),
         ticker: o.ticker,
         price: o.price,
         quantity: o.quantity,
         type: o.type,
-        timestamp: new Date().toISOString(), 
+        timestamp: o.timestamp,
         status: 'PENDING',
         total: o.price * o.quantity
-      })).reverse();
+      }));
 
       setHistory(formattedHistory);
       setPending(formattedPending);